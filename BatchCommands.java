@@ -0,0 +1,233 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * BatchCommands runs a script of commands against a Database without any user interaction, for
+ * Driver's batch mode. Each line of the script is one command:
+ *
+ *    search title <title>
+ *    search director <director>
+ *    favourite <minimum rating> [most movies to list]
+ *    add <title>,<director>,<actor1>,<actor2>,<actor3>,<rating>
+ *    delete <title>
+ *    save [file]
+ *
+ * save without a file writes the changes to the movie file: through the journal when the database
+ * is journaling, otherwise by saving every movie to the file the script was given.
+ * Blank lines and lines starting with # are skipped. Searches list each movie found as a line of
+ * the text file format. A command that can't be run is reported with its line number and the
+ * script carries on with the next line.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+public class BatchCommands
+{
+    private Database movieDatabase;
+    private String movieFilename;
+    private Writer out;
+    private MovieRecordParser parser;
+    private StringBuilder line;
+    private int added;
+    private int deleted;
+    private int errors;
+
+    /**
+     * Constructor for objects of class BatchCommands
+     *
+     * @param - database - database the commands are run against
+     * @param - filename - movie file the database was loaded from, written by save without a file, or null if there isn't one
+     * @param - output - where results are written, it should be buffered as it is written to a line at a time
+     */
+    public BatchCommands(Database database, String filename, Writer output)
+    {
+        movieDatabase = database;
+        movieFilename = filename;
+        out = output;
+        parser = new MovieRecordParser();
+        line = new StringBuilder();
+    }
+
+    /*
+     * Run every command in a script, then write a summary of what was done. The output is flushed
+     * but not closed.
+     *
+     * Returns the number of commands that could not be run
+     *
+     * @throws IOException if there is an error reading the script or writing the results
+     */
+    public int run(BufferedReader script) throws IOException
+    {
+        int commands = 0;
+        int lineNumber = 0;
+        String command = script.readLine();
+        while (command != null)
+        {
+            lineNumber++;
+            command = command.trim();
+            if (command.length() > 0 && !command.startsWith("#"))
+            {
+                runCommand(command, lineNumber);
+                commands++;
+            }
+            command = script.readLine();
+        }
+
+        out.write("Ran " + commands + " commands: " + added + " movies added, " + deleted + " deleted, " + errors + " errors\n");
+        out.flush();
+        return errors;
+    }
+
+    private void runCommand(String command, int lineNumber) throws IOException
+    {
+        int space = command.indexOf(' ');
+        String name = (space < 0) ? command : command.substring(0, space);
+        String argument = (space < 0) ? "" : command.substring(space + 1).trim();
+
+        if (name.equals("search"))
+        {
+            search(argument, lineNumber);
+        }
+        else if (name.equals("favourite"))
+        {
+            favourite(argument, lineNumber);
+        }
+        else if (name.equals("add"))
+        {
+            add(argument, lineNumber);
+        }
+        else if (name.equals("delete"))
+        {
+            if (argument.length() == 0)
+            {
+                error(lineNumber, "delete needs a title");
+                return;
+            }
+            int count = movieDatabase.deleteMoviesWithTitle(argument);
+            deleted += count;
+            if (count == 0)
+            {
+                error(lineNumber, "No movies found matching that title");
+            }
+        }
+        else if (name.equals("save"))
+        {
+            // Without a file name the journaled movie file is rewritten, as the journal already holds every change
+            if (argument.length() == 0 && movieDatabase.isJournaling())
+            {
+                movieDatabase.checkpoint();
+            }
+            else if (argument.length() == 0)
+            {
+                if (movieFilename == null)
+                {
+                    error(lineNumber, "save needs a file name");
+                    return;
+                }
+                movieDatabase.saveMoviesToFile(movieFilename);
+            }
+            else
+            {
+                movieDatabase.saveMoviesToFile(argument);
+            }
+        }
+        else
+        {
+            error(lineNumber, "Unknown command " + name);
+        }
+    }
+
+    // search title <title> or search director <director>
+    private void search(String argument, int lineNumber) throws IOException
+    {
+        int space = argument.indexOf(' ');
+        String searchKey = (space < 0) ? argument : argument.substring(0, space);
+        if (space < 0 || !(searchKey.equals("title") || searchKey.equals("director")))
+        {
+            error(lineNumber, "Expected search title <title> or search director <director>");
+            return;
+        }
+
+        ArrayList<Movie> foundMovies = movieDatabase.searchForMovie(argument.substring(space + 1).trim(), searchKey, 0);
+        out.write(foundMovies.size() + " movies found\n");
+        writeMovies(foundMovies.iterator(), foundMovies.size());
+    }
+
+    // favourite <minimum rating> [most movies to list], highest rated first
+    private void favourite(String argument, int lineNumber) throws IOException
+    {
+        String[] numbers = argument.split("\\s+");
+        int minRating;
+        int limit = Integer.MAX_VALUE;
+        try
+        {
+            minRating = Integer.parseInt(numbers[0]);
+            if (numbers.length > 1)
+            {
+                limit = Integer.parseInt(numbers[1]);
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            error(lineNumber, "Expected favourite <minimum rating> [most movies to list]");
+            return;
+        }
+        if (minRating < 1 || minRating > 10)
+        {
+            error(lineNumber, "Rating should be between 1 and 10");
+            return;
+        }
+        if (limit < 0)
+        {
+            error(lineNumber, "Most movies to list should not be negative");
+            return;
+        }
+
+        // The count comes from the rating index, so only the movies listed are looked up
+        out.write(movieDatabase.countFavouriteMovies(minRating) + " movies found\n");
+        ArrayList<Movie> foundMovies = movieDatabase.findMovies("", "favourite", minRating, SortKey.RATING, 0, limit);
+        writeMovies(foundMovies.iterator(), limit);
+    }
+
+    // add <title>,<director>,<actor1>,<actor2>,<actor3>,<rating>, titles must be unique as they are for the menu
+    private void add(String argument, int lineNumber) throws IOException
+    {
+        byte[] record = argument.getBytes(StandardCharsets.UTF_8);
+        ArrayList<LoadError> parseErrors = new ArrayList<LoadError>();
+        Movie movie = parser.parseLine(ByteBuffer.wrap(record), 0, record.length, lineNumber, parseErrors);
+        if (movie == null)
+        {
+            error(lineNumber, parseErrors.isEmpty() ? "add needs a movie" : parseErrors.get(0).getMessage());
+            return;
+        }
+        if (movieDatabase.findMovies(movie.getTitle(), "title", 0, SortKey.INSERTION, 0, 1).size() > 0)
+        {
+            error(lineNumber, "A movie with that title already exists");
+            return;
+        }
+        movieDatabase.addMovie(movie);
+        added++;
+    }
+
+    // Write up to limit movies, one per line in the text file format
+    private void writeMovies(Iterator<Movie> movies, int limit) throws IOException
+    {
+        for (int written = 0; written < limit && movies.hasNext(); written++)
+        {
+            line.setLength(0);
+            MovieFileWriter.appendRecord(line, movies.next());
+            out.append(line);
+        }
+    }
+
+    private void error(int lineNumber, String message) throws IOException
+    {
+        out.write(new LoadError(lineNumber, message) + "\n");
+        errors++;
+    }
+}
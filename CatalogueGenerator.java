@@ -0,0 +1,432 @@
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * CatalogueGenerator writes synthetic movie catalogues for load and scale testing, in either the
+ * text format or as a snapshot. Catalogues are generated from a seed so the same seed and settings
+ * always produce the same file.
+ * 
+ * Directors and actors are picked with a Zipfian distribution so a few are in many movies and most
+ * are in only a handful, each movie has between 0 and 3 actors, and ratings lean towards the
+ * high end as they do in a real collection. Text files can also be given some malformed lines to
+ * exercise the loaders' error reporting.
+ * 
+ * Movies are written as they are generated, nothing is kept in memory but the name pools.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class CatalogueGenerator
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    // Relative weight of each rating from 1 to 10
+    private static final int[] RATING_WEIGHTS = { 2, 3, 4, 6, 9, 13, 18, 20, 16, 9 };
+    
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+        "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+        "Christopher", "Nancy", "Daniel", "Lisa", "Matthew", "Betty", "Anthony", "Margaret", "Mark", "Sandra",
+        "Steven", "Ashley", "Paul", "Kimberly", "Andrew", "Emily", "Joshua", "Donna", "Kenneth", "Michelle"
+    };
+    
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+        "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores"
+    };
+    
+    private static final String[] TITLE_WORDS = {
+        "The", "Last", "Silent", "River", "Night", "Dark", "City", "Lost", "Return", "Kingdom",
+        "Shadow", "Star", "Fire", "Ice", "Storm", "Secret", "Road", "Heart", "Black", "Golden",
+        "Empire", "Rising", "Fall", "Ghost", "Blood", "Moon", "Sun", "War", "Dream", "Island",
+        "Edge", "Game", "Man", "Woman", "Story", "Journey", "House", "Garden", "Winter", "Summer"
+    };
+    
+    private long seed;
+    private int directorCount;
+    private int actorCount;
+    private double zipfExponent;
+    private double malformedFraction;
+    
+    /*
+     * Create a generator with 1 director for every 20 movies, 1 actor for every 5 movies, a Zipf
+     * exponent of 1 and no malformed lines
+     */
+    public CatalogueGenerator(long generatorSeed)
+    {
+        seed = generatorSeed;
+        zipfExponent = 1.0;
+        malformedFraction = 0;
+    }
+    
+    // Number of distinct directors to pick from, 0 picks one for every 20 movies
+    public void setDirectorCount(int count)
+    {
+        directorCount = count;
+    }
+    
+    // Number of distinct actors to pick from, 0 picks one for every 5 movies
+    public void setActorCount(int count)
+    {
+        actorCount = count;
+    }
+    
+    // Exponent of the Zipf distribution of directors and actors, higher values make the most popular names more dominant
+    public void setZipfExponent(double exponent)
+    {
+        if (exponent <= 0)
+        {
+            throw new IllegalArgumentException("Zipf exponent must be positive\n");
+        }
+        zipfExponent = exponent;
+    }
+    
+    // Fraction of text lines that are written malformed, from 0 to 1
+    public void setMalformedFraction(double fraction)
+    {
+        if (fraction < 0 || fraction > 1)
+        {
+            throw new IllegalArgumentException("Malformed fraction must be between 0 and 1\n");
+        }
+        malformedFraction = fraction;
+    }
+    
+    /*
+     * Write a text movie file in the same format as myvideos.txt
+     * 
+     * Takes as arguments:
+     *  @param - filename - file to write, it is replaced if it already exists
+     *  @param - movieCount - number of lines to write, including malformed ones
+     * 
+     * Returns the number of malformed lines written
+     * 
+     * @throws IOException if the file can not be written, the existing file is left unchanged
+     */
+    public int writeText(String filename, int movieCount) throws IOException
+    {
+        Generation generation = new Generation(movieCount);
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = MovieFileWriter.temporaryFileFor(target);
+        FileOutputStream file = new FileOutputStream(temp.toFile());
+        boolean written = false;
+        int malformed = 0;
+        try
+        {
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE);
+            StringBuilder line = new StringBuilder(128);
+            for (int m = 0; m < movieCount; m++)
+            {
+                line.setLength(0);
+                generation.next();
+                if (malformedFraction > 0 && generation.random.nextDouble() < malformedFraction)
+                {
+                    generation.appendMalformed(line);
+                    malformed++;
+                }
+                else
+                {
+                    generation.append(line);
+                }
+                out.append(line);
+            }
+            out.flush();
+            file.getFD().sync();
+            written = true;
+        }
+        finally
+        {
+            file.close();
+            if (!written)
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+        
+        MovieFileWriter.replaceAtomically(temp, target);
+        return malformed;
+    }
+    
+    /*
+     * Write a snapshot file. Snapshots can only hold valid movies so no malformed movies are written.
+     * 
+     * @throws IOException if the file can not be written, the existing file is left unchanged
+     */
+    public void writeSnapshot(String filename, int movieCount) throws IOException
+    {
+        Generation generation = new Generation(movieCount);
+        
+        // Every director and actor goes in the name table, actors are numbered after the directors
+        String[] names = new String[generation.directors.length + generation.actors.length];
+        for (int i = 0; i < generation.directors.length; i++)
+        {
+            names[i] = generation.directorName(i);
+        }
+        for (int i = 0; i < generation.actors.length; i++)
+        {
+            names[generation.directors.length + i] = generation.actorName(i);
+        }
+        
+        MovieSnapshot.Writer out = new MovieSnapshot.Writer(filename, names, movieCount);
+        boolean written = false;
+        try
+        {
+            int[] actorIds = new int[3];
+            for (int m = 0; m < movieCount; m++)
+            {
+                generation.next();
+                for (int i = 0; i < generation.movieActorCount; i++)
+                {
+                    actorIds[i] = generation.directors.length + generation.movieActors[i];
+                }
+                out.writeMovie(generation.title, generation.movieDirector, actorIds, generation.movieActorCount, generation.rating);
+            }
+            out.close();
+            written = true;
+        }
+        finally
+        {
+            if (!written)
+            {
+                out.abandon();
+            }
+        }
+    }
+    
+    /*
+     * Generate a catalogue from the command line:
+     *    java CatalogueGenerator <file> <movies> [seed] [text|snapshot] [malformed fraction]
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2 || args.length > 5)
+        {
+            System.out.print("Usage: java CatalogueGenerator <file> <movies> [seed] [text|snapshot] [malformed fraction]\n");
+            return;
+        }
+        int movieCount = Integer.parseInt(args[1]);
+        CatalogueGenerator generator = new CatalogueGenerator(args.length > 2 ? Long.parseLong(args[2]) : 1);
+        String format = args.length > 3 ? args[3] : "text";
+        if (args.length > 4)
+        {
+            generator.setMalformedFraction(Double.parseDouble(args[4]));
+        }
+        
+        long start = System.nanoTime();
+        if (format.equals("snapshot"))
+        {
+            generator.writeSnapshot(args[0], movieCount);
+        }
+        else if (format.equals("text"))
+        {
+            int malformed = generator.writeText(args[0], movieCount);
+            System.out.print(malformed + " malformed lines\n");
+        }
+        else
+        {
+            System.out.print("Unknown format " + format + ", expected text or snapshot\n");
+            return;
+        }
+        System.out.print("Wrote " + movieCount + " movies to " + args[0] + " in " + (System.nanoTime() - start) / 1000000 + "ms\n");
+    }
+    
+    /**
+     * Generation holds the state of one run of the generator and the movie it generated last.
+     * The name pools are kept as strings once made so popular names aren't rebuilt for every movie.
+     */
+    private class Generation
+    {
+        private SplittableRandom random;
+        private double[] directors;
+        private double[] actors;
+        private String[] directorNames;
+        private String[] actorNames;
+        private int[] ratingTotals;
+        
+        private String title;
+        private int movieDirector;
+        private int[] movieActors;
+        private int movieActorCount;
+        private int rating;
+        
+        private Generation(int movieCount)
+        {
+            random = new SplittableRandom(seed);
+            directors = zipfTable(directorCount > 0 ? directorCount : Math.max(1, movieCount / 20));
+            actors = zipfTable(actorCount > 0 ? actorCount : Math.max(1, movieCount / 5));
+            directorNames = new String[directors.length];
+            actorNames = new String[actors.length];
+            movieActors = new int[3];
+            
+            ratingTotals = new int[RATING_WEIGHTS.length];
+            int total = 0;
+            for (int i = 0; i < RATING_WEIGHTS.length; i++)
+            {
+                total += RATING_WEIGHTS[i];
+                ratingTotals[i] = total;
+            }
+        }
+        
+        // Generate the next movie
+        private void next()
+        {
+            title = nextTitle();
+            movieDirector = pick(directors);
+            
+            // An actor drawn twice for the same movie is only listed once
+            int wanted = random.nextInt(4);
+            movieActorCount = 0;
+            for (int i = 0; i < wanted; i++)
+            {
+                int actor = pick(actors);
+                boolean repeated = false;
+                for (int j = 0; j < movieActorCount; j++)
+                {
+                    repeated = repeated || movieActors[j] == actor;
+                }
+                if (!repeated)
+                {
+                    movieActors[movieActorCount++] = actor;
+                }
+            }
+            
+            int r = random.nextInt(ratingTotals[ratingTotals.length - 1]);
+            rating = 1;
+            while (ratingTotals[rating - 1] <= r)
+            {
+                rating++;
+            }
+        }
+        
+        // Append the current movie as a line of the text format
+        private void append(StringBuilder line)
+        {
+            line.append(title).append(',').append(directorName(movieDirector)).append(',');
+            for (int i = 0; i < 3; i++)
+            {
+                if (i < movieActorCount)
+                {
+                    line.append(actorName(movieActors[i]));
+                }
+                line.append(',');
+            }
+            line.append(rating).append('\n');
+        }
+        
+        // Append the current movie with one of the mistakes the loaders have to reject
+        private void appendMalformed(StringBuilder line)
+        {
+            switch (random.nextInt(6))
+            {
+                case 0:
+                    // Missing the last actor field
+                    line.append(title).append(',').append(directorName(movieDirector)).append(",,,").append(rating).append('\n');
+                    break;
+                case 1:
+                    // An extra field after the title, so the rating is read from the last actor field
+                    append(line);
+                    line.insert(title.length(), ",extra");
+                    break;
+                case 2:
+                    line.append(title).append(',').append(directorName(movieDirector)).append(",,,,unrated\n");
+                    break;
+                case 3:
+                    line.append(title).append(',').append(directorName(movieDirector)).append(",,,,").append(10 + rating).append('\n');
+                    break;
+                case 4:
+                    line.append(" ,").append(directorName(movieDirector)).append(",,,,").append(rating).append('\n');
+                    break;
+                default:
+                    line.append(title).append(",,,,,").append(rating).append('\n');
+                    break;
+            }
+        }
+        
+        private String nextTitle()
+        {
+            StringBuilder name = new StringBuilder(32);
+            int words = 1 + random.nextInt(4);
+            for (int i = 0; i < words; i++)
+            {
+                if (i > 0)
+                {
+                    name.append(' ');
+                }
+                name.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+            }
+            
+            // A few titles are sequels
+            if (random.nextInt(10) == 0)
+            {
+                name.append(' ').append(2 + random.nextInt(4));
+            }
+            return name.toString();
+        }
+        
+        private String directorName(int rank)
+        {
+            if (directorNames[rank] == null)
+            {
+                directorNames[rank] = personName(rank);
+            }
+            return directorNames[rank];
+        }
+        
+        private String actorName(int rank)
+        {
+            if (actorNames[rank] == null)
+            {
+                actorNames[rank] = personName(rank + 7919);
+            }
+            return actorNames[rank];
+        }
+        
+        // Pick an index from a cumulative distribution table
+        private int pick(double[] table)
+        {
+            int index = Arrays.binarySearch(table, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, table.length - 1);
+        }
+        
+        /*
+         * Cumulative Zipf distribution over count names, entry i is the chance of picking a name
+         * ranked i or better
+         */
+        private double[] zipfTable(int count)
+        {
+            double[] table = new double[count];
+            double total = 0;
+            for (int i = 0; i < count; i++)
+            {
+                total += 1.0 / Math.pow(i + 1, zipfExponent);
+                table[i] = total;
+            }
+            for (int i = 0; i < count; i++)
+            {
+                table[i] /= total;
+            }
+            return table;
+        }
+    }
+    
+    // A unique name for every number, once the first and last names run out a number is added
+    private static String personName(int number)
+    {
+        int combinations = FIRST_NAMES.length * LAST_NAMES.length;
+        String name = FIRST_NAMES[number % FIRST_NAMES.length] + " " + LAST_NAMES[(number / FIRST_NAMES.length) % LAST_NAMES.length];
+        if (number >= combinations)
+        {
+            name = name + " " + (number / combinations + 1);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,412 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * ColumnarDatabase stores movies as columns of primitive arrays instead of one Movie object per movie,
+ * which uses far less memory for large catalogues. Each movie is a row:
+ * 
+ *    ratings    - byte per row
+ *    directors  - int per row, an id from a NameDictionary shared with the actors
+ *    actors     - three ints per row, -1 where the movie has fewer actors
+ *    titles     - UTF-8 bytes in one shared byte array, with an int offset and length per row
+ * 
+ * Movie objects are only made when a caller asks for them, as views of a row. Changing a view with its
+ * set methods writes the change back to the columns. Each request makes a new view, so a view does not
+ * see changes made through another view of the same movie.
+ * 
+ * Deleted rows are marked as deleted and are not reused, so their space is only returned by clearAll.
+ * Views made before a clearAll are stale: changing or deleting them does nothing.
+ * Title, director and favourite searches are indexed; combined queries, text search and journaling are
+ * only available from Database.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class ColumnarDatabase implements MovieCatalogue, MovieOwner
+{
+    private static final int NO_ACTOR = -1;
+    
+    private int rowCount;       // rows used, including deleted rows
+    private int liveCount;      // rows not deleted
+    private byte[] ratings;     // 0 marks a deleted row
+    private int[] directorIds;
+    private int[] actorIds;
+    private int[] titleOffsets;
+    private int[] titleLengths;
+    private byte[] titleBytes;
+    private int titleBytesUsed;
+    private NameDictionary names;
+    private int generation;     // counts calls to clearAll, views are stamped with it when they are made
+    
+    // Rows for each lowercase title hash, each lowercase director and each rating
+    private HashMap<Integer, PostingList> titleIndex;
+    private HashMap<String, PostingList> directorIndex;
+    private PostingList[] ratingIndex;
+    
+    private ArrayList<LoadError> loadErrors;
+
+    /**
+     * Constructor for objects of class ColumnarDatabase
+     */
+    public ColumnarDatabase()
+    {
+        loadErrors = new ArrayList<LoadError>();
+        clearAll();
+    }
+    
+    public void loadDatabaseFromFile(String filename)
+    {
+        loadDatabaseFromFile(filename, LoadMode.STREAMING);
+    }
+    
+    /*
+     * Load movies from a text file and add them to the database, see Database.loadDatabaseFromFile.
+     * Each Movie made by the parser is copied into the columns and then discarded.
+     */
+    public void loadDatabaseFromFile(String filename, LoadMode mode)
+    {
+        loadErrors = new ArrayList<LoadError>();
+        try 
+        {
+            if (mode == LoadMode.PARALLEL)
+            {
+                MovieFileLoader.loadParallel(filename, this, loadErrors);
+            }
+            else if (mode == LoadMode.MAPPED)
+            {
+                MovieFileLoader.loadMapped(filename, this, loadErrors);
+            }
+            else
+            {
+                MovieFileLoader.loadStreaming(filename, this, loadErrors);
+            }
+        } 
+        catch (FileNotFoundException e) 
+        {
+            System.out.print("File not found\n");
+        }
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+    }
+    
+    public List<LoadError> getLoadErrors()
+    {
+        return loadErrors;
+    }
+    
+    /*
+     * Copy a movie into a new row. The Movie object itself is not kept, use the views returned by
+     * searches to change or delete it.
+     * 
+     * @throws NullPointerException if object in argument is not set
+     * @throws IllegalStateException if the movie has already been added to a database
+     */
+    public void addMovie(Movie newMovie)
+    {
+        if (newMovie == null)
+        {
+            throw new NullPointerException("Must provide a valid movie object\n");
+        }
+        if (newMovie.getOwner() != null)
+        {
+            throw new IllegalStateException("Movie has already been added to a database\n");
+        }
+        
+        if (rowCount == ratings.length)
+        {
+            int capacity = ratings.length * 2;
+            ratings = Arrays.copyOf(ratings, capacity);
+            directorIds = Arrays.copyOf(directorIds, capacity);
+            actorIds = Arrays.copyOf(actorIds, capacity * 3);
+            titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+            titleLengths = Arrays.copyOf(titleLengths, capacity);
+        }
+        int row = rowCount++;
+        liveCount++;
+        writeRow(row, newMovie);
+        indexRow(row);
+    }
+    
+    // Delete a movie returned by this database, movies that are not in this database are ignored
+    public void deleteMovie(Movie movieToDelete)
+    {
+        if (movieToDelete == null || !isLiveView(movieToDelete))
+        {
+            return;
+        }
+        
+        int row = movieToDelete.getId();
+        unindexRow(row);
+        ratings[row] = 0;
+        liveCount--;
+    }
+    
+    // Deletes every movie and frees the memory the columns were using
+    public void clearAll()
+    {
+        int capacity = 16;
+        generation++;
+        rowCount = 0;
+        liveCount = 0;
+        ratings = new byte[capacity];
+        directorIds = new int[capacity];
+        actorIds = new int[capacity * 3];
+        titleOffsets = new int[capacity];
+        titleLengths = new int[capacity];
+        titleBytes = new byte[capacity * 16];
+        titleBytesUsed = 0;
+        names = new NameDictionary();
+        titleIndex = new HashMap<Integer, PostingList>();
+        directorIndex = new HashMap<String, PostingList>();
+        ratingIndex = new PostingList[10];
+        for (int i = 0; i < ratingIndex.length; i++)
+        {
+            ratingIndex[i] = new PostingList();
+        }
+    }
+    
+    // Number of movies in the database
+    public int size()
+    {
+        return liveCount;
+    }
+    
+    // A view of every movie, in the order they were added
+    public List<Movie> getAllMovies()
+    {
+        ArrayList<Movie> all = new ArrayList<Movie>(liveCount);
+        for (int row = 0; row < rowCount; row++)
+        {
+            if (ratings[row] != 0)
+            {
+                all.add(movieAt(row));
+            }
+        }
+        return all;
+    }
+    
+    /*
+     * Search by title, director or favourite rating, see Database.searchForMovie. The search is
+     * case-insensitive and favourite searches return the highest rated movies first.
+     */
+    public ArrayList<Movie> searchForMovie(String searchString, String searchKey, int minRating)
+    {
+        ArrayList<Movie> foundMovies = new ArrayList<Movie>();
+        String searchStringLower = searchString.toLowerCase();
+        
+        if (searchKey.equals("title"))
+        {
+            // Rows are indexed by the hash of the lowercase title, so check each candidate's title matches
+            PostingList rows = titleIndex.get(searchStringLower.hashCode());
+            for (int i = 0; rows != null && i < rows.size(); i++)
+            {
+                if (titleAt(rows.get(i)).toLowerCase().equals(searchStringLower))
+                {
+                    foundMovies.add(movieAt(rows.get(i)));
+                }
+            }
+        } else if (searchKey.equals("director")) {
+            addMoviesAt(directorIndex.get(searchStringLower), foundMovies);
+        } else if (searchKey.equals("favourite")) {
+            for (int rating = 10; rating >= minRating && rating >= 1; rating--)
+            {
+                addMoviesAt(ratingIndex[rating - 1], foundMovies);
+            }
+        } else {
+            System.out.print("\nError! Can not search over that key!\n");
+        }
+        
+        return foundMovies;
+    }
+    
+    // Save every movie to a text file, views are made one at a time as the file is written
+    public void saveMoviesToFile(String filename)
+    {
+        try 
+        {
+            MovieFileWriter.saveAtomically(filename, new Iterable<Movie>()
+            {
+                public Iterator<Movie> iterator()
+                {
+                    return new RowIterator();
+                }
+            });
+        } 
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+    }
+    
+    // Called by a view before one of its fields is changed, takes its row out of the indexes
+    public void movieUpdating(Movie movie)
+    {
+        if (isLiveView(movie))  // views of deleted movies no longer change anything
+        {
+            unindexRow(movie.getId());
+        }
+    }
+    
+    // Called by a view after one of its fields is changed, writes the view back into its row
+    public void movieUpdated(Movie movie)
+    {
+        if (isLiveView(movie))
+        {
+            writeRow(movie.getId(), movie);
+            indexRow(movie.getId());
+        }
+    }
+    
+    // Make a Movie view of a row
+    private Movie movieAt(int row)
+    {
+        String[] actors = { "", "", "" };
+        for (int i = 0; i < 3; i++)
+        {
+            int actorId = actorIds[row * 3 + i];
+            if (actorId != NO_ACTOR)
+            {
+                actors[i] = names.nameOf(actorId);
+            }
+        }
+        Movie movie = new Movie(titleAt(row), names.nameOf(directorIds[row]), actors[0], actors[1], actors[2], ratings[row]);
+        movie.setOwner(this);
+        movie.setId(row);
+        movie.setGeneration(generation);
+        return movie;
+    }
+    
+    // Whether a movie is a view of a row that is still in this database, checked before its id is used as a row
+    private boolean isLiveView(Movie movie)
+    {
+        int row = movie.getId();
+        return movie.getOwner() == this && movie.getGeneration() == generation && row >= 0 && row < rowCount && ratings[row] != 0;
+    }
+    
+    private void addMoviesAt(PostingList rows, ArrayList<Movie> foundMovies)
+    {
+        for (int i = 0; rows != null && i < rows.size(); i++)
+        {
+            foundMovies.add(movieAt(rows.get(i)));
+        }
+    }
+    
+    private String titleAt(int row)
+    {
+        return new String(titleBytes, titleOffsets[row], titleLengths[row], StandardCharsets.UTF_8);
+    }
+    
+    /*
+     * Copy a movie's fields into a row. A changed title is appended to the title bytes, the old bytes are
+     * not reused.
+     * 
+     * @throws IllegalStateException if the titles no longer fit in one array
+     */
+    private void writeRow(int row, Movie movie)
+    {
+        ratings[row] = (byte) movie.getRating();
+        directorIds[row] = names.idOf(movie.getDirector());
+        ArrayList<String> actors = movie.getActors();
+        for (int i = 0; i < 3; i++)
+        {
+            actorIds[row * 3 + i] = (i < actors.size()) ? names.idOf(actors.get(i)) : NO_ACTOR;
+        }
+        
+        if (movie.getOwner() == this && titleAt(row).equals(movie.getTitle()))
+        {
+            return;  // title unchanged, keep the existing bytes
+        }
+        byte[] title = movie.getTitle().getBytes(StandardCharsets.UTF_8);
+        if (titleBytesUsed + title.length > titleBytes.length)
+        {
+            long capacity = Math.max((long) titleBytes.length * 2, (long) titleBytesUsed + title.length);
+            if (capacity > Integer.MAX_VALUE - 8)
+            {
+                throw new IllegalStateException("Too many title bytes for one columnar database\n");
+            }
+            titleBytes = Arrays.copyOf(titleBytes, (int) capacity);
+        }
+        System.arraycopy(title, 0, titleBytes, titleBytesUsed, title.length);
+        titleOffsets[row] = titleBytesUsed;
+        titleLengths[row] = title.length;
+        titleBytesUsed += title.length;
+    }
+    
+    private void indexRow(int row)
+    {
+        addPosting(titleIndex, titleAt(row).toLowerCase().hashCode(), row);
+        addPosting(directorIndex, names.nameOf(directorIds[row]).toLowerCase(), row);
+        ratingIndex[ratings[row] - 1].add(row);
+    }
+    
+    private void unindexRow(int row)
+    {
+        removePosting(titleIndex, titleAt(row).toLowerCase().hashCode(), row);
+        removePosting(directorIndex, names.nameOf(directorIds[row]).toLowerCase(), row);
+        ratingIndex[ratings[row] - 1].remove(row);
+    }
+    
+    private static <K> void addPosting(HashMap<K, PostingList> index, K key, int row)
+    {
+        PostingList rows = index.get(key);
+        if (rows == null)
+        {
+            rows = new PostingList();
+            index.put(key, rows);
+        }
+        rows.add(row);
+    }
+    
+    private static <K> void removePosting(HashMap<K, PostingList> index, K key, int row)
+    {
+        PostingList rows = index.get(key);
+        if (rows != null)
+        {
+            rows.remove(row);
+            if (rows.isEmpty())
+            {
+                index.remove(key);
+            }
+        }
+    }
+    
+    // Walks the rows that haven't been deleted, making a view of each as it is reached
+    private class RowIterator implements Iterator<Movie>
+    {
+        private int nextRow = findLiveRow(0);
+        
+        public boolean hasNext()
+        {
+            return nextRow < rowCount;
+        }
+        
+        public Movie next()
+        {
+            if (nextRow >= rowCount)
+            {
+                throw new NoSuchElementException();
+            }
+            Movie movie = movieAt(nextRow);
+            nextRow = findLiveRow(nextRow + 1);
+            return movie;
+        }
+        
+        private int findLiveRow(int row)
+        {
+            while (row < rowCount && ratings[row] == 0)
+            {
+                row++;
+            }
+            return row;
+        }
+    }
+}
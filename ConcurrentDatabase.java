@@ -0,0 +1,467 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrentDatabase is a thread-safe movie database for many searching threads while movies are
+ * still being added and deleted. Searches never wait for writers.
+ * 
+ * Two copies of the database are kept, one for readers and one for the writer (the left-right
+ * technique). A change is made to the copy nobody is reading, readers are switched over to it,
+ * and once the last reader has left the old copy the change is made to that one too. Readers
+ * always see the database as of the last completed change. Writers take turns and may wait for
+ * long searches on the old copy to finish. The price is holding every movie twice.
+ * 
+ * Movies returned by searches must not be changed with their set methods, delete the movie and
+ * add a changed one instead.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class ConcurrentDatabase implements MovieCatalogue
+{
+    private Database[] copies;
+    private LongAdder[] readers;  // number of readers using each copy
+    private volatile int readCopy;  // copy new readers use, 0 or 1
+    private ReentrantLock writeLock;
+    private ArrayList<LoadError> loadErrors;
+    private volatile boolean sortedViewsBuilt;  // whether both copies have their sorted views
+    private volatile boolean textIndexBuilt;  // whether both copies have their text index
+
+    /**
+     * Constructor for objects of class ConcurrentDatabase
+     */
+    public ConcurrentDatabase()
+    {
+        copies = new Database[] { new Database(), new Database() };
+        readers = new LongAdder[] { new LongAdder(), new LongAdder() };
+        readCopy = 0;
+        writeLock = new ReentrantLock();
+        loadErrors = new ArrayList<LoadError>();
+    }
+    
+    /*
+     * Load movies from a text file and add them to the database, see Database.loadDatabaseFromFile.
+     * The file is parsed before any lock is taken, searches see either none or all of its movies.
+     */
+    public void loadDatabaseFromFile(String filename, LoadMode mode)
+    {
+        Database loaded = new Database();
+        loaded.loadDatabaseFromFile(filename, mode);
+        final ArrayList<Movie> newMovies = new ArrayList<Movie>(loaded.getAllMovies());
+        loaded.clearAll();  // frees the movies so they can be added here
+        
+        writeLock.lock();
+        try
+        {
+            loadErrors = loaded.getLoadErrors();
+            write(new Change()
+            {
+                public void apply(Database copy, boolean firstCopy)
+                {
+                    for (int i = 0; i < newMovies.size(); i++)
+                    {
+                        copy.addMovie(firstCopy ? newMovies.get(i) : copyOf(newMovies.get(i)));
+                    }
+                }
+            });
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    public void loadDatabaseFromFile(String filename)
+    {
+        loadDatabaseFromFile(filename, LoadMode.STREAMING);
+    }
+    
+    // Lines rejected by the last call to loadDatabaseFromFile, with their line numbers
+    public List<LoadError> getLoadErrors()
+    {
+        writeLock.lock();
+        try
+        {
+            return Collections.unmodifiableList(loadErrors);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    /*
+     * Add a movie to the database, throws a NullPointerException if object in argument is not set
+     * 
+     * @throws IllegalStateException if the movie has already been added to a database
+     */
+    public void addMovie(final Movie newMovie)
+    {
+        if (newMovie == null)
+        {
+            throw new NullPointerException("Must provide a valid movie object\n");
+        }
+        if (newMovie.getOwner() != null)
+        {
+            throw new IllegalStateException("Movie has already been added to a database\n");
+        }
+        
+        final Movie secondMovie = copyOf(newMovie);
+        writeLock.lock();
+        try
+        {
+            write(new Change()
+            {
+                public void apply(Database copy, boolean firstCopy)
+                {
+                    copy.addMovie(firstCopy ? newMovie : secondMovie);
+                }
+            });
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    // Delete a movie returned by a search of this database, movies that are not in this database are ignored
+    public void deleteMovie(Movie movieToDelete)
+    {
+        if (movieToDelete == null)
+        {
+            return;
+        }
+        
+        writeLock.lock();
+        try
+        {
+            MovieOwner owner = movieToDelete.getOwner();
+            if (owner != copies[0] && owner != copies[1])
+            {
+                return;
+            }
+            
+            // Both copies make the same changes in the same order, so the movie has the same id in each
+            final int id = movieToDelete.getId();
+            write(new Change()
+            {
+                public void apply(Database copy, boolean firstCopy)
+                {
+                    copy.deleteMovie(copy.movieWithId(id));
+                }
+            });
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    /*
+     * Add a movie unless the database already has a movie with the same title, ignoring case. The
+     * check and the add are made under the write lock so two threads can't add the same title.
+     * 
+     * Returns false if the title was already taken and the movie wasn't added
+     * 
+     * @throws NullPointerException if object in argument is not set
+     * @throws IllegalStateException if the movie has already been added to a database
+     */
+    public boolean addMovieWithNewTitle(Movie newMovie)
+    {
+        if (newMovie == null)
+        {
+            throw new NullPointerException("Must provide a valid movie object\n");
+        }
+        
+        writeLock.lock();
+        try
+        {
+            // Both copies hold every completed change while the write lock is held, either can be checked
+            if (copies[readCopy].findMovies(newMovie.getTitle(), "title", 0, SortKey.INSERTION, 0, 1).size() > 0)
+            {
+                return false;
+            }
+            addMovie(newMovie);  // the lock is reentrant
+            return true;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    /*
+     * Delete every movie with the given title, case-insensitive, see Database.deleteMoviesWithTitle
+     * 
+     * Returns the number of movies deleted
+     */
+    public int deleteMoviesWithTitle(final String title)
+    {
+        final int[] deleted = new int[1];
+        writeLock.lock();
+        try
+        {
+            write(new Change()
+            {
+                public void apply(Database copy, boolean firstCopy)
+                {
+                    int count = copy.deleteMoviesWithTitle(title);
+                    if (firstCopy)
+                    {
+                        deleted[0] = count;
+                    }
+                }
+            });
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+        return deleted[0];
+    }
+    
+    // Deletes all the Movie objects in the database
+    public void clearAll()
+    {
+        writeLock.lock();
+        try
+        {
+            write(new Change()
+            {
+                public void apply(Database copy, boolean firstCopy)
+                {
+                    copy.clearAll();
+                }
+            });
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    /*
+     * Return every movie in the database. The list is a copy that won't change as movies are
+     * added and deleted, and can't be changed by the caller.
+     */
+    public List<Movie> getAllMovies()
+    {
+        int copy = startReading();
+        try
+        {
+            return Collections.unmodifiableList(new ArrayList<Movie>(copies[copy].getAllMovies()));
+        }
+        finally
+        {
+            readers[copy].decrement();
+        }
+    }
+    
+    // Search by title, director or favourite rating, see Database.searchForMovie
+    public ArrayList<Movie> searchForMovie(String searchString, String searchKey, int minRating)
+    {
+        int copy = startReading();
+        try
+        {
+            return copies[copy].searchForMovie(searchString, searchKey, minRating);
+        }
+        finally
+        {
+            readers[copy].decrement();
+        }
+    }
+    
+    // One page of the results of searchForMovie in the given order, see Database.findMovies
+    public ArrayList<Movie> findMovies(String searchString, String searchKey, int minRating, SortKey order, int offset, int limit)
+    {
+        if (order == SortKey.TITLE)
+        {
+            buildSortedViews();
+        }
+        int copy = startReading();
+        try
+        {
+            return copies[copy].findMovies(searchString, searchKey, minRating, order, offset, limit);
+        }
+        finally
+        {
+            readers[copy].decrement();
+        }
+    }
+    
+    /*
+     * Number of movies searchForMovie would find, see Database.countMovies. It is read separately from
+     * any page, so a page and count read while movies are changing can disagree by those changes.
+     */
+    public int countMovies(String searchString, String searchKey, int minRating)
+    {
+        int copy = startReading();
+        try
+        {
+            return copies[copy].countMovies(searchString, searchKey, minRating);
+        }
+        finally
+        {
+            readers[copy].decrement();
+        }
+    }
+    
+    // Search for movies matching a combined query, see Database.searchForMovies
+    public ArrayList<Movie> searchForMovies(MovieQuery query)
+    {
+        int copy = startReading();
+        try
+        {
+            return copies[copy].searchForMovies(query);
+        }
+        finally
+        {
+            readers[copy].decrement();
+        }
+    }
+    
+    // Search for movies containing some text, see Database.searchMoviesByText
+    public ArrayList<Movie> searchMoviesByText(String query, int maxResults)
+    {
+        buildTextIndex();
+        int copy = startReading();
+        try
+        {
+            return copies[copy].searchMoviesByText(query, maxResults);
+        }
+        finally
+        {
+            readers[copy].decrement();
+        }
+    }
+    
+    // Save all movies to a text file, see Database.saveMoviesToFile. Searches carry on during the save
+    public void saveMoviesToFile(String filename)
+    {
+        int copy = startReading();
+        try
+        {
+            copies[copy].saveMoviesToFile(filename);
+        }
+        finally
+        {
+            readers[copy].decrement();
+        }
+    }
+    
+    /*
+     * Title order comes from sorted views each Database builds the first time it is asked for one.
+     * Building changes the database, so it is done here as a change to both copies rather than by a reader.
+     */
+    private void buildSortedViews()
+    {
+        if (sortedViewsBuilt)
+        {
+            return;
+        }
+        writeLock.lock();
+        try
+        {
+            if (!sortedViewsBuilt)
+            {
+                write(new Change()
+                {
+                    public void apply(Database copy, boolean firstCopy)
+                    {
+                        copy.buildSortedViews();
+                    }
+                });
+                sortedViewsBuilt = true;
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    // Build the text index of both copies the first time a text search is made, as buildSortedViews does
+    private void buildTextIndex()
+    {
+        if (textIndexBuilt)
+        {
+            return;
+        }
+        writeLock.lock();
+        try
+        {
+            if (!textIndexBuilt)
+            {
+                write(new Change()
+                {
+                    public void apply(Database copy, boolean firstCopy)
+                    {
+                        copy.buildTextIndex();
+                    }
+                });
+                textIndexBuilt = true;
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+    
+    /*
+     * Register as a reader of the current read copy and return which copy that is. The caller must
+     * call readers[copy].decrement() when it has finished reading.
+     */
+    private int startReading()
+    {
+        while (true)
+        {
+            int copy = readCopy;
+            readers[copy].increment();
+            if (readCopy == copy)
+            {
+                return copy;  // the writer can't start on this copy until we decrement
+            }
+            readers[copy].decrement();  // switched while registering, try the new copy
+        }
+    }
+    
+    // A change made to each copy of the database in turn, firstCopy is true for the first copy changed
+    private interface Change
+    {
+        void apply(Database copy, boolean firstCopy);
+    }
+    
+    /*
+     * Make a change to both copies, the caller must hold writeLock. The copy not being read is changed
+     * and readers are moved onto it, then the old copy is changed once its last reader has finished.
+     */
+    private void write(Change change)
+    {
+        int writeCopy = 1 - readCopy;
+        change.apply(copies[writeCopy], true);
+        readCopy = writeCopy;
+        
+        int oldCopy = 1 - writeCopy;
+        while (readers[oldCopy].sum() != 0)
+        {
+            Thread.yield();
+        }
+        change.apply(copies[oldCopy], false);
+    }
+    
+    // New Movie object with the same fields, for the second copy of the database
+    private static Movie copyOf(Movie movie)
+    {
+        ArrayList<String> actors = movie.getActors();
+        String[] actorNames = { "", "", "" };
+        for (int i = 0; i < actors.size() && i < actorNames.length; i++)
+        {
+            actorNames[i] = actors.get(i);
+        }
+        return new Movie(movie.getTitle(), movie.getDirector(), actorNames[0], actorNames[1], actorNames[2], movie.getRating());
+    }
+}
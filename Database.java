@@ -1,7 +1,21 @@
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.io.*;
-import java.util.Scanner;
 
 /**
  * Database class holds an ArrayList of Movie objects.
@@ -10,9 +24,38 @@ import java.util.Scanner;
  * @author (Bhavik Maneck) 
  * @version (v1)
  */
-public class Database
+public class Database implements MovieCatalogue, MovieOwner
 {
+    // Movies in the order they were added. A deleted movie leaves a null behind until the list is compacted
     private ArrayList<Movie> movies;
+    // Position of each movie in movies, by id
+    private HashMap<Integer, Integer> slotsById;
+    private int deletedSlots;
+    // The list is compacted once it has at least this many deleted slots and at least as many as live movies
+    private static final int MIN_DELETED_SLOTS = 1024;
+    // Lowercase titles, directors and actors and each rating mapped to the ids of the movies that have them,
+    // so searches don't scan every movie
+    private PostingIndex postingIndex;
+    private int nextMovieId;
+    // Substring and prefix index over titles, directors and actors, built the first time a text search is made
+    private TextSearchIndex textIndex;
+    // Movies sorted by title, rating and director, built the first time a sorted listing is asked for
+    private SortedMovieViews sortedViews;
+    // Tries of titles, directors and actors for typo tolerant searches, built the first time one is made
+    private FuzzyIndex fuzzyIndex;
+    // Shared copies of director and actor names, so movies with the same names don't each hold their own
+    private NameDictionary nameDictionary;
+    private ArrayList<LoadError> loadErrors;
+    private ArrayList<LoadError> journalErrors;
+    // Journal of changes since movieFile was last written, null if changes are not being journaled
+    private MovieJournal journal;
+    private String journalMovieFile;
+    // The journal is compacted once it has more entries than this or half the number of movies, whichever is larger
+    private static final int MIN_JOURNAL_ENTRIES = 1000;
+    // Counts and timings of operations, null while metrics are off
+    private DatabaseMetrics metrics;
+    // Recent searchForMovie results, null while the cache is off
+    private SearchCache searchCache;
 
     /**
      * Constructor for objects of class Database
@@ -20,123 +63,805 @@ public class Database
     public Database()
     {
         movies = new ArrayList<Movie>();
+        slotsById = new HashMap<Integer, Integer>();
+        deletedSlots = 0;
+        postingIndex = new PostingIndex();
+        nextMovieId = 0;
+        nameDictionary = new NameDictionary();
+        loadErrors = new ArrayList<LoadError>();
+        journalErrors = new ArrayList<LoadError>();
     }
     
     /**
      * Constructor for objects of class Database
      * 
-     * Takes in ArrayList of Movie objects that is set to the class field
+     * Takes in ArrayList of Movie objects that are added to the database
      */
     public Database(ArrayList<Movie> newMovies)
     {
-        movies = newMovies;
+        this();
+        Iterator<Movie> it = newMovies.iterator();
+        while (it.hasNext())
+        {
+            addMovie(it.next());
+        }
+    }
+    
+    /**
+     * Load movies from a text file and add them to the database. Each line of the file holds one movie:
+     *    title,director,actor1,actor2,actor3,rating
+     * 
+     * Lines that do not describe a valid movie are skipped and can be read back with getLoadErrors.
+     * A message is printed if the file can not be found or read.
+     * 
+     * @param - filename - file to read movies from (in same directory as this program)
+     */
+    public void loadDatabaseFromFile(String filename)
+    {
+        loadDatabaseFromFile(filename, LoadMode.STREAMING);
     }
     
     /**
-     * Constructor for objects of class Movie with provided movie fields
+     * Load movies from a text file, as loadDatabaseFromFile(filename) does, using the given LoadMode
+     * 
+     * @param - filename - file to read movies from (in same directory as this program)
+     * @param - mode - how the file is read, PARALLEL splits the work across all cores and MAPPED
+     *               parses the file straight from memory mapped pages
+     */
+    public void loadDatabaseFromFile(String filename, LoadMode mode)
+    {
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        loadErrors = new ArrayList<LoadError>();
+        try 
+        {
+            if (mode == LoadMode.PARALLEL)
+            {
+                MovieFileLoader.loadParallel(filename, this, loadErrors);
+            }
+            else if (mode == LoadMode.MAPPED)
+            {
+                MovieFileLoader.loadMapped(filename, this, loadErrors);
+            }
+            else
+            {
+                MovieFileLoader.loadStreaming(filename, this, loadErrors);
+            }
+        } 
+        catch (FileNotFoundException e) 
+        {
+            System.out.print("File not found\n");
+        }
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+        recordTime(DatabaseMetrics.LOAD, start);
+    }
+    
+    // Lines rejected by the last call to loadDatabaseFromFile, with their line numbers
+    public ArrayList<LoadError> getLoadErrors()
+    {
+        return loadErrors;
+    }
+    
+    /*
+     * Return every movie in the database, in the order they were added. The list is a read-only view,
+     * so it follows later adds and deletes and calling this doesn't change the database. Looking up a
+     * movie by position is quick while no movies have been deleted since the last compaction, walking
+     * the list with its iterator always is.
+     */
+    public List<Movie> getAllMovies()
+    {
+        return new AbstractList<Movie>()
+        {
+            public int size()
+            {
+                return Database.this.size();
+            }
+            
+            public Movie get(int index)
+            {
+                if (deletedSlots == 0)
+                {
+                    return movies.get(index);
+                }
+                int live = 0;
+                for (int i = 0; i < movies.size() && index >= 0; i++)
+                {
+                    if (movies.get(i) != null && live++ == index)
+                    {
+                        return movies.get(i);
+                    }
+                }
+                throw new IndexOutOfBoundsException("No movie at position " + index + "\n");
+            }
+            
+            public Iterator<Movie> iterator()
+            {
+                return liveMovies();
+            }
+        };
+    }
+    
+    // Iterator over the movies in the list, stepping over the slots of deleted movies
+    private Iterator<Movie> liveMovies()
+    {
+        final Iterator<Movie> slots = movies.iterator();
+        return new Iterator<Movie>()
+        {
+            private Movie next = advance();
+            
+            private Movie advance()
+            {
+                while (slots.hasNext())
+                {
+                    Movie movie = slots.next();
+                    if (movie != null)
+                    {
+                        return movie;
+                    }
+                }
+                return null;
+            }
+            
+            public boolean hasNext()
+            {
+                return next != null;
+            }
+            
+            public Movie next()
+            {
+                if (next == null)
+                {
+                    throw new NoSuchElementException();
+                }
+                Movie movie = next;
+                next = advance();
+                return movie;
+            }
+        };
+    }
+    
+    // Number of movies in the database
+    public int size()
+    {
+        return movies.size() - deletedSlots;
+    }
+    
+    /*
+     * Add a movie to the database
+     * 
+     * @throws NullPointerException if object in argument is not set
+     * @throws IllegalStateException if the movie has already been added to a database
+     */
+    public void addMovie(Movie newMovie)
+    {
+        if (newMovie == null)
+        {
+            throw new NullPointerException("Must provide a valid movie object\n");
+        }
+        if (newMovie.getOwner() != null)
+        {
+            throw new IllegalStateException("Movie has already been added to a database\n");
+        }
+        
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        newMovie.internNames(nameDictionary);
+        newMovie.setOwner(this);
+        newMovie.setId(nextMovieId++);
+        slotsById.put(newMovie.getId(), movies.size());
+        movies.add(newMovie);
+        indexMovie(newMovie);
+        recordChange(MovieJournal.ADD, newMovie);
+        compactJournalIfNeeded();
+        recordTime(DatabaseMetrics.ADD, start);
+    }
+    
+    /*
+     * Add a batch of movies to the database. Nothing is added unless every movie in the batch can be.
+     * 
+     * @throws NullPointerException if the batch or any movie in it is not set
+     * @throws IllegalStateException if a movie has already been added to a database or is in the batch twice
+     */
+    public void addAll(Collection<Movie> newMovies)
+    {
+        if (newMovies == null)
+        {
+            throw new NullPointerException("Must provide a valid collection of movies\n");
+        }
+        Set<Movie> checked = Collections.newSetFromMap(new IdentityHashMap<Movie, Boolean>());
+        Iterator<Movie> it = newMovies.iterator();
+        while (it.hasNext())
+        {
+            Movie newMovie = it.next();
+            if (newMovie == null)
+            {
+                throw new NullPointerException("Must provide a valid movie object\n");
+            }
+            if (newMovie.getOwner() != null || !checked.add(newMovie))
+            {
+                throw new IllegalStateException("Movie has already been added to a database\n");
+            }
+        }
+        
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        movies.ensureCapacity(movies.size() + newMovies.size());
+        it = newMovies.iterator();
+        while (it.hasNext())
+        {
+            Movie newMovie = it.next();
+            newMovie.internNames(nameDictionary);
+            newMovie.setOwner(this);
+            newMovie.setId(nextMovieId++);
+            slotsById.put(newMovie.getId(), movies.size());
+            movies.add(newMovie);
+            indexMovie(newMovie);  // ids only grow, so every posting is an append
+            recordChange(MovieJournal.ADD, newMovie);
+        }
+        compactJournalIfNeeded();
+        recordTime(DatabaseMetrics.ADD_BATCH, start);
+    }
+    
+    // Deletes all the Movie objects in the current database ArrayList
+    public void clearAll()
+    {
+        Iterator<Movie> it = movies.iterator();
+        while (it.hasNext())
+        {
+            Movie movie = it.next();
+            if (movie != null)
+            {
+                movie.setOwner(null);
+            }
+        }
+        movies.clear();
+        slotsById.clear();
+        deletedSlots = 0;
+        postingIndex.clear();
+        if (textIndex != null)
+        {
+            textIndex.clear();
+        }
+        if (sortedViews != null)
+        {
+            sortedViews = new SortedMovieViews(movies);  // kept, empty, so they stay built once asked for
+        }
+        if (fuzzyIndex != null)
+        {
+            fuzzyIndex = new FuzzyIndex(movies);
+        }
+        if (searchCache != null)
+        {
+            searchCache.clear();
+        }
+        nameDictionary = new NameDictionary();
+        recordChange(MovieJournal.CLEAR, null);
+    }
+    
+    /*
+     * Delete a specific movie from the database, movies that are not in this database are ignored.
+     * The movie's place in the list is left empty and the list compacted later, so a delete takes
+     * constant time.
+     */
+    public void deleteMovie(Movie movieToDelete)
+    {
+        if (movieToDelete == null || movieToDelete.getOwner() != this)
+        {
+            return;
+        }
+        
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        removeMovie(movieToDelete);
+        compactIfNeeded();
+        compactJournalIfNeeded();
+        recordTime(DatabaseMetrics.DELETE, start);
+    }
+    
+    /*
+     * Delete the movie with the given id, see Movie.getId. Ids are not saved in movie or snapshot
+     * files, so an id only refers to the same movie until the program ends.
+     * 
+     * Returns false if there is no movie with that id
+     */
+    public boolean deleteMovieWithId(int id)
+    {
+        Movie movie = postingIndex.movieWithId(id);
+        if (movie == null)
+        {
+            return false;
+        }
+        deleteMovie(movie);
+        return true;
+    }
+    
+    /*
+     * Delete every movie with the given title, case-insensitive. Each movie is found through the
+     * title index and deleted in constant time.
+     * 
+     * Returns the number of movies deleted
+     */
+    public int deleteMoviesWithTitle(String title)
+    {
+        return deleteAll(postingIndex.moviesFor(postingIndex.titlePostings(title.toLowerCase())));
+    }
+    
+    /*
+     * Delete a batch of movies from the database, movies that are not in this database are ignored.
+     * Each movie is deleted in constant time and the list of movies and the indexes are compacted
+     * at most once for the whole batch.
+     * 
+     * Returns the number of movies deleted
+     */
+    public int deleteAll(Collection<Movie> moviesToDelete)
+    {
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        int deleted = 0;
+        Iterator<Movie> it = moviesToDelete.iterator();
+        while (it.hasNext())
+        {
+            Movie movie = it.next();
+            if (movie != null && movie.getOwner() == this)  // a movie listed twice is only deleted once
+            {
+                removeMovie(movie);
+                deleted++;
+            }
+        }
+        compactIfNeeded();
+        compactJournalIfNeeded();
+        recordTime(DatabaseMetrics.DELETE_BATCH, start);
+        return deleted;
+    }
+    
+    /*
+     * Delete every movie the condition is true for, in one pass over the database. The condition
+     * must not change the movies.
+     * 
+     * Returns the number of movies deleted
+     */
+    public int deleteWhere(Predicate<? super Movie> condition)
+    {
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        int deleted = 0;
+        for (int i = 0; i < movies.size(); i++)
+        {
+            Movie movie = movies.get(i);
+            if (movie != null && condition.test(movie))
+            {
+                removeMovie(movie);
+                deleted++;
+            }
+        }
+        compactIfNeeded();
+        compactJournalIfNeeded();
+        recordTime(DatabaseMetrics.DELETE_BATCH, start);
+        return deleted;
+    }
+    
+    // Take a movie out of the indexes and leave its place in the list empty
+    private void removeMovie(Movie movie)
+    {
+        movies.set(slotsById.remove(movie.getId()), null);
+        deletedSlots++;
+        movie.releaseNames(nameDictionary);
+        postingIndex.delete(movie);
+        if (textIndex != null)
+        {
+            textIndex.remove(movie);
+        }
+        if (sortedViews != null)
+        {
+            sortedViews.remove(movie);
+        }
+        if (fuzzyIndex != null)
+        {
+            fuzzyIndex.remove(movie);
+        }
+        invalidateSearches(movie);
+        movie.setOwner(null);
+        recordChange(MovieJournal.DELETE, movie);
+    }
+    
+    /*
+     * Compact the list once it has at least as many deleted slots as movies, so the cost of
+     * compacting is spread over at least that many deletes. A Database is only used from one thread
+     * at a time, so compaction runs on the thread of the delete that triggers it: that delete takes
+     * O(n) and deletes take O(1) on average.
+     */
+    private void compactIfNeeded()
+    {
+        if (deletedSlots >= Math.max(MIN_DELETED_SLOTS, size()))
+        {
+            compact();
+        }
+    }
+    
+    /*
+     * Slide the movies down over the deleted slots in one pass and purge deleted ids from the posting
+     * index. Called as deletes build up.
+     */
+    void compact()
+    {
+        if (deletedSlots == 0)
+        {
+            return;
+        }
+        
+        int kept = 0;
+        for (int i = 0; i < movies.size(); i++)
+        {
+            Movie movie = movies.get(i);
+            if (movie != null)
+            {
+                if (kept != i)
+                {
+                    movies.set(kept, movie);
+                    slotsById.put(movie.getId(), kept);
+                }
+                kept++;
+            }
+        }
+        movies.subList(kept, movies.size()).clear();
+        deletedSlots = 0;
+        postingIndex.purgeDeleted();
+    }
+    
+    // Movie in this database with the given id, null if there isn't one
+    public Movie movieWithId(int id)
+    {
+        return postingIndex.movieWithId(id);
+    }
+    
+    // Called by Movie before one of its fields is changed, takes the movie out of the indexes under its old values
+    public void movieUpdating(Movie movie)
+    {
+        movie.releaseNames(nameDictionary);  // interned again under the new values by movieUpdated
+        unindexMovie(movie);
+        recordChange(MovieJournal.DELETE, movie);  // a change is journaled as a delete of the old movie and an add of the new
+    }
+    
+    // Called by Movie after one of its fields is changed, puts the movie back into the indexes under its new values
+    public void movieUpdated(Movie movie)
+    {
+        movie.internNames(nameDictionary);
+        indexMovie(movie);
+        recordChange(MovieJournal.ADD, movie);
+        compactJournalIfNeeded();
+    }
+    
+    /*
+     * Start journaling changes to the database. Any changes already in the journal, from earlier runs
+     * of the program, are applied to the database first so the movie file should be loaded before this
+     * is called. From then on every add and delete is written to the journal as it happens, and once
+     * the journal grows large the movie file is rewritten and the journal emptied.
+     * 
+     * Journal entries that can't be read back are skipped and can be read with getJournalErrors. If
+     * the journal can't be opened a message is printed and changes are not journaled, isJournaling
+     * tells the caller it has to save the movie file itself.
+     * 
+     * @param - journalFilename - journal file, created if it does not exist
+     * @param - movieFilename - movie file the journal holds the changes to, rewritten when the journal is compacted
+     */
+    public void openJournal(String journalFilename, String movieFilename)
+    {
+        closeJournal();
+        journalErrors = new ArrayList<LoadError>();
+        try 
+        {
+            MovieJournal newJournal = new MovieJournal(journalFilename, movieFilename);
+            newJournal.replay(this);
+            journalErrors = newJournal.getReplayErrors();
+            journal = newJournal;
+            journalMovieFile = movieFilename;
+        } 
+        catch (IOException e)
+        {
+            System.out.print("Could not open journal " + journalFilename + ", changes will not be journaled\n");
+        }
+    }
+    
+    // True if changes are being written to a journal as they happen
+    public boolean isJournaling()
+    {
+        return journal != null;
+    }
+    
+    // Journal entries skipped by the last call to openJournal, numbered from 1 in journal order
+    public ArrayList<LoadError> getJournalErrors()
+    {
+        return journalErrors;
+    }
+    
+    /*
+     * Write every movie to the journaled movie file and empty the journal. This happens automatically
+     * as the journal grows, but can be called to compact the journal at a convenient time.
+     */
+    public void checkpoint()
+    {
+        if (journal == null)
+        {
+            return;
+        }
+        
+        try 
+        {
+            MovieFileWriter.saveAtomically(journalMovieFile, getAllMovies());
+            journal.reset();  // only emptied once the movie file holds every change
+        } 
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+    }
+    
+    // Stop journaling changes, everything already journaled is flushed to disk
+    public void closeJournal()
+    {
+        if (journal == null)
+        {
+            return;
+        }
+        
+        try 
+        {
+            journal.close();
+        } 
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+        journal = null;
+        journalMovieFile = null;
+    }
+    
+    // Append a change to the journal if one is open
+    private void recordChange(byte type, Movie movie)
+    {
+        if (journal == null)
+        {
+            return;
+        }
+        
+        try 
+        {
+            journal.record(type, movie);
+        } 
+        catch (IOException e)
+        {
+            System.out.print("Error writing to journal\n");
+        }
+    }
+    
+    /*
+     * Compact the journal once it holds more entries than half the movies in the database, so the
+     * cost of rewriting the movie file is spread over at least that many changes
+     */
+    private void compactJournalIfNeeded()
+    {
+        if (journal != null && journal.getEntryCount() > Math.max(MIN_JOURNAL_ENTRIES, size() / 2))
+        {
+            checkpoint();
+        }
+    }
+    
+    // Add a movie to the posting and text indexes and the sorted views
+    private void indexMovie(Movie movie)
+    {
+        postingIndex.add(movie);
+        if (textIndex != null)
+        {
+            textIndex.add(movie);
+        }
+        if (sortedViews != null)
+        {
+            sortedViews.add(movie);
+        }
+        if (fuzzyIndex != null)
+        {
+            fuzzyIndex.add(movie);
+        }
+        invalidateSearches(movie);
+    }
+    
+    // Remove a movie from the posting and text indexes and the sorted views
+    private void unindexMovie(Movie movie)
+    {
+        postingIndex.remove(movie);
+        if (textIndex != null)
+        {
+            textIndex.remove(movie);
+        }
+        if (sortedViews != null)
+        {
+            sortedViews.remove(movie);
+        }
+        if (fuzzyIndex != null)
+        {
+            fuzzyIndex.remove(movie);
+        }
+        invalidateSearches(movie);
+    }
+    
+    /*
+     * The sorted views, built from every movie the first time they are needed and kept up to date
+     * from then on. Databases that never ask for a sorted listing don't pay for them.
+     */
+    private SortedMovieViews sortedViews()
+    {
+        buildSortedViews();
+        return sortedViews;
+    }
+    
+    // Build the sorted views now if they haven't been, so a later sorted listing doesn't change the database
+    void buildSortedViews()
+    {
+        if (sortedViews == null)
+        {
+            sortedViews = new SortedMovieViews(movies);
+        }
+    }
+    
+    // Build the text index now if it hasn't been, so a later text search doesn't change the database
+    void buildTextIndex()
+    {
+        if (textIndex == null)
+        {
+            textIndex = new TextSearchIndex(movies);
+        }
+    }
+    
+    // Build the fuzzy index now if it hasn't been, so a later fuzzy search doesn't change the database
+    void buildFuzzyIndex()
+    {
+        if (fuzzyIndex == null)
+        {
+            fuzzyIndex = new FuzzyIndex(movies);
+        }
+    }
+    
+    // Drop the cached searches a movie with its current values appears in, if the cache is on
+    private void invalidateSearches(Movie movie)
+    {
+        if (searchCache != null)
+        {
+            searchCache.invalidate(movie);
+        }
+    }
+    
+    /*
+     * Start counting and timing searches, adds, deletes, loads and saves. Metrics already being
+     * collected are kept.
      * 
-     * Takes as arguments:
-     *      movieTitle - title of movie, must not be blank
-     *      movieDirector - director of movie, must not be blank
-     *      movieActor1,movieActor2,movieActor3 - actor names of the movie, this implementation allows no actors to be provided
-     *      movieRating - integer between 1 and 10 inclusive
-     *      
-     *  @throws FileNotFoundException if provided filename does not exist (in same directory as this program)
-     *  @throws IllegalStateException if format of line with Movie information does not conform to what was expected
-     *  @throws IOException if any file reading errors
+     * Returns the metrics, which can be displayed, reported or registered with JMX
      */
-    public void loadDatabaseFromFile(String filename)
+    public DatabaseMetrics enableMetrics()
     {
-        try 
+        if (metrics == null)
         {
-            FileReader fr = new FileReader(filename);
-            
-            try 
-            {
-                Scanner scan = new Scanner(fr);
-                
-                int lineNumber = 0;
-        
-                while (scan.hasNextLine()) 
-                {
-                    lineNumber++;
-                    String line = scan.nextLine();    // Read one line of the text file into a string
-                    
-                    String[] parts = line.split(",");  // Split the line by comma into a String array
-                    String title = parts[0];
-                    String director = parts[1];
-                    String actor1 = parts[2];
-                    String actor2 = parts[3];
-                    String actor3 = parts[4];
-                    String rating = parts[5];
-                    rating = rating.trim();
-                    int ratingNumber = Integer.parseInt(rating); //conver the rating number string to an integer
-                    
-                    try
-                    {
-                        Movie movie =  new Movie(title,director,actor1,actor2,actor3,ratingNumber);
-                        addMovie(movie);
-                    }
-                    catch (IllegalStateException e)
-                    {
-                        System.out.print("Error in movie information read from file.\n");
-                    }
-                }
-            }
-            finally
-            {
-                fr.close();
-            }
-        } 
-        catch (FileNotFoundException e) 
+            metrics = new DatabaseMetrics();
+        }
+        return metrics;
+    }
+    
+    // Stop collecting metrics and stop publishing them through JMX
+    public void disableMetrics()
+    {
+        if (metrics != null)
         {
-            System.out.print("File not found\n");
+            metrics.unregisterMBean();
         }
-        catch (IOException e)
+        metrics = null;
+    }
+    
+    // Metrics collected so far, null if metrics are off
+    public DatabaseMetrics getMetrics()
+    {
+        return metrics;
+    }
+    
+    /*
+     * Start caching the results of searchForMovie, so repeated searches skip the index. A cache
+     * already on is kept with its results and statistics.
+     * 
+     * Takes as arguments:
+     *  @param - maxEntries - most search results kept, the least recently used are evicted first
+     *  @param - maxMovies - most movies kept across all the results, larger results are not cached
+     * 
+     * Returns the cache, for its hit rate and other statistics
+     */
+    public SearchCache enableSearchCache(int maxEntries, int maxMovies)
+    {
+        if (searchCache == null)
         {
-            System.out.print("Unexpected I/O exception\n");
+            searchCache = new SearchCache(maxEntries, maxMovies);
         }
+        return searchCache;
     }
     
-    // Return whole internal database of Movie objects
-    public ArrayList<Movie> getAllMovies()
+    // Stop caching search results and drop the ones cached
+    public void disableSearchCache()
     {
-        return movies;
+        searchCache = null;
     }
     
-    // Add a movie to the database, throws a NullPointerException if object in argument is not set
-    public void addMovie(Movie newMovie)
+    // Search cache in use, null if the cache is off
+    public SearchCache getSearchCache()
     {
-        if (newMovie == null)
+        return searchCache;
+    }
+    
+    // Record how long an operation that began at start took, if metrics are on
+    private void recordTime(String operation, long start)
+    {
+        if (metrics != null)
         {
-            throw new NullPointerException("Must provide a valid movie object\n");
+            metrics.record(operation, System.nanoTime() - start);
         }
-        
-        movies.add(newMovie);
     }
     
-    // Deletes all the Movie objects in the current database ArrayList
-    public void clearAll()
+    // Dictionary holding the shared director and actor names, with its hit ratio and memory saved
+    public NameDictionary getNameDictionary()
     {
-        movies.clear();
+        return nameDictionary;
     }
     
-    // Delete a specific movie from the database
-    public void deleteMovie(Movie movieToDelete)
+    // Displays how well director and actor names are being shared between movies
+    public void displayNameDictionaryStatistics()
+    {
+        System.out.print("Distinct names: " + nameDictionary.size() + "\n");
+        System.out.print("Name lookups: " + nameDictionary.getLookupCount() + "\n");
+        System.out.print("Hit ratio: " + String.format("%.1f", nameDictionary.getHitRatio() * 100) + "%\n");
+        System.out.print("Estimated memory saved: " + nameDictionary.getBytesSaved() / 1024 + " KB\n");
+    }
+    
+    /*
+     * Movies with titles from one title to another, alphabetically ignoring case. Titles starting
+     * with to are included, so from "M" to "P" lists every title starting with M, N, O or P. A null
+     * bound leaves that end of the range open. Takes O(log n + k) for k movies found.
+     */
+    public ArrayList<Movie> moviesByTitle(String from, String to)
+    {
+        return listOf(sortedViews().titleRange(from, to), Integer.MAX_VALUE);
+    }
+    
+    // Movies by directors from one director to another, by director then title, see moviesByTitle for the bounds
+    public ArrayList<Movie> moviesByDirector(String from, String to)
+    {
+        return listOf(sortedViews().directorRange(from, to), Integer.MAX_VALUE);
+    }
+    
+    // The count highest rated movies, movies with the same rating by title. Takes O(log n + count).
+    public ArrayList<Movie> topRatedMovies(int count)
+    {
+        return listOf(sortedViews().ratingRange(1, 10), count);
+    }
+    
+    // Movies rated from minRating to maxRating inclusive, highest rated first and then by title
+    public ArrayList<Movie> moviesRatedBetween(int minRating, int maxRating)
+    {
+        return listOf(sortedViews().ratingRange(minRating, maxRating), Integer.MAX_VALUE);
+    }
+    
+    // Up to limit movies from an iterator
+    private static ArrayList<Movie> listOf(Iterator<Movie> it, int limit)
     {
-        movies.remove(movieToDelete);
+        ArrayList<Movie> found = new ArrayList<Movie>();
+        while (found.size() < limit && it.hasNext())
+        {
+            found.add(it.next());
+        }
+        return found;
     }
     
     // Displays all movie titles in the database
     public void displayAllMovieTitles()
     {
-        if (movies.size() == 0)
+        if (size() == 0)
         {
             System.out.print("No movies\n");
         }
         else 
         {
-            Iterator<Movie> it = movies.iterator();
+            Iterator<Movie> it = getAllMovies().iterator();
             int i = 1;
             while (it.hasNext())
             {
@@ -156,57 +881,70 @@ public class Database
      * Writes to file one movie per line with consistent format:
      *    tite,director,actor1,actor2,actor3,rating
      * 
-     * @param - filename - file to write to, if file does not exist it will be created
+     * The movies are written to a temporary file first which then replaces the specified file,
+     * so the existing file is not damaged if the save fails part way. An error writing the file is
+     * printed rather than thrown.
      * 
-     * @throws IOException if there is error writing to file
+     * @param - filename - file to write to, if file does not exist it will be created
      */
     public void saveMoviesToFile(String filename)
     {
+        long start = (metrics != null) ? System.nanoTime() : 0;
         try 
         {
-            PrintWriter writer = new PrintWriter(filename);
-            
-            try
-            {
-                Iterator<Movie> it = movies.iterator();
-                while (it.hasNext())
-                {
-                    Movie movie = it.next();
-                    String title = movie.getTitle();
-                    String director = movie.getDirector();
-                    ArrayList<String> actors = movie.getActors();
-                    int rating = movie.getRating();
-                    
-                    String actorsOutputLine = "";
-                    Iterator<String> itActors = actors.iterator();
-                    int numberActors = 0;
-                    while (itActors.hasNext())
-                    {
-                        String actor = itActors.next();
-                        actor = actor.concat(",");  // add a comma to the actor string to be written to file
-                        actorsOutputLine = actorsOutputLine.concat(actor);  // add the actor to all the others to be written to file
-                        numberActors++;
-                    }
-                    // We know there can be only 3 actors so for the number of actors that were not in the object 
-                    // add commas to ensure format of saving movie information to file is kept
-                    for (int i = 0; i < (3-numberActors); i++)
-                    {
-                        actorsOutputLine = actorsOutputLine.concat(",");
-                    }
-                    
-                    writer.write(title+","+director+","+actorsOutputLine+rating+"\n"); //Write line to file with all movie information
-                }
-            }
-            finally
-            {
-                writer.close();
-            }
-            
+            MovieFileWriter.saveAtomically(filename, getAllMovies());
+        } 
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+        recordTime(DatabaseMetrics.SAVE, start);
+    }
+    
+    
+    /*
+     * Saves all movies in database to a binary snapshot file, see MovieSnapshot for the format.
+     * Snapshots are smaller than text files and much quicker to load.
+     * 
+     * @param - filename - file to write to, if file does not exist it will be created
+     */
+    public void saveSnapshot(String filename)
+    {
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        try 
+        {
+            MovieSnapshot.save(filename, getAllMovies());
         } 
         catch (IOException e)
         {
             System.out.print("Unexpected I/O exception\n");
         }
+        recordTime(DatabaseMetrics.SAVE, start);
+    }
+    
+    /*
+     * Load movies from a binary snapshot file written by saveSnapshot and add them to the database.
+     * A message is printed if the file can not be found or is not a valid snapshot.
+     * 
+     * @param - filename - snapshot file to read movies from
+     */
+    public void loadSnapshot(String filename)
+    {
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        loadErrors = new ArrayList<LoadError>();
+        try 
+        {
+            MovieSnapshot.load(filename, this);
+        } 
+        catch (FileNotFoundException e) 
+        {
+            System.out.print("File not found\n");
+        }
+        catch (IOException e)
+        {
+            System.out.print("Error reading snapshot: " + e.getMessage() + "\n");
+        }
+        recordTime(DatabaseMetrics.LOAD, start);
     }
     
     
@@ -219,48 +957,327 @@ public class Database
      *      searchKey    - the field of the Movie class to search against (title, director or favourite)
      *      minRating    - Only required when searching for favourite, the minimum rating to accept
      * 
-     * Returns ArrayList of Movie objects that matched the search criteria
+     * Returns ArrayList of Movie objects that matched the search criteria, favourite searches
+     * return the highest rated movies first
      */
     public ArrayList<Movie> searchForMovie(String searchString, String searchKey, int minRating)
     {
+        long start = (metrics != null) ? System.nanoTime() : 0;
+        String cacheKey = (searchCache != null) ? SearchCache.keyFor(searchString, searchKey, minRating) : null;
+        if (cacheKey != null)
+        {
+            ArrayList<Movie> cachedMovies = searchCache.get(cacheKey);
+            if (cachedMovies != null)
+            {
+                // A cached search looks at no movies
+                if (metrics != null)
+                {
+                    metrics.recordSearch(searchOperation(searchKey), System.nanoTime() - start, 0, cachedMovies.size() > 0);
+                }
+                return cachedMovies;
+            }
+        }
+        
         ArrayList<Movie> foundMovies = new ArrayList<Movie>();
-        Iterator<Movie> it = movies.iterator();
         String searchStringLower = searchString.toLowerCase();  //conver to lowercase to ensure search is case-insensitive
+        String operation = null;
+        int rowsScanned = 0;    // posting entries visited, including ids of deleted movies not yet purged
         
-        while (it.hasNext())
+        if (searchKey.equals("title"))
         {
-            //get the next movie in the database
-            Movie movie = it.next();
-            
-            //convert to lowercase to ensure search is case-insensitive
-            String title = movie.getTitle().toLowerCase();         
-            //convert to lowercase to ensure search is case-insensitive
-            String director = movie.getDirector().toLowerCase();
-            
-            int rating = movie.getRating();
-            
-            if (searchKey.equals("title"))
+            // Titles are indexed by their lowercase value so only the matching movies are looked at
+            PostingList ids = postingIndex.titlePostings(searchStringLower);
+            foundMovies.addAll(postingIndex.moviesFor(ids));
+            rowsScanned = ids.size();
+            operation = DatabaseMetrics.SEARCH_TITLE;
+        } else if (searchKey.equals("director")) {
+            PostingList ids = postingIndex.directorPostings(searchStringLower);
+            foundMovies.addAll(postingIndex.moviesFor(ids));
+            rowsScanned = ids.size();
+            operation = DatabaseMetrics.SEARCH_DIRECTOR;
+        } else if (searchKey.equals("favourite")) {
+            // Only the ratings at or above the minimum rating are visited, highest rated movies first
+            for (int rating = 10; rating >= minRating && rating >= 1; rating--)
             {
-                if (title.equals(searchStringLower))
-                {
-                    foundMovies.add(movie);
-                }
-            } else if (searchKey.equals("director")) {
-                if (director.equals(searchStringLower))
-                {
-                    foundMovies.add(movie);
-                }
-            } else if (searchKey.equals("favourite")) {
-                if (rating >= minRating)
-                {
-                    foundMovies.add(movie);
-                }
-            } else {
-                System.out.print("\nError! Can not search over that key!\n");
+                PostingList ids = postingIndex.ratingPostings(rating);
+                foundMovies.addAll(postingIndex.moviesFor(ids));
+                rowsScanned += ids.size();
             }
+            operation = DatabaseMetrics.SEARCH_FAVOURITE;
+        } else {
+            System.out.print("\nError! Can not search over that key!\n");
         }
         
+        if (cacheKey != null)
+        {
+            searchCache.put(cacheKey, foundMovies);
+        }
+        
+        if (metrics != null && operation != null)
+        {
+            metrics.recordSearch(operation, System.nanoTime() - start, rowsScanned, foundMovies.size() > 0);
+        }
         return foundMovies;
     }
-
+    
+    /*
+     * Typo tolerant version of searchForMovie. Finds movies whose title, director or one of whose
+     * actors is within maxDistance edits (characters inserted, deleted or replaced) of the search
+     * string, ignoring case, see FuzzyIndex. The index is built the first time this is called.
+     * 
+     * Takes as input:
+     *      searchString - the string to look for
+     *      searchKey    - the field to search, title, director or actor
+     *      maxDistance  - most edits from the search string, 0 finds only exact matches
+     * 
+     * Returns ArrayList of the matching movies, closest matches first and otherwise in the order they
+     * were added
+     * 
+     * @throws IllegalArgumentException if the search key is not known or maxDistance is negative
+     */
+    public ArrayList<Movie> searchForMovieFuzzy(String searchString, String searchKey, int maxDistance)
+    {
+        buildFuzzyIndex();
+        ArrayList<String> values = fuzzyIndex.valuesWithin(searchString, searchKey, maxDistance);
+        ArrayList<Movie> foundMovies = new ArrayList<Movie>();
+        for (int i = 0; i < values.size(); i++)
+        {
+            PostingList ids;
+            if (searchKey.equals("title"))
+            {
+                ids = postingIndex.titlePostings(values.get(i));
+            }
+            else if (searchKey.equals("director"))
+            {
+                ids = postingIndex.directorPostings(values.get(i));
+            }
+            else
+            {
+                ids = postingIndex.actorPostings(values.get(i));
+            }
+            foundMovies.addAll(postingIndex.moviesFor(ids));
+        }
+        return foundMovies;
+    }
+    
+    // Metrics operation for a title, director or favourite search
+    private static String searchOperation(String searchKey)
+    {
+        if (searchKey.equals("title"))
+        {
+            return DatabaseMetrics.SEARCH_TITLE;
+        }
+        return searchKey.equals("director") ? DatabaseMetrics.SEARCH_DIRECTOR : DatabaseMetrics.SEARCH_FAVOURITE;
+    }
+    
+    /*
+     * Lazy version of searchForMovie. Movies are only looked up as the stream is consumed, so taking
+     * the first few matches of a large search does only that much work. The database must not be
+     * changed while the stream is in use.
+     * 
+     * Takes as input:
+     *      searchString - the string to look for (could be the movie or director)
+     *      searchKey    - the field of the Movie class to search against (title, director or favourite)
+     *      minRating    - Only required when searching for favourite, the minimum rating to accept
+     *      order        - order of the movies in the stream. Insertion and title order are always lazy,
+     *                     title order coming from the sorted views, as is rating order for favourite
+     *                     searches. Rating order for title and director searches sorts all the matches
+     *                     once the stream is consumed, findMovies avoids that when only a page is wanted
+     * 
+     * Returns a sequential Stream of the matching movies
+     */
+    public Stream<Movie> streamMovies(String searchString, String searchKey, int minRating, SortKey order)
+    {
+        Iterator<Movie> matches = matchIterator(searchString, searchKey, minRating, order);
+        Stream<Movie> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(matches, Spliterator.ORDERED | Spliterator.NONNULL), false);
+        if (!isInOrder(searchKey, order))
+        {
+            stream = stream.sorted(order.comparator());
+        }
+        return stream;
+    }
+    
+    /*
+     * Number of movies searchForMovie would find, counted from the posting lists without collecting
+     * the movies, so a page from findMovies can be given with the total number of matches
+     */
+    public int countMovies(String searchString, String searchKey, int minRating)
+    {
+        if (searchKey.equals("title"))
+        {
+            return postingIndex.liveCount(postingIndex.titlePostings(searchString.toLowerCase()));
+        } else if (searchKey.equals("director")) {
+            return postingIndex.liveCount(postingIndex.directorPostings(searchString.toLowerCase()));
+        } else if (searchKey.equals("favourite")) {
+            return countFavouriteMovies(minRating);
+        }
+        System.out.print("\nError! Can not search over that key!\n");
+        return 0;
+    }
+    
+    /*
+     * Number of movies a favourite search with the minimum rating would find, counted from the size
+     * of each rating rather than by collecting the movies
+     */
+    public int countFavouriteMovies(int minRating)
+    {
+        int count = 0;
+        for (int rating = 10; rating >= minRating && rating >= 1; rating--)
+        {
+            count += postingIndex.ratingCount(rating);
+        }
+        return count;
+    }
+    
+    // Stream of every movie in the database in the given order, see streamMovies
+    public Stream<Movie> streamAllMovies(SortKey order)
+    {
+        return streamMovies("", "favourite", 1, order);
+    }
+    
+    /*
+     * One page of the results of searchForMovie, in the given order. Only the movies up to the end
+     * of the page are looked at when the order comes for free from the index or the sorted views
+     * (see streamMovies), otherwise the matches are passed through a heap holding just offset + limit
+     * movies.
+     * 
+     * Takes as input:
+     *      searchString, searchKey, minRating - as for searchForMovie
+     *      order  - order to return the movies in
+     *      offset - number of matching movies to skip
+     *      limit  - most movies to return
+     * 
+     * Returns ArrayList of at most limit movies
+     * 
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    public ArrayList<Movie> findMovies(String searchString, String searchKey, int minRating, SortKey order, int offset, int limit)
+    {
+        if (offset < 0 || limit < 0)
+        {
+            throw new IllegalArgumentException("Offset and limit must not be negative\n");
+        }
+        
+        ArrayList<Movie> page = new ArrayList<Movie>();
+        Iterator<Movie> matches = matchIterator(searchString, searchKey, minRating, order);
+        if (isInOrder(searchKey, order))
+        {
+            for (int skipped = 0; skipped < offset && matches.hasNext(); skipped++)
+            {
+                matches.next();
+            }
+            while (page.size() < limit && matches.hasNext())
+            {
+                page.add(matches.next());
+            }
+            return page;
+        }
+        
+        // Keep the first offset + limit movies in the order, the heap's head is the last of those
+        int keep = (int) Math.min(Integer.MAX_VALUE - 1, (long) offset + limit);
+        if (keep == 0)
+        {
+            return page;
+        }
+        Comparator<Movie> comparator = order.comparator();
+        PriorityQueue<Movie> heap = new PriorityQueue<Movie>(Math.min(keep, 1024) + 1, Collections.reverseOrder(comparator));
+        while (matches.hasNext())
+        {
+            Movie movie = matches.next();
+            if (heap.size() < keep)
+            {
+                heap.add(movie);
+            }
+            else if (comparator.compare(movie, heap.peek()) < 0)
+            {
+                heap.poll();
+                heap.add(movie);
+            }
+        }
+        ArrayList<Movie> kept = new ArrayList<Movie>(heap);
+        Collections.sort(kept, comparator);
+        if (offset < kept.size())
+        {
+            page.addAll(kept.subList(offset, kept.size()));
+        }
+        return page;
+    }
+    
+    /*
+     * Iterator over the movies matching a search, in insertion order, in title order from the sorted
+     * views or, for favourite searches in rating order, highest rated first
+     */
+    private Iterator<Movie> matchIterator(String searchString, String searchKey, int minRating, SortKey order)
+    {
+        PostingList[] lists;
+        if (searchKey.equals("title"))
+        {
+            lists = new PostingList[] { postingIndex.titlePostings(searchString.toLowerCase()) };
+        } else if (searchKey.equals("director")) {
+            if (order == SortKey.TITLE)
+            {
+                return sortedViews().moviesBy(searchString);
+            }
+            lists = new PostingList[] { postingIndex.directorPostings(searchString.toLowerCase()) };
+        } else if (searchKey.equals("favourite")) {
+            int lowest = Math.max(1, minRating);
+            if (order == SortKey.TITLE)
+            {
+                // Walks the title view skipping lower rated movies, cheap when most movies are rated high enough
+                return sortedViews().titleOrder(lowest);
+            }
+            lists = new PostingList[Math.max(0, 11 - lowest)];
+            for (int i = 0; i < lists.length; i++)
+            {
+                lists[i] = postingIndex.ratingPostings(10 - i);
+            }
+            return postingIndex.iterator(lists, order != SortKey.RATING);
+        } else {
+            System.out.print("\nError! Can not search over that key!\n");
+            lists = new PostingList[0];
+        }
+        return postingIndex.iterator(lists, false);
+    }
+    
+    // Whether matchIterator already returns the movies of a search in the order. Movies found by a title
+    // search all have the same title, so insertion order is title order.
+    private static boolean isInOrder(String searchKey, SortKey order)
+    {
+        return order == SortKey.INSERTION || order == SortKey.TITLE || (order == SortKey.RATING && searchKey.equals("favourite"));
+    }
+    
+    /*
+     * Search for movies matching a query that combines title, director, actor and rating conditions
+     * with AND and OR, see MovieQuery.
+     * 
+     * Returns ArrayList of Movie objects that matched the query, in the order they were added
+     * 
+     * @throws NullPointerException if query is not set
+     */
+    public ArrayList<Movie> searchForMovies(MovieQuery query)
+    {
+        if (query == null)
+        {
+            throw new NullPointerException("Must provide a valid query object\n");
+        }
+        
+        return postingIndex.moviesFor(query.evaluate(postingIndex));
+    }
+    
+    /*
+     * Search for movies with a title, director or actor containing some text, for search-as-you-type.
+     * The search is case-insensitive, see TextSearchIndex for how results are ranked. The index is
+     * built the first time this is called.
+     * 
+     * Takes as input:
+     *      query      - text to look for, queries shorter than three characters match the start of words
+     *      maxResults - most movies to return
+     * 
+     * Returns ArrayList of the best matching Movie objects, best match first
+     */
+    public ArrayList<Movie> searchMoviesByText(String query, int maxResults)
+    {
+        buildTextIndex();
+        return textIndex.search(query, maxResults);
+    }
 }
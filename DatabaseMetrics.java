@@ -0,0 +1,273 @@
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * DatabaseMetrics counts and times the operations of a Database: searchForMovie for each search key,
+ * addMovie, deleteMovie, the batch adds and deletes, loads and saves. Searches also count how many index entries they looked at and
+ * whether the index had any movies for the key.
+ * 
+ * Metrics are off until Database.enableMetrics is called, and cost only a null check while off.
+ * They can be read directly, displayed, passed to a MetricsReporter or published through JMX.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class DatabaseMetrics implements DatabaseMetricsMXBean
+{
+    public static final String SEARCH_TITLE = "search.title";
+    public static final String SEARCH_DIRECTOR = "search.director";
+    public static final String SEARCH_FAVOURITE = "search.favourite";
+    public static final String ADD = "add";
+    public static final String DELETE = "delete";
+    public static final String ADD_BATCH = "addAll";
+    public static final String DELETE_BATCH = "deleteAll";
+    public static final String LOAD = "load";
+    public static final String SAVE = "save";
+    
+    private static final String[] OPERATIONS = { SEARCH_TITLE, SEARCH_DIRECTOR, SEARCH_FAVOURITE, ADD, DELETE, ADD_BATCH, DELETE_BATCH, LOAD, SAVE };
+    private static final String[] SEARCHES = { SEARCH_TITLE, SEARCH_DIRECTOR, SEARCH_FAVOURITE };
+    
+    // Both maps are filled in by the constructor and only read after, so they can be shared between threads
+    private LinkedHashMap<String, LatencyHistogram> latencies;
+    private LinkedHashMap<String, LongAdder> rowsScanned;
+    private LongAdder indexHits;
+    private LongAdder indexMisses;
+    private ObjectName registeredName;
+
+    /**
+     * Constructor for objects of class DatabaseMetrics
+     */
+    public DatabaseMetrics()
+    {
+        latencies = new LinkedHashMap<String, LatencyHistogram>();
+        for (int i = 0; i < OPERATIONS.length; i++)
+        {
+            latencies.put(OPERATIONS[i], new LatencyHistogram());
+        }
+        rowsScanned = new LinkedHashMap<String, LongAdder>();
+        for (int i = 0; i < SEARCHES.length; i++)
+        {
+            rowsScanned.put(SEARCHES[i], new LongAdder());
+        }
+        indexHits = new LongAdder();
+        indexMisses = new LongAdder();
+    }
+    
+    // Record how long one call of an operation took
+    public void record(String operation, long nanos)
+    {
+        latencies.get(operation).record(nanos);
+    }
+    
+    /*
+     * Record one searchForMovie call
+     * 
+     * Takes as arguments:
+     *  @param - operation - SEARCH_TITLE, SEARCH_DIRECTOR or SEARCH_FAVOURITE
+     *  @param - nanos - how long the search took
+     *  @param - rows - number of index entries the search looked at, including those of deleted movies
+     *  @param - indexHit - whether the index had any movies for the search
+     */
+    public void recordSearch(String operation, long nanos, int rows, boolean indexHit)
+    {
+        latencies.get(operation).record(nanos);
+        rowsScanned.get(operation).add(rows);
+        if (indexHit)
+        {
+            indexHits.increment();
+        }
+        else
+        {
+            indexMisses.increment();
+        }
+    }
+    
+    // Latencies of one operation, in nanoseconds
+    public LatencyHistogram getLatencies(String operation)
+    {
+        return latencies.get(operation);
+    }
+    
+    public Map<String, Long> getOperationCounts()
+    {
+        LinkedHashMap<String, Long> counts = new LinkedHashMap<String, Long>();
+        Iterator<Map.Entry<String, LatencyHistogram>> it = latencies.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<String, LatencyHistogram> entry = it.next();
+            counts.put(entry.getKey(), entry.getValue().getCount());
+        }
+        return counts;
+    }
+    
+    public Map<String, Double> getMeanLatencyMicros()
+    {
+        LinkedHashMap<String, Double> means = new LinkedHashMap<String, Double>();
+        Iterator<Map.Entry<String, LatencyHistogram>> it = latencies.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<String, LatencyHistogram> entry = it.next();
+            means.put(entry.getKey(), entry.getValue().getMean() / 1000);
+        }
+        return means;
+    }
+    
+    public Map<String, Double> getP50LatencyMicros()
+    {
+        return percentileMicros(50);
+    }
+    
+    public Map<String, Double> getP99LatencyMicros()
+    {
+        return percentileMicros(99);
+    }
+    
+    public Map<String, Double> getMaxLatencyMicros()
+    {
+        return percentileMicros(100);
+    }
+    
+    public Map<String, Long> getRowsScanned()
+    {
+        LinkedHashMap<String, Long> rows = new LinkedHashMap<String, Long>();
+        Iterator<Map.Entry<String, LongAdder>> it = rowsScanned.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<String, LongAdder> entry = it.next();
+            rows.put(entry.getKey(), entry.getValue().sum());
+        }
+        return rows;
+    }
+    
+    public long getIndexHits()
+    {
+        return indexHits.sum();
+    }
+    
+    public long getIndexMisses()
+    {
+        return indexMisses.sum();
+    }
+    
+    // Forget everything recorded so far
+    public void reset()
+    {
+        Iterator<LatencyHistogram> it = latencies.values().iterator();
+        while (it.hasNext())
+        {
+            it.next().reset();
+        }
+        Iterator<LongAdder> itRows = rowsScanned.values().iterator();
+        while (itRows.hasNext())
+        {
+            itRows.next().reset();
+        }
+        indexHits.reset();
+        indexMisses.reset();
+    }
+    
+    // Pass every latency histogram and counter to a reporter
+    public void report(MetricsReporter reporter)
+    {
+        Iterator<Map.Entry<String, LatencyHistogram>> it = latencies.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<String, LatencyHistogram> entry = it.next();
+            reporter.reportLatency(entry.getKey(), entry.getValue());
+        }
+        Iterator<Map.Entry<String, LongAdder>> itRows = rowsScanned.entrySet().iterator();
+        while (itRows.hasNext())
+        {
+            Map.Entry<String, LongAdder> entry = itRows.next();
+            reporter.reportCounter(entry.getKey() + ".rows", entry.getValue().sum());
+        }
+        reporter.reportCounter("index.hits", indexHits.sum());
+        reporter.reportCounter("index.misses", indexMisses.sum());
+    }
+    
+    // Displays the count and latencies of each operation that has been called, and the counters
+    public void display()
+    {
+        report(new MetricsReporter()
+        {
+            public void reportLatency(String operation, LatencyHistogram histogram)
+            {
+                if (histogram.getCount() > 0)
+                {
+                    System.out.print(operation + ": " + histogram.getCount() + " calls, mean "
+                                     + String.format("%.1f", histogram.getMean() / 1000) + "us, p50 "
+                                     + String.format("%.1f", histogram.getValueAtPercentile(50) / 1000.0) + "us, p99 "
+                                     + String.format("%.1f", histogram.getValueAtPercentile(99) / 1000.0) + "us, max "
+                                     + String.format("%.1f", histogram.getMax() / 1000.0) + "us\n");
+                }
+            }
+            
+            public void reportCounter(String name, long value)
+            {
+                System.out.print(name + ": " + value + "\n");
+            }
+        });
+    }
+    
+    /*
+     * Publish these metrics through JMX under the given name, replacing anything already registered
+     * under it, such as "MovieLibrary:type=DatabaseMetrics"
+     * 
+     * @throws IllegalArgumentException if the name is not a valid JMX object name
+     */
+    public void registerMBean(String name)
+    {
+        unregisterMBean();
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName))
+            {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+            registeredName = objectName;
+        }
+        catch (JMException e)
+        {
+            throw new IllegalArgumentException("Unable to register metrics as " + name + "\n", e);
+        }
+    }
+    
+    // Stop publishing these metrics through JMX
+    public void unregisterMBean()
+    {
+        if (registeredName == null)
+        {
+            return;
+        }
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        }
+        catch (JMException e)
+        {
+            // Already gone
+        }
+        registeredName = null;
+    }
+    
+    private Map<String, Double> percentileMicros(double percentile)
+    {
+        LinkedHashMap<String, Double> values = new LinkedHashMap<String, Double>();
+        Iterator<Map.Entry<String, LatencyHistogram>> it = latencies.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<String, LatencyHistogram> entry = it.next();
+            values.put(entry.getKey(), entry.getValue().getValueAtPercentile(percentile) / 1000.0);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.Map;
+
+/**
+ * DatabaseMetricsMXBean is the JMX view of a DatabaseMetrics. Maps are keyed by operation name,
+ * latencies are in microseconds.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public interface DatabaseMetricsMXBean
+{
+    Map<String, Long> getOperationCounts();
+    
+    Map<String, Double> getMeanLatencyMicros();
+    
+    Map<String, Double> getP50LatencyMicros();
+    
+    Map<String, Double> getP99LatencyMicros();
+    
+    Map<String, Double> getMaxLatencyMicros();
+    
+    // Movies looked at by each search key
+    Map<String, Long> getRowsScanned();
+    
+    // Searches that found the key in an index
+    long getIndexHits();
+    
+    // Searches for a key the index has no movies for
+    long getIndexMisses();
+    
+    void reset();
+}
@@ -2,6 +2,7 @@ import java.util.Scanner;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Driver class is the main controller class that runs the program and controls the logic of reading input
@@ -14,16 +15,43 @@ import java.util.Iterator;
 public class Driver
 {
     private Database movieDatabase;
+    // Number of favourite movies shown before asking whether to show more
+    private static final int FAVOURITES_PAGE_SIZE = 10;
+    private static final int BATCH_BUFFER_SIZE = 1 << 16;
+    // Most typing mistakes allowed when a search finds nothing and close matches are suggested
+    private static final int SUGGESTION_DISTANCE = 2;
     
     /**
      * Constructor for objects of class Driver
      * 
-     * Loads a database of movies from file
+     * Loads a database of movies from file, then applies the changes journaled since the file was written
      */
     public Driver()
     {
         movieDatabase = new Database();
         movieDatabase.loadDatabaseFromFile("myvideos.txt");
+        movieDatabase.openJournal("myvideos.txt.journal", "myvideos.txt");
+        ArrayList<LoadError> journalErrors = movieDatabase.getJournalErrors();
+        for (int i = 0; i < journalErrors.size(); i++)
+        {
+            System.out.print("Skipped journal entry: " + journalErrors.get(i) + "\n");
+        }
+    }
+    
+    /*
+     * Make sure every change is saved before the program ends. Changes are already in the journal
+     * so it only needs closing, but if no journal could be opened the movie file is written instead.
+     */
+    private void saveChanges()
+    {
+        if (movieDatabase.isJournaling())
+        {
+            movieDatabase.closeJournal();
+        }
+        else
+        {
+            movieDatabase.saveMoviesToFile("myvideos.txt");
+        }
     }
     
     /*
@@ -103,8 +131,9 @@ public class Driver
             minFavRating = userInput.readIntegerFromUser(10, "Please choose a minimum favourite rating between 1 and 10: ");
         }
         
-        ArrayList<Movie> favMovies = movieDatabase.searchForMovie("", "favourite", minFavRating);
-        if (favMovies.size() == 0)
+        // Movies are read from the database a page at a time, so only the pages the user looks at are fetched
+        Iterator<Movie> it = movieDatabase.streamMovies("", "favourite", minFavRating, SortKey.RATING).iterator();
+        if (!it.hasNext())
         {
             System.out.print("\nNo movies found above or equal to that rating.\n\n");
         }
@@ -112,22 +141,81 @@ public class Driver
         {
             System.out.print("\nFavourite Movies:\n\n");
             
-            Iterator<Movie> it = favMovies.iterator();
-            while (it.hasNext())
+            boolean showMore = true;
+            while (showMore)
             {
-                Movie movie = it.next();
-                movie.displayMovieInformation();
+                for (int shown = 0; shown < FAVOURITES_PAGE_SIZE && it.hasNext(); shown++)
+                {
+                    Movie movie = it.next();
+                    movie.displayMovieInformation();
+                }
+                
+                showMore = false;
+                if (it.hasNext())
+                {
+                    String answer = userInput.readStringFromUser("Press enter to see more movies or q to stop: ", true);
+                    showMore = !answer.trim().equalsIgnoreCase("q");
+                }
             }
-               
         }
     }
 
+    /*
+     * Run a script of commands without the menu, see BatchCommands for the commands. Results are
+     * written to standard output. Changes are journaled as they are from the menu.
+     * 
+     * @param - scriptFilename - file to read commands from, - to read them from standard input
+     */
+    public void runBatch(String scriptFilename)
+    {
+        try
+        {
+            BufferedReader script;
+            if (scriptFilename.equals("-"))
+            {
+                script = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BATCH_BUFFER_SIZE);
+            }
+            else
+            {
+                script = new BufferedReader(new InputStreamReader(new FileInputStream(scriptFilename), StandardCharsets.UTF_8), BATCH_BUFFER_SIZE);
+            }
+            
+            try
+            {
+                BufferedWriter output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BATCH_BUFFER_SIZE);
+                new BatchCommands(movieDatabase, "myvideos.txt", output).run(script);
+            }
+            finally
+            {
+                script.close();
+            }
+        }
+        catch (FileNotFoundException e) 
+        {
+            System.out.print("File not found\n");
+        }
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+        saveChanges();
+    }
+
     /*
      *  Run the program on the command line after compiling with: java Driver
+     *  Or run a script of commands with: java Driver --batch <script file>
+     *  leaving out the script file to read commands from standard input
      */
     public static void main(String[] args){
         Driver movieLibrary = new Driver();
-        movieLibrary.runDriver();
+        if (args.length > 0 && args[0].equals("--batch"))
+        {
+            movieLibrary.runBatch(args.length > 1 ? args[1] : "-");
+        }
+        else
+        {
+            movieLibrary.runDriver();
+        }
     }
     
     /*
@@ -250,10 +338,10 @@ public class Driver
                         userInput.pressEnterToContinue();
                         break;
                         
-                    // Exit the program, save all movies in database to file before finishing
+                    // Exit the program, saving any changes the journal doesn't hold
                     case 5:
                         continueProgram = false;
-                        movieDatabase.saveMoviesToFile("myvideos.txt");
+                        saveChanges();
                         movieDatabase.clearAll();
                         break;
                     
@@ -314,7 +402,21 @@ public class Driver
             ArrayList<Movie> foundMovies = movieDatabase.searchForMovie(searchString,searchKey,0);
             if (foundMovies.size() == 0)
             {
-                System.out.print("\nNo movies found.\n\n");
+                // Nothing matched exactly, so show movies whose title or director is close in case of a typo
+                foundMovies = movieDatabase.searchForMovieFuzzy(searchString,searchKey,SUGGESTION_DISTANCE);
+                if (foundMovies.size() == 0)
+                {
+                    System.out.print("\nNo movies found.\n\n");
+                }
+                else
+                {
+                    System.out.print("\nNo movies found. Did you mean:\n\n");
+                    Iterator<Movie> it = foundMovies.iterator();
+                    while (it.hasNext())
+                    {
+                        it.next().displayMovieInformation();
+                    }
+                }
             }
             else 
             {
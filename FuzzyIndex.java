@@ -0,0 +1,422 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * FuzzyIndex finds the titles, directors and actors within an edit distance of a search string, so
+ * searches still find movies when either the data or the search has a typo ("Saving Privagte Ryan",
+ * "Keanau Reeves"). The distance is the Levenshtein distance: the number of characters inserted,
+ * deleted or replaced to turn one string into the other, ignoring case.
+ * 
+ * Each field's distinct lowercase values are kept in a trie. A search walks the trie working out
+ * the edit distance row by row as it goes down, one character per level, which is a Levenshtein
+ * automaton run over the trie. A branch is dropped as soon as every prefix of the search string is
+ * too far from it, so only the part of the trie near the search string is visited rather than every
+ * value. Only the cells within maxDistance of the diagonal are worked out on each row.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+class FuzzyIndex
+{
+    private Trie titles;
+    private Trie directors;
+    private Trie actors;
+    
+    /**
+     * Constructor for objects of class FuzzyIndex
+     * 
+     * @param - movies - movies to start with, null entries are skipped
+     */
+    FuzzyIndex(ArrayList<Movie> movies)
+    {
+        // Count each distinct value first, directors and actors repeat a lot and only distinct values are sorted
+        HashMap<String, Integer> titleCounts = new HashMap<String, Integer>();
+        HashMap<String, Integer> directorCounts = new HashMap<String, Integer>();
+        HashMap<String, Integer> actorCounts = new HashMap<String, Integer>();
+        for (int i = 0; i < movies.size(); i++)
+        {
+            Movie movie = movies.get(i);
+            if (movie != null)
+            {
+                countValue(titleCounts, movie.getTitle());
+                countValue(directorCounts, movie.getDirector());
+                ArrayList<String> movieActors = movie.getActors();
+                for (int a = 0; a < movieActors.size(); a++)
+                {
+                    countValue(actorCounts, movieActors.get(a));
+                }
+            }
+        }
+        titles = new Trie(titleCounts);
+        directors = new Trie(directorCounts);
+        actors = new Trie(actorCounts);
+    }
+    
+    private static void countValue(HashMap<String, Integer> counts, String value)
+    {
+        String lower = value.toLowerCase();
+        Integer count = counts.get(lower);
+        counts.put(lower, (count == null) ? 1 : count + 1);
+    }
+    
+    // Add a movie's title, director and actors
+    void add(Movie movie)
+    {
+        titles.add(movie.getTitle().toLowerCase());
+        directors.add(movie.getDirector().toLowerCase());
+        ArrayList<String> movieActors = movie.getActors();
+        for (int i = 0; i < movieActors.size(); i++)
+        {
+            actors.add(movieActors.get(i).toLowerCase());
+        }
+    }
+    
+    // Remove a movie's title, director and actors, it must still have the values it was added with
+    void remove(Movie movie)
+    {
+        titles.remove(movie.getTitle().toLowerCase());
+        directors.remove(movie.getDirector().toLowerCase());
+        ArrayList<String> movieActors = movie.getActors();
+        for (int i = 0; i < movieActors.size(); i++)
+        {
+            actors.remove(movieActors.get(i).toLowerCase());
+        }
+    }
+    
+    // Nodes in the three tries, including those of removed values that haven't been dropped yet
+    int getNodeCount()
+    {
+        return titles.getNodeCount() + directors.getNodeCount() + actors.getNodeCount();
+    }
+    
+    /*
+     * Lowercase values of a field within maxDistance edits of the search string, closest first.
+     * Values the same distance away are in alphabetical order.
+     * 
+     * Takes as arguments:
+     *  @param - searchString - string to look for, case is ignored
+     *  @param - searchKey - field to search, title, director or actor
+     *  @param - maxDistance - most edits a value can be from the search string, 1 or 2 suits most typos
+     * 
+     * @throws IllegalArgumentException if the search key is not known or maxDistance is negative
+     */
+    ArrayList<String> valuesWithin(String searchString, String searchKey, int maxDistance)
+    {
+        if (maxDistance < 0)
+        {
+            throw new IllegalArgumentException("Edit distance must not be negative\n");
+        }
+        Trie trie;
+        if (searchKey.equals("title"))
+        {
+            trie = titles;
+        }
+        else if (searchKey.equals("director"))
+        {
+            trie = directors;
+        }
+        else if (searchKey.equals("actor"))
+        {
+            trie = actors;
+        }
+        else
+        {
+            throw new IllegalArgumentException("Can only search title, director or actor\n");
+        }
+        
+        ArrayList<ArrayList<String>> byDistance = new ArrayList<ArrayList<String>>();
+        for (int distance = 0; distance <= maxDistance; distance++)
+        {
+            byDistance.add(new ArrayList<String>());
+        }
+        trie.search(searchString.toLowerCase(), maxDistance, byDistance);
+        
+        ArrayList<String> values = new ArrayList<String>();
+        for (int distance = 0; distance <= maxDistance; distance++)
+        {
+            values.addAll(byDistance.get(distance));
+        }
+        return values;
+    }
+    
+    /**
+     * Trie holds strings in one int array with a four int record per node, rather than a node object
+     * each, so looking at a node during a search touches one cache line. Children are a linked list
+     * of siblings in alphabetical order. Each node counts the movies whose value ends there. A removed
+     * value keeps its nodes, marked dead, until dead values outnumber the values left. The trie is then
+     * rebuilt from the values left, as Database compacts its list once deleted slots outnumber movies.
+     */
+    private static class Trie
+    {
+        private static final int NONE = -1;
+        // Fields of a node's record
+        private static final int LABEL = 0;  // character on the edge into the node
+        private static final int FIRST_CHILD = 1;
+        private static final int NEXT_SIBLING = 2;
+        private static final int COUNT = 3;
+        private static final int RECORD = 4;
+        private static final int DEAD = -1;  // count of a value whose movies have all been removed
+        private static final int MIN_DEAD_VALUES = 1024;
+        
+        private int[] nodes;  // node n's record starts at n * RECORD
+        private int size;
+        private int liveValues;  // values with a count above 0
+        private int deadValues;  // values removed down to a count of 0 whose nodes are still in the trie
+        
+        /*
+         * Build a trie holding each value the given number of times. The values are added in sorted
+         * order, which places the nodes in the array in the order a search visits them.
+         */
+        private Trie(HashMap<String, Integer> valueCounts)
+        {
+            nodes = new int[RECORD * 1024];
+            size = 1;  // the root, for the empty string
+            nodes[FIRST_CHILD] = NONE;
+            nodes[NEXT_SIBLING] = NONE;
+            ArrayList<String> values = new ArrayList<String>(valueCounts.keySet());
+            Collections.sort(values);
+            
+            // Each value shares a prefix with the one before it and the rest is new, added after the
+            // last child on the previous value's path, so no sibling list has to be searched
+            int[] path = new int[64];  // path[d] is the node for the first d characters of the previous value
+            String previous = "";
+            for (int i = 0; i < values.size(); i++)
+            {
+                String value = values.get(i);
+                int common = 0;
+                int shorter = Math.min(value.length(), previous.length());
+                while (common < shorter && value.charAt(common) == previous.charAt(common))
+                {
+                    common++;
+                }
+                if (value.length() >= path.length)
+                {
+                    path = Arrays.copyOf(path, value.length() + 64);
+                }
+                for (int depth = common; depth < value.length(); depth++)
+                {
+                    int added = newNode(value.charAt(depth));
+                    if (depth == common && i > 0 && common < previous.length())
+                    {
+                        nodes[path[depth + 1] * RECORD + NEXT_SIBLING] = added;
+                    }
+                    else
+                    {
+                        nodes[path[depth] * RECORD + FIRST_CHILD] = added;
+                    }
+                    path[depth + 1] = added;
+                }
+                nodes[path[value.length()] * RECORD + COUNT] += valueCounts.get(value);
+                previous = value;
+            }
+            liveValues = values.size();
+        }
+        
+        private void add(String value)
+        {
+            int node = 0;
+            for (int i = 0; i < value.length(); i++)
+            {
+                node = childFor(node, value.charAt(i));
+            }
+            int count = node * RECORD + COUNT;
+            if (nodes[count] == DEAD)
+            {
+                nodes[count] = 0;
+                deadValues--;
+            }
+            if (nodes[count] == 0)
+            {
+                liveValues++;
+            }
+            nodes[count]++;
+        }
+        
+        private void remove(String value)
+        {
+            int node = 0;
+            for (int i = 0; i < value.length() && node != NONE; i++)
+            {
+                node = findChild(node, value.charAt(i));
+            }
+            if (node == NONE || nodes[node * RECORD + COUNT] <= 0)
+            {
+                return;
+            }
+            int count = node * RECORD + COUNT;
+            nodes[count]--;
+            if (nodes[count] == 0)
+            {
+                nodes[count] = DEAD;
+                liveValues--;
+                deadValues++;
+                if (deadValues >= Math.max(MIN_DEAD_VALUES, liveValues))
+                {
+                    rebuild();
+                }
+            }
+        }
+        
+        // Number of nodes, including those only on the paths of dead values
+        private int getNodeCount()
+        {
+            return size;
+        }
+        
+        // Replace the nodes with a trie of just the values left, dropping the nodes of dead values
+        private void rebuild()
+        {
+            HashMap<String, Integer> valueCounts = new HashMap<String, Integer>(liveValues * 2);
+            collectValues(0, new StringBuilder(), valueCounts);
+            Trie rebuilt = new Trie(valueCounts);
+            nodes = rebuilt.nodes;
+            size = rebuilt.size;
+            liveValues = rebuilt.liveValues;
+            deadValues = 0;
+        }
+        
+        // Add the value and count of node and every node below it, prefix holds the value of node
+        private void collectValues(int node, StringBuilder prefix, HashMap<String, Integer> valueCounts)
+        {
+            if (nodes[node * RECORD + COUNT] > 0)
+            {
+                valueCounts.put(prefix.toString(), nodes[node * RECORD + COUNT]);
+            }
+            for (int child = nodes[node * RECORD + FIRST_CHILD]; child != NONE; child = nodes[child * RECORD + NEXT_SIBLING])
+            {
+                prefix.append((char) nodes[child * RECORD + LABEL]);
+                collectValues(child, prefix, valueCounts);
+                prefix.setLength(prefix.length() - 1);
+            }
+        }
+        
+        private int findChild(int node, char label)
+        {
+            int child = nodes[node * RECORD + FIRST_CHILD];
+            while (child != NONE && nodes[child * RECORD + LABEL] < label)
+            {
+                child = nodes[child * RECORD + NEXT_SIBLING];
+            }
+            return (child != NONE && nodes[child * RECORD + LABEL] == label) ? child : NONE;
+        }
+        
+        // Child of node with the label, added in its place among the siblings if it isn't there
+        private int childFor(int node, char label)
+        {
+            int previous = NONE;
+            int child = nodes[node * RECORD + FIRST_CHILD];
+            while (child != NONE && nodes[child * RECORD + LABEL] < label)
+            {
+                previous = child;
+                child = nodes[child * RECORD + NEXT_SIBLING];
+            }
+            if (child != NONE && nodes[child * RECORD + LABEL] == label)
+            {
+                return child;
+            }
+            
+            int added = newNode(label);
+            nodes[added * RECORD + NEXT_SIBLING] = child;
+            if (previous == NONE)
+            {
+                nodes[node * RECORD + FIRST_CHILD] = added;
+            }
+            else
+            {
+                nodes[previous * RECORD + NEXT_SIBLING] = added;
+            }
+            return added;
+        }
+        
+        // Add every value within maxDistance of query to byDistance, at the index of its distance
+        private void search(String query, int maxDistance, ArrayList<ArrayList<String>> byDistance)
+        {
+            // A value more than maxDistance longer than the query can't match, so that is as deep as the walk goes
+            int deepest = query.length() + maxDistance;
+            int[][] rows = new int[deepest + 1][query.length() + 1];
+            for (int i = 0; i <= query.length(); i++)
+            {
+                rows[0][i] = i;
+            }
+            char[] path = new char[deepest];
+            if (nodes[COUNT] > 0 && query.length() <= maxDistance)
+            {
+                byDistance.get(query.length()).add("");
+            }
+            searchChildren(0, 1, query, maxDistance, rows, path, byDistance);
+        }
+        
+        // A node with no children or siblings yet
+        private int newNode(char label)
+        {
+            if ((size + 1) * RECORD > nodes.length)
+            {
+                nodes = Arrays.copyOf(nodes, nodes.length + (nodes.length >> 1));
+            }
+            int added = size++;
+            nodes[added * RECORD + LABEL] = label;
+            nodes[added * RECORD + FIRST_CHILD] = NONE;
+            nodes[added * RECORD + NEXT_SIBLING] = NONE;
+            nodes[added * RECORD + COUNT] = 0;
+            return added;
+        }
+        
+        /*
+         * Visit the children of node, which are at the given depth. rows[depth - 1] holds the edit
+         * distances from the path to node to each prefix of the query, and each child's row is worked
+         * out from it in rows[depth].
+         */
+        private void searchChildren(int node, int depth, String query, int maxDistance, int[][] rows, char[] path,
+                                    ArrayList<ArrayList<String>> byDistance)
+        {
+            if (depth >= rows.length)
+            {
+                return;
+            }
+            int[] previous = rows[depth - 1];
+            int[] row = rows[depth];
+            int length = query.length();
+            int tooFar = maxDistance + 1;
+            // Only cells within maxDistance of the diagonal can be small enough, the rest count as too far
+            int low = Math.max(1, depth - maxDistance);
+            int high = Math.min(length, depth + maxDistance);
+            
+            for (int child = nodes[node * RECORD + FIRST_CHILD]; child != NONE; child = nodes[child * RECORD + NEXT_SIBLING])
+            {
+                int record = child * RECORD;
+                char label = (char) nodes[record + LABEL];
+                row[0] = depth;
+                int best = depth;
+                if (low > 1)
+                {
+                    row[low - 1] = tooFar;
+                }
+                for (int i = low; i <= high; i++)
+                {
+                    int cost = previous[i - 1] + ((query.charAt(i - 1) == label) ? 0 : 1);
+                    cost = Math.min(cost, previous[i] + 1);
+                    cost = Math.min(cost, row[i - 1] + 1);
+                    row[i] = Math.min(cost, tooFar);
+                    best = Math.min(best, row[i]);
+                }
+                if (high < length)
+                {
+                    row[high + 1] = tooFar;  // read by the next row down
+                }
+                if (best > maxDistance)
+                {
+                    continue;  // every longer string down this branch is at least as far away
+                }
+                
+                path[depth - 1] = label;
+                if (nodes[record + COUNT] > 0 && high == length && row[length] <= maxDistance)
+                {
+                    byDistance.get(row[length]).add(new String(path, 0, depth));
+                }
+                searchChildren(child, depth + 1, query, maxDistance, rows, path, byDistance);
+            }
+        }
+    }
+}
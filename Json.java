@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Json writes movies as JSON and reads the flat JSON objects MovieHttpServer accepts. Only what the
+ * server needs is supported: objects whose values are strings, whole numbers or arrays of strings.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+class Json
+{
+    /*
+     * Append a movie as a JSON object:
+     *    {"id":3,"title":"...","director":"...","actors":["...","..."],"rating":9}
+     */
+    static void appendMovie(StringBuilder json, Movie movie)
+    {
+        json.append("{\"id\":").append(movie.getId());
+        json.append(",\"title\":");
+        appendString(json, movie.getTitle());
+        json.append(",\"director\":");
+        appendString(json, movie.getDirector());
+        json.append(",\"actors\":[");
+        ArrayList<String> actors = movie.getActors();
+        for (int i = 0; i < actors.size(); i++)
+        {
+            if (i > 0)
+            {
+                json.append(',');
+            }
+            appendString(json, actors.get(i));
+        }
+        json.append("],\"rating\":").append(movie.getRating()).append('}');
+    }
+    
+    // Append a list of movies as a JSON array
+    static void appendMovies(StringBuilder json, List<Movie> movies)
+    {
+        json.append('[');
+        for (int i = 0; i < movies.size(); i++)
+        {
+            if (i > 0)
+            {
+                json.append(',');
+            }
+            appendMovie(json, movies.get(i));
+        }
+        json.append(']');
+    }
+    
+    // Append a string as a quoted JSON string, escaping the characters JSON requires
+    static void appendString(StringBuilder json, String value)
+    {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                json.append('\\').append(c);
+            }
+            else if (c == '\n')
+            {
+                json.append("\\n");
+            }
+            else if (c == '\r')
+            {
+                json.append("\\r");
+            }
+            else if (c == '\t')
+            {
+                json.append("\\t");
+            }
+            else if (c < 0x20)
+            {
+                json.append(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+    
+    /*
+     * Read a JSON object whose values are strings, whole numbers or arrays of strings. Strings are
+     * returned as String, numbers as Long and arrays as ArrayList<String>.
+     * 
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static HashMap<String, Object> parseObject(String text)
+    {
+        Parser parser = new Parser(text);
+        HashMap<String, Object> object = new HashMap<String, Object>();
+        parser.expect('{');
+        if (!parser.skipIf('}'))
+        {
+            do
+            {
+                String name = parser.readString();
+                parser.expect(':');
+                object.put(name, parser.readValue());
+            }
+            while (parser.skipIf(','));
+            parser.expect('}');
+        }
+        parser.expectEnd();
+        return object;
+    }
+    
+    /**
+     * Parser reads JSON tokens from a string, skipping whitespace between them
+     */
+    private static class Parser
+    {
+        private String text;
+        private int position;
+        
+        private Parser(String parserText)
+        {
+            text = parserText;
+            position = 0;
+        }
+        
+        private Object readValue()
+        {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == '"')
+            {
+                return readString();
+            }
+            if (skipIf('['))
+            {
+                ArrayList<String> values = new ArrayList<String>();
+                if (!skipIf(']'))
+                {
+                    do
+                    {
+                        values.add(readString());
+                    }
+                    while (skipIf(','));
+                    expect(']');
+                }
+                return values;
+            }
+            return readNumber();
+        }
+        
+        private Long readNumber()
+        {
+            skipWhitespace();
+            int start = position;
+            if (position < text.length() && text.charAt(position) == '-')
+            {
+                position++;
+            }
+            while (position < text.length() && Character.isDigit(text.charAt(position)))
+            {
+                position++;
+            }
+            try
+            {
+                return Long.valueOf(text.substring(start, position));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IllegalArgumentException("Expected a string, whole number or array of strings at " + start + "\n");
+            }
+        }
+        
+        private String readString()
+        {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true)
+            {
+                if (position >= text.length())
+                {
+                    throw new IllegalArgumentException("Unterminated string\n");
+                }
+                char c = text.charAt(position++);
+                if (c == '"')
+                {
+                    return value.toString();
+                }
+                if (c != '\\')
+                {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length())
+                {
+                    throw new IllegalArgumentException("Unterminated string\n");
+                }
+                char escaped = text.charAt(position++);
+                if (escaped == 'n')
+                {
+                    value.append('\n');
+                }
+                else if (escaped == 't')
+                {
+                    value.append('\t');
+                }
+                else if (escaped == 'r')
+                {
+                    value.append('\r');
+                }
+                else if (escaped == 'b')
+                {
+                    value.append('\b');
+                }
+                else if (escaped == 'f')
+                {
+                    value.append('\f');
+                }
+                else if (escaped == 'u' && position + 4 <= text.length())
+                {
+                    try
+                    {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw new IllegalArgumentException("Bad unicode escape at " + position + "\n");
+                    }
+                    position += 4;
+                }
+                else
+                {
+                    value.append(escaped);  // \" \\ and \/
+                }
+            }
+        }
+        
+        private void expect(char c)
+        {
+            if (!skipIf(c))
+            {
+                throw new IllegalArgumentException("Expected " + c + " at " + position + "\n");
+            }
+        }
+        
+        private boolean skipIf(char c)
+        {
+            skipWhitespace();
+            if (position < text.length() && text.charAt(position) == c)
+            {
+                position++;
+                return true;
+            }
+            return false;
+        }
+        
+        private void expectEnd()
+        {
+            skipWhitespace();
+            if (position != text.length())
+            {
+                throw new IllegalArgumentException("Unexpected text at " + position + "\n");
+            }
+        }
+        
+        private void skipWhitespace()
+        {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position)))
+            {
+                position++;
+            }
+        }
+    }
+}
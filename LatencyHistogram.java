@@ -0,0 +1,136 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram records how long an operation takes, in nanoseconds, in the same way as
+ * HdrHistogram: values are counted in buckets whose width grows with the value, so every recorded
+ * value is kept to within about 3% using a fixed 15 KB of counts however many values are recorded.
+ * 
+ * Each power of two range is split into 32 equal sub-buckets. Values below 32 get a bucket each.
+ * 
+ * Values can be recorded from several threads at once.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private AtomicLongArray counts;
+    private AtomicLong count;
+    private AtomicLong total;
+    private AtomicLong max;
+
+    /**
+     * Constructor for objects of class LatencyHistogram
+     */
+    public LatencyHistogram()
+    {
+        counts = new AtomicLongArray(BUCKETS);
+        count = new AtomicLong();
+        total = new AtomicLong();
+        max = new AtomicLong();
+    }
+    
+    // Record one value, negative values are counted as 0
+    public void record(long nanos)
+    {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value))
+        {
+            currentMax = max.get();
+        }
+    }
+    
+    public long getCount()
+    {
+        return count.get();
+    }
+    
+    // Total of all recorded values
+    public long getTotal()
+    {
+        return total.get();
+    }
+    
+    public long getMax()
+    {
+        return max.get();
+    }
+    
+    // Mean of the recorded values, 0 if nothing has been recorded
+    public double getMean()
+    {
+        long n = count.get();
+        return (n == 0) ? 0 : (double) total.get() / n;
+    }
+    
+    /*
+     * Value that the given percentage of recorded values are at or below, accurate to the width of
+     * the bucket it falls in. Returns 0 if nothing has been recorded.
+     * 
+     * @param - percentile - between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long n = count.get();
+        if (n == 0)
+        {
+            return 0;
+        }
+        
+        long wanted = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            seen += counts.get(bucket);
+            if (seen >= wanted)
+            {
+                return Math.min(highestValueIn(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    // Forget all recorded values
+    public void reset()
+    {
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+    
+    private static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    private static long highestValueIn(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowest = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * LoadError records a line of a movie file that could not be turned into a Movie object,
+ * along with the line number it was found on and the reason it was rejected.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class LoadError
+{
+    private int lineNumber;
+    private String message;
+
+    /**
+     * Constructor for objects of class LoadError
+     * 
+     *  @param - errorLineNumber - line number in the file, the first line is 1
+     *  @param - errorMessage - reason the line was rejected
+     */
+    public LoadError(int errorLineNumber, String errorMessage)
+    {
+        lineNumber = errorLineNumber;
+        message = errorMessage;
+    }
+    
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+    
+    public String getMessage()
+    {
+        return message;
+    }
+    
+    public String toString()
+    {
+        return "Line " + lineNumber + ": " + message;
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * LoadMode selects how Database.loadDatabaseFromFile reads a movie file. Every mode adds the
+ * same movies in the same order and rejects the same lines, they only differ in speed.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public enum LoadMode
+{
+    // Read the file in blocks on the calling thread
+    STREAMING,
+    // Split the file into chunks on line boundaries and parse them on all cores
+    PARALLEL,
+    // Map the file into memory and parse it straight from the page cache on the calling thread
+    MAPPED
+}
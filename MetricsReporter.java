@@ -0,0 +1,21 @@
+/**
+ * MetricsReporter receives the metrics collected by a DatabaseMetrics, see DatabaseMetrics.report.
+ * Implement it to send the metrics somewhere other than the console or JMX.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public interface MetricsReporter
+{
+    /*
+     * Called once for each timed operation
+     * 
+     * Takes as arguments:
+     *  @param - operation - name of the operation, such as search.title or save
+     *  @param - latencies - how long each call of the operation took, in nanoseconds
+     */
+    void reportLatency(String operation, LatencyHistogram latencies);
+    
+    // Called once for each counter, such as the rows scanned by title searches
+    void reportCounter(String name, long value);
+}
@@ -14,6 +14,9 @@ public class Movie
     private String director;
     private ArrayList<String> actors;
     private int rating;
+    private MovieOwner owner;   // database this movie is stored in, told about changes so it can keep its indexes up to date
+    private int id;             // id given to the movie by its database, used in the database's indexes
+    private int generation;     // how many times the database had been cleared when it made this movie, see ColumnarDatabase and OffHeapDatabase
     
     /**
      *  Constructor for objects of class Movie with provided movie fields
@@ -75,6 +78,87 @@ public class Movie
         System.out.print("\n\n");
     }
     
+    // Database this movie has been added to, null if it is not in a database
+    MovieOwner getOwner()
+    {
+        return owner;
+    }
+    
+    // Called by the database when the movie is added to or removed from it
+    void setOwner(MovieOwner newOwner)
+    {
+        owner = newOwner;
+    }
+    
+    /*
+     * Id of the movie in its database. Ids are given out in order as movies are loaded or added, stay
+     * the same while the movie is in the database and are never reused, see Database.deleteMovieWithId.
+     * Text and snapshot files don't store ids, so a movie loaded again in a later run can get a
+     * different id: ids are only stable within one run of the program.
+     */
+    public int getId()
+    {
+        return id;
+    }
+    
+    // Called by the database when the movie is added to give it an id
+    void setId(int newId)
+    {
+        id = newId;
+    }
+    
+    // Databases that make views of their rows stamp each view so they can tell views made before a clearAll
+    int getGeneration()
+    {
+        return generation;
+    }
+    
+    void setGeneration(int newGeneration)
+    {
+        generation = newGeneration;
+    }
+    
+    /*
+     * Replace the director and actor names with the dictionary's shared copies. The names are equal
+     * so the owning database's indexes don't change and it isn't told.
+     */
+    void internNames(NameDictionary dictionary)
+    {
+        director = dictionary.intern(director);
+        for (int i = 0; i < actors.size(); i++)
+        {
+            actors.set(i, dictionary.intern(actors.get(i)));
+        }
+    }
+    
+    // Give back the director and actor names interned by internNames, once the movie no longer uses them
+    void releaseNames(NameDictionary dictionary)
+    {
+        dictionary.release(director);
+        for (int i = 0; i < actors.size(); i++)
+        {
+            dictionary.release(actors.get(i));
+        }
+    }
+    
+    // Tell the owning database a field is about to change so it can take the movie out of its indexes
+    private void movieUpdating()
+    {
+        if (owner != null)
+        {
+            owner.movieUpdating(this);
+        }
+    }
+    
+    // Tell the owning database a field has changed so it can put the movie back into its indexes
+    private void movieUpdated()
+    {
+        if (owner != null)
+        {
+            owner.movieUpdated(this);
+        }
+    }
+    
     public ArrayList<String> getActors()
     {
         return actors;
@@ -110,6 +194,7 @@ public class Movie
             throw new IllegalArgumentException("Must have at least one non-blank actor to set");
         }
         
+        movieUpdating();
         actors = new ArrayList<String>();
         if (actor1.trim().length() > 0)
         {
@@ -123,6 +208,7 @@ public class Movie
         {
             actors.add(actor3);
         }
+        movieUpdated();
     }
     
     /*
@@ -139,7 +225,9 @@ public class Movie
             throw new IllegalArgumentException("Director to set must not be blank\n");
         }
         
+        movieUpdating();
         director = newDirector;
+        movieUpdated();
     }
     
     /*
@@ -156,7 +244,9 @@ public class Movie
             throw new IllegalArgumentException("Rating must be between 1 and 10\n");
         }
         
+        movieUpdating();
         rating = newRating;
+        movieUpdated();
     }
     
     /*
@@ -173,6 +263,8 @@ public class Movie
             throw new IllegalArgumentException("Title to set must not be blank\n");
         }
         
+        movieUpdating();
         title = newTitle;
+        movieUpdated();
     }
 }
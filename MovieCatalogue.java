@@ -0,0 +1,40 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MovieCatalogue is the set of operations every movie database supports, whichever way it stores
+ * its movies: loading, saving, adding, deleting and searching. Database is the standard
+ * implementation, the others trade features for memory use or thread safety.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public interface MovieCatalogue
+{
+    // Load movies from a text file and add them, lines that can't be read are available from getLoadErrors
+    void loadDatabaseFromFile(String filename);
+    
+    // Load movies from a text file, reading it the way the LoadMode says
+    void loadDatabaseFromFile(String filename, LoadMode mode);
+    
+    // Lines rejected by the last load, with their line numbers
+    List<LoadError> getLoadErrors();
+    
+    // Every movie, in the order they were added
+    List<Movie> getAllMovies();
+    
+    // Add a movie, throws a NullPointerException if object in argument is not set
+    void addMovie(Movie newMovie);
+    
+    // Delete a specific movie, movies that are not in this catalogue are ignored
+    void deleteMovie(Movie movieToDelete);
+    
+    // Delete every movie
+    void clearAll();
+    
+    // Search by title, director or favourite rating, see Database.searchForMovie
+    ArrayList<Movie> searchForMovie(String searchString, String searchKey, int minRating);
+    
+    // Save every movie to a text file, replacing it if it exists
+    void saveMoviesToFile(String filename);
+}
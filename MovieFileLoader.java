@@ -0,0 +1,436 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * MovieFileLoader reads movie text files into a Database, or any other MovieCatalogue. The file is read in large blocks and
+ * each line is handed to a MovieRecordParser, lines that can't be parsed are collected as
+ * LoadError objects rather than stopping the load.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class MovieFileLoader
+{
+    private static final int BLOCK_SIZE = 1 << 16;
+    // Parallel loads split the file into chunks between these sizes, a chunk is read into one byte array
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    // Mapped loads map the file in windows of this size, a single mapping can't be larger than 2GB
+    private static final long MAP_WINDOW_SIZE = 1 << 30;
+    
+    /*
+     * Read every movie in a file and add it to the database, one line at a time in file order
+     * 
+     * Takes as arguments:
+     *      filename  - file to read movies from
+     *      catalogue - database the movies are added to
+     *      errors    - list a LoadError is added to for every line that was rejected
+     *      
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException if there is an error reading the file
+     */
+    public static void loadStreaming(String filename, MovieCatalogue catalogue, ArrayList<LoadError> errors) throws IOException
+    {
+        FileInputStream in = new FileInputStream(filename);
+        try
+        {
+            MovieRecordParser parser = new MovieRecordParser();
+            byte[] block = new byte[BLOCK_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(block);
+            int filled = 0;     // number of bytes in block that hold file data
+            int scanFrom = 0;   // bytes before this position are known not to hold a newline
+            int lineNumber = 0;
+            
+            while (true)
+            {
+                int read = in.read(block, filled, block.length - filled);
+                if (read < 0)
+                {
+                    break;
+                }
+                filled += read;
+                
+                // Parse every complete line in the block
+                int lineStart = 0;
+                for (int i = scanFrom; i < filled; i++)
+                {
+                    if (block[i] == '\n')
+                    {
+                        lineNumber++;
+                        Movie movie = parser.parseLine(buffer, lineStart, i, lineNumber, errors);
+                        if (movie != null)
+                        {
+                            catalogue.addMovie(movie);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                
+                // Move the unfinished last line to the front of the block, growing it if the line fills it
+                int remaining = filled - lineStart;
+                if (remaining == block.length)
+                {
+                    byte[] bigger = new byte[block.length * 2];
+                    System.arraycopy(block, 0, bigger, 0, remaining);
+                    block = bigger;
+                    buffer = ByteBuffer.wrap(block);
+                }
+                else
+                {
+                    System.arraycopy(block, lineStart, block, 0, remaining);
+                }
+                filled = remaining;
+                scanFrom = remaining;
+            }
+            
+            // The last line of the file may not end with a newline
+            if (filled > 0)
+            {
+                lineNumber++;
+                Movie movie = parser.parseLine(buffer, 0, filled, lineNumber, errors);
+                if (movie != null)
+                {
+                    catalogue.addMovie(movie);
+                }
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+    
+    /*
+     * Read every movie in a file and add it to the database by mapping the file into memory.
+     * Lines are scanned directly in the mapped pages, so file data is not copied through any
+     * reader buffers, and only the fields of valid lines are copied out when Strings are made.
+     * Files larger than a mapping window are mapped one window at a time, each window ending on a newline.
+     * 
+     * Takes as arguments:
+     *      filename  - file to read movies from
+     *      catalogue - database the movies are added to
+     *      errors    - list a LoadError is added to for every line that was rejected
+     *      
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException if there is an error reading the file
+     */
+    public static void loadMapped(String filename, MovieCatalogue catalogue, ArrayList<LoadError> errors) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            MovieRecordParser parser = new MovieRecordParser();
+            long size = channel.size();
+            long windowStart = 0;
+            long windowSize = MAP_WINDOW_SIZE;
+            int lineNumber = 0;
+            
+            while (windowStart < size)
+            {
+                int length = (int) Math.min(size - windowStart, windowSize);
+                boolean lastWindow = windowStart + length == size;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                
+                int lineStart = 0;
+                for (int i = 0; i < length; i++)
+                {
+                    if (buffer.get(i) == '\n')
+                    {
+                        lineNumber++;
+                        addMovie(parser.parseLine(buffer, lineStart, i, lineNumber, errors), catalogue);
+                        lineStart = i + 1;
+                    }
+                }
+                
+                if (lastWindow)
+                {
+                    if (lineStart < length)  // the last line of the file may not end with a newline
+                    {
+                        lineNumber++;
+                        addMovie(parser.parseLine(buffer, lineStart, length, lineNumber, errors), catalogue);
+                    }
+                    break;
+                }
+                if (lineStart == 0)
+                {
+                    // No newline in the whole window, map a bigger one from the same place
+                    windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+                }
+                windowStart += lineStart;  // the next window starts at the unfinished line
+            }
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+    
+    private static void addMovie(Movie movie, MovieCatalogue catalogue)
+    {
+        if (movie != null)
+        {
+            catalogue.addMovie(movie);
+        }
+    }
+    
+    /*
+     * Read every movie in a file and add it to the database, parsing the file on all cores.
+     * The file is split into chunks that end on a newline, each chunk is parsed into its own list
+     * on the common ForkJoinPool and the lists are then added to the database in file order.
+     * The database ends up the same as after loadStreaming, with the same errors reported.
+     * 
+     * Takes as arguments:
+     *      filename  - file to read movies from
+     *      catalogue - database the movies are added to
+     *      errors    - list a LoadError is added to for every line that was rejected
+     *      
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException if there is an error reading the file
+     */
+    public static void loadParallel(String filename, MovieCatalogue catalogue, ArrayList<LoadError> errors) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            ArrayList<Long> boundaries = findChunkBoundaries(channel, ForkJoinPool.getCommonPoolParallelism());
+            
+            // Every task is made before any runs, so a failing chunk sees all its siblings to cancel
+            ArrayList<ChunkTask> tasks = new ArrayList<ChunkTask>();
+            for (int i = 0; i + 1 < boundaries.size(); i++)
+            {
+                tasks.add(new ChunkTask(channel, boundaries.get(i), boundaries.get(i + 1), tasks));
+            }
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                ForkJoinPool.commonPool().execute(tasks.get(i));
+            }
+            
+            // Join the chunks in file order so movies are added and lines are numbered as a sequential load would
+            int linesBefore = 0;
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                ChunkResult result;
+                try
+                {
+                    result = tasks.get(i).join();
+                }
+                catch (RuntimeException e)
+                {
+                    rethrowChunkFailure(tasks, e);
+                    return;
+                }
+                
+                for (int j = 0; j < result.movies.size(); j++)
+                {
+                    catalogue.addMovie(result.movies.get(j));
+                }
+                for (int j = 0; j < result.errors.size(); j++)
+                {
+                    LoadError error = result.errors.get(j);
+                    errors.add(new LoadError(linesBefore + error.getLineNumber(), error.getMessage()));
+                }
+                linesBefore += result.lineCount;
+            }
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+    
+    /*
+     * Cancel the chunks that haven't started and throw the failure that stopped the load. A chunk
+     * cancelled by a failing sibling can be joined before the sibling is, so then the first real
+     * failure is found among the other chunks.
+     * 
+     * Takes as arguments:
+     *      tasks       - every chunk of the load
+     *      joinFailure - exception joining a chunk threw
+     *      
+     * @throws IOException if a chunk could not be read
+     */
+    private static void rethrowChunkFailure(ArrayList<ChunkTask> tasks, RuntimeException joinFailure) throws IOException
+    {
+        Throwable failure = joinFailure;
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            tasks.get(i).cancel(false);
+        }
+        if (joinFailure instanceof CancellationException)
+        {
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                tasks.get(i).quietlyJoin();
+                Throwable thrown = tasks.get(i).getException();
+                if (thrown != null && !(thrown instanceof CancellationException))
+                {
+                    failure = thrown;
+                    break;
+                }
+            }
+        }
+        if (failure instanceof UncheckedIOException)
+        {
+            throw ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException) failure;
+        }
+        throw joinFailure;
+    }
+    
+    /*
+     * Work out where each chunk of a parallel load starts, every chunk but the last ends just after a newline.
+     * 
+     * Returns the chunk start positions followed by the file size
+     */
+    private static ArrayList<Long> findChunkBoundaries(FileChannel channel, int parallelism) throws IOException
+    {
+        long size = channel.size();
+        long chunkCount = Math.max(1, Math.min(parallelism * 4L, size / MIN_CHUNK_SIZE));
+        chunkCount = Math.max(chunkCount, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        
+        ArrayList<Long> boundaries = new ArrayList<Long>();
+        boundaries.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        for (long i = 1; i < chunkCount; i++)
+        {
+            long position = Math.max(size * i / chunkCount, boundaries.get(boundaries.size() - 1));
+            long boundary = size;
+            
+            // Read forward from the split point until a newline is found, the chunk ends after it
+            while (position < size && boundary == size)
+            {
+                window.clear();
+                int read = channel.read(window, position);
+                if (read < 0)
+                {
+                    break;
+                }
+                for (int j = 0; j < read; j++)
+                {
+                    if (window.get(j) == '\n')
+                    {
+                        boundary = position + j + 1;
+                        break;
+                    }
+                }
+                position += read;
+            }
+            
+            if (boundary >= size)
+            {
+                break;
+            }
+            if (boundary > boundaries.get(boundaries.size() - 1))
+            {
+                boundaries.add(boundary);
+            }
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+    
+    // Movies and errors parsed from one chunk, line numbers in the errors count from the start of the chunk
+    private static class ChunkResult
+    {
+        ArrayList<Movie> movies = new ArrayList<Movie>();
+        ArrayList<LoadError> errors = new ArrayList<LoadError>();
+        int lineCount;
+    }
+    
+    // Reads one chunk of the file and parses it with its own MovieRecordParser, a chunk that fails cancels the others
+    private static class ChunkTask extends RecursiveTask<ChunkResult>
+    {
+        private static final long serialVersionUID = 1L;
+        
+        private transient FileChannel channel;
+        private long start;
+        private long end;
+        private transient ArrayList<ChunkTask> siblings;
+        
+        ChunkTask(FileChannel fileChannel, long chunkStart, long chunkEnd, ArrayList<ChunkTask> allChunks)
+        {
+            channel = fileChannel;
+            start = chunkStart;
+            end = chunkEnd;
+            siblings = allChunks;
+        }
+        
+        protected ChunkResult compute()
+        {
+            try
+            {
+                return parseChunk();
+            }
+            catch (RuntimeException e)
+            {
+                // Chunks already running finish, the rest of the load is no use once one chunk has failed
+                for (int i = 0; i < siblings.size(); i++)
+                {
+                    siblings.get(i).cancel(false);
+                }
+                throw e;
+            }
+        }
+        
+        private ChunkResult parseChunk()
+        {
+            ChunkResult result = new ChunkResult();
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            try
+            {
+                while (buffer.hasRemaining())
+                {
+                    if (channel.read(buffer, start + buffer.position()) < 0)
+                    {
+                        throw new IOException("File changed while it was being read");
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            
+            MovieRecordParser parser = new MovieRecordParser();
+            int length = buffer.position();
+            int lineStart = 0;
+            for (int i = 0; i < length; i++)
+            {
+                if (buffer.get(i) == '\n')
+                {
+                    addLine(parser, buffer, lineStart, i, result);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < length)  // only the last chunk can end without a newline
+            {
+                addLine(parser, buffer, lineStart, length, result);
+            }
+            return result;
+        }
+        
+        private static void addLine(MovieRecordParser parser, ByteBuffer buffer, int lineStart, int lineEnd, ChunkResult result)
+        {
+            result.lineCount++;
+            Movie movie = parser.parseLine(buffer, lineStart, lineEnd, result.lineCount, result.errors);
+            if (movie != null)
+            {
+                result.movies.add(movie);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * MovieFileWriter writes movies to a text file in the format read by MovieFileLoader, one movie per line:
+ *    title,director,actor1,actor2,actor3,rating
+ * 
+ * Files are written to a temporary file next to the target which is renamed over the target once
+ * everything has been written and flushed to disk, so a crash part way through a save leaves the
+ * previous file untouched.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class MovieFileWriter
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /*
+     * Write all movies to a file, replacing it if it already exists
+     * 
+     * Takes as arguments:
+     *      filename - file to write to, if file does not exist it will be created
+     *      movies   - movies to write, in the order they should appear in the file
+     *      
+     * @throws IOException if there is error writing to file, the existing file is left unchanged
+     */
+    public static void saveAtomically(String filename, Iterable<Movie> movies) throws IOException
+    {
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = temporaryFileFor(target);
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        boolean written = false;
+        try
+        {
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+            ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+            StringBuilder line = new StringBuilder();  // reused for every movie
+            
+            Iterator<Movie> it = movies.iterator();
+            while (it.hasNext())
+            {
+                line.setLength(0);
+                appendRecord(line, it.next());
+                
+                // Encode the line into the output buffer, writing the buffer out whenever it fills up
+                CharBuffer in = CharBuffer.wrap(line);
+                CoderResult result = encoder.encode(in, out, false);
+                while (result.isOverflow())
+                {
+                    writeFully(channel, out);
+                    result = encoder.encode(in, out, false);
+                }
+                if (result.isError())
+                {
+                    result.throwException();
+                }
+            }
+            writeFully(channel, out);
+            channel.force(true);
+            written = true;
+        }
+        finally
+        {
+            channel.close();
+            if (!written)
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+        
+        replaceAtomically(temp, target);
+    }
+    
+    /*
+     * Append one movie to a StringBuilder as a line of the text format, including the newline
+     */
+    public static void appendRecord(StringBuilder line, Movie movie)
+    {
+        line.append(movie.getTitle()).append(',');
+        line.append(movie.getDirector()).append(',');
+        
+        // There are always three actor fields, the ones a movie doesn't have are left empty
+        ArrayList<String> actors = movie.getActors();
+        for (int i = 0; i < 3; i++)
+        {
+            if (i < actors.size())
+            {
+                line.append(actors.get(i));
+            }
+            line.append(',');
+        }
+        line.append(movie.getRating()).append('\n');
+    }
+    
+    // Temporary file a save to target is written to before it is renamed
+    static Path temporaryFileFor(Path target)
+    {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+    
+    /*
+     * Rename a fully written temporary file over the target. The rename is atomic where the file
+     * system supports it so readers see either the old file or the new one.
+     */
+    static void replaceAtomically(Path temp, Path target) throws IOException
+    {
+        try
+        {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    // Write everything in the buffer to the channel and empty the buffer
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,468 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovieHttpServer answers searches and changes to a ConcurrentDatabase over HTTP, with JSON
+ * responses:
+ * 
+ *    GET    /movies/search?key=title|director&q=<text>[&offset=][&limit=]
+ *    GET    /movies/favourites?min=<rating>[&offset=][&limit=]     highest rated first
+ *    POST   /movies    {"title":"...","director":"...","actors":["..."],"rating":7}
+ *    DELETE /movies?title=<title>
+ * 
+ * Searches return {"count":n,"movies":[...]}, where count is the number of movies matching the
+ * search and movies holds just the requested page of them. An add returns the new movie with status
+ * 201 or status 409 if the title is already taken, and a delete returns {"deleted":n}. Bad requests
+ * get status 400 with {"error":"..."}.
+ * 
+ * Each request is handled on its own virtual thread when the JVM has them (Java 21 on), so
+ * thousands of slow clients don't need thousands of platform threads. Older JVMs fall back to a
+ * fixed pool of threads with a bounded queue, and requests that arrive when the queue is full get
+ * status 503 straight away rather than piling up.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class MovieHttpServer
+{
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10000;
+    private static final int MAX_BODY_SIZE = 1 << 16;
+    private static final int BACKLOG = 4096;  // pending connections the socket will queue
+    // Size of the thread pool used when there are no virtual threads, and how many requests can wait for it
+    private static final int POOL_THREADS = 64;
+    private static final int MAX_QUEUED_REQUESTS = 1024;
+    
+    // Set while a request the pool had no room for is run on the server's own thread, so it is only turned away
+    private static final ThreadLocal<Boolean> OVERLOADED = new ThreadLocal<Boolean>();
+    
+    private ConcurrentDatabase catalogue;
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+    private boolean virtualThreads;
+    
+    /**
+     * Constructor for objects of class MovieHttpServer, the server is not started until start is called
+     * 
+     * @param - database - movies that are searched and changed
+     * @param - port - port to listen on, 0 picks any free port
+     * 
+     * @throws IOException if the port can not be bound
+     */
+    public MovieHttpServer(ConcurrentDatabase database, int port) throws IOException
+    {
+        // The JDK server writes headers and body separately, without TCP_NODELAY every small response
+        // waits about 40ms for the client's delayed ACK. The setting is read once, when the first server
+        // in the JVM is made, and is left alone if it has been set already.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+        {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        
+        catalogue = database;
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/movies/search", new SearchHandler());
+        server.createContext("/movies/favourites", new FavouritesHandler());
+        server.createContext("/movies", new MoviesHandler());
+        
+        requestExecutor = newVirtualThreadExecutor();
+        virtualThreads = (requestExecutor != null);
+        if (requestExecutor == null)
+        {
+            requestExecutor = newBoundedExecutor();
+        }
+        server.setExecutor(requestExecutor);
+    }
+    
+    public void start()
+    {
+        server.start();
+    }
+    
+    // Stop accepting requests, waiting up to delaySeconds for requests being handled to finish
+    public void stop(int delaySeconds)
+    {
+        server.stop(delaySeconds);
+        requestExecutor.shutdown();
+        try
+        {
+            requestExecutor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // The port the server is listening on, useful when it was created with port 0
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+    
+    // True if requests are handled on virtual threads rather than a thread pool
+    public boolean isUsingVirtualThreads()
+    {
+        return virtualThreads;
+    }
+    
+    /*
+     * Serve a movie file over HTTP until the process is stopped:
+     *    java MovieHttpServer [port] [movie file]
+     * The port defaults to 8080 and the movie file to myvideos.txt.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 8080;
+        String filename = (args.length > 1) ? args[1] : "myvideos.txt";
+        
+        ConcurrentDatabase database = new ConcurrentDatabase();
+        database.loadDatabaseFromFile(filename);
+        List<LoadError> errors = database.getLoadErrors();
+        for (int i = 0; i < errors.size(); i++)
+        {
+            System.out.print(errors.get(i) + "\n");
+        }
+        
+        MovieHttpServer movieServer = new MovieHttpServer(database, port);
+        movieServer.start();
+        System.out.print("Serving " + filename + " on port " + movieServer.getPort()
+            + (movieServer.isUsingVirtualThreads() ? " with virtual threads\n" : " with a thread pool\n"));
+    }
+    
+    // Executors.newVirtualThreadPerTaskExecutor if this JVM has it, otherwise null
+    private static ExecutorService newVirtualThreadExecutor()
+    {
+        try
+        {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;  // before Java 21, or a preview build without --enable-preview
+        }
+    }
+    
+    /*
+     * A fixed pool of threads with a bounded queue. A request that doesn't fit is run on the server's
+     * dispatcher thread instead, where JsonHandler answers it with status 503 without doing any work.
+     * The turned away request is still read in full there, so while the pool is full a client that is
+     * slow to send its request holds up new connections until it has.
+     */
+    private static ExecutorService newBoundedExecutor()
+    {
+        return new ThreadPoolExecutor(POOL_THREADS, POOL_THREADS, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(MAX_QUEUED_REQUESTS), new RejectedExecutionHandler()
+            {
+                public void rejectedExecution(Runnable request, ThreadPoolExecutor executor)
+                {
+                    OVERLOADED.set(Boolean.TRUE);
+                    try
+                    {
+                        request.run();
+                    }
+                    finally
+                    {
+                        OVERLOADED.remove();
+                    }
+                }
+            });
+    }
+    
+    /**
+     * SearchHandler handles GET /movies/search
+     */
+    private class SearchHandler extends JsonHandler
+    {
+        protected void handle(HttpExchange exchange, HashMap<String, String> parameters) throws IOException
+        {
+            if (!exchange.getRequestMethod().equals("GET"))
+            {
+                sendMethodNotAllowed(exchange, "GET");
+                return;
+            }
+            String searchKey = parameters.containsKey("key") ? parameters.get("key") : "title";
+            if (!(searchKey.equals("title") || searchKey.equals("director")))
+            {
+                throw new IllegalArgumentException("key must be title or director\n");
+            }
+            String searchString = parameters.get("q");
+            if (searchString == null || searchString.trim().length() == 0)
+            {
+                throw new IllegalArgumentException("q must be given\n");
+            }
+            
+            ArrayList<Movie> movies = catalogue.findMovies(searchString, searchKey, 0, SortKey.INSERTION,
+                intParameter(parameters, "offset", 0), limitParameter(parameters));
+            sendMovies(exchange, catalogue.countMovies(searchString, searchKey, 0), movies);
+        }
+    }
+    
+    /**
+     * FavouritesHandler handles GET /movies/favourites
+     */
+    private class FavouritesHandler extends JsonHandler
+    {
+        protected void handle(HttpExchange exchange, HashMap<String, String> parameters) throws IOException
+        {
+            if (!exchange.getRequestMethod().equals("GET"))
+            {
+                sendMethodNotAllowed(exchange, "GET");
+                return;
+            }
+            int minRating = intParameter(parameters, "min", 1);
+            if (minRating < 1 || minRating > 10)
+            {
+                throw new IllegalArgumentException("min should be between 1 and 10\n");
+            }
+            
+            ArrayList<Movie> movies = catalogue.findMovies("", "favourite", minRating, SortKey.RATING,
+                intParameter(parameters, "offset", 0), limitParameter(parameters));
+            sendMovies(exchange, catalogue.countMovies("", "favourite", minRating), movies);
+        }
+    }
+    
+    /**
+     * MoviesHandler handles POST and DELETE /movies
+     */
+    private class MoviesHandler extends JsonHandler
+    {
+        protected void handle(HttpExchange exchange, HashMap<String, String> parameters) throws IOException
+        {
+            if (!exchange.getRequestURI().getPath().equals("/movies"))
+            {
+                sendJson(exchange, 404, errorJson("No such resource\n"));
+            }
+            else if (exchange.getRequestMethod().equals("POST"))
+            {
+                Movie movie = movieFrom(Json.parseObject(readBody(exchange)));
+                if (!catalogue.addMovieWithNewTitle(movie))
+                {
+                    sendJson(exchange, 409, errorJson("A movie with that title already exists\n"));
+                    return;
+                }
+                StringBuilder json = new StringBuilder();
+                Json.appendMovie(json, movie);
+                sendJson(exchange, 201, json.toString());
+            }
+            else if (exchange.getRequestMethod().equals("DELETE"))
+            {
+                String title = parameters.get("title");
+                if (title == null || title.trim().length() == 0)
+                {
+                    throw new IllegalArgumentException("title must be given\n");
+                }
+                int deleted = catalogue.deleteMoviesWithTitle(title);
+                sendJson(exchange, (deleted == 0) ? 404 : 200, "{\"deleted\":" + deleted + "}");
+            }
+            else
+            {
+                sendMethodNotAllowed(exchange, "POST, DELETE");
+            }
+        }
+        
+        // Build a movie from a request body, the Movie constructor checks the fields
+        private Movie movieFrom(HashMap<String, Object> fields)
+        {
+            String[] actors = { "", "", "" };
+            Object actorList = fields.get("actors");
+            if (actorList != null)
+            {
+                if (!(actorList instanceof ArrayList) || ((ArrayList<?>) actorList).size() > 3)
+                {
+                    throw new IllegalArgumentException("actors must be a list of at most 3 names\n");
+                }
+                ArrayList<?> names = (ArrayList<?>) actorList;
+                for (int i = 0; i < names.size(); i++)
+                {
+                    actors[i] = (String) names.get(i);
+                }
+            }
+            if (!(fields.get("rating") instanceof Long))
+            {
+                throw new IllegalArgumentException("rating must be a whole number\n");
+            }
+            long rating = (Long) fields.get("rating");
+            if (rating < 1 || rating > 10)
+            {
+                throw new IllegalArgumentException("rating should be between 1 and 10\n");
+            }
+            
+            try
+            {
+                return new Movie(stringField(fields, "title"), stringField(fields, "director"), actors[0], actors[1], actors[2], (int) rating);
+            }
+            catch (IllegalStateException e)
+            {
+                throw new IllegalArgumentException(e.getMessage());
+            }
+        }
+        
+        private String stringField(HashMap<String, Object> fields, String name)
+        {
+            Object value = fields.get(name);
+            if (!(value instanceof String))
+            {
+                throw new IllegalArgumentException(name + " must be a string\n");
+            }
+            return (String) value;
+        }
+    }
+    
+    /**
+     * JsonHandler decodes the query parameters of a request, and turns the IllegalArgumentException
+     * thrown for a bad request into a 400 response. Requests the thread pool had no room for get a
+     * 503 response, and any other exception is logged and gets a 500 response.
+     */
+    private abstract class JsonHandler implements HttpHandler
+    {
+        protected abstract void handle(HttpExchange exchange, HashMap<String, String> parameters) throws IOException;
+        
+        public void handle(HttpExchange exchange) throws IOException
+        {
+            try
+            {
+                if (OVERLOADED.get() != null)
+                {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    sendJson(exchange, 503, errorJson("Server is busy, try again later\n"));
+                    return;
+                }
+                handle(exchange, queryParameters(exchange.getRequestURI().getRawQuery()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                sendJson(exchange, 400, errorJson(e.getMessage()));
+            }
+            catch (RuntimeException e)
+            {
+                System.out.print("Unexpected error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + "\n");
+                e.printStackTrace(System.out);
+                sendJson(exchange, 500, errorJson("Unexpected error\n"));
+            }
+            finally
+            {
+                exchange.close();
+            }
+        }
+    }
+    
+    private static HashMap<String, String> queryParameters(String rawQuery) throws UnsupportedEncodingException
+    {
+        HashMap<String, String> parameters = new HashMap<String, String>();
+        if (rawQuery == null)
+        {
+            return parameters;
+        }
+        String[] pairs = rawQuery.split("&");
+        for (int i = 0; i < pairs.length; i++)
+        {
+            int equals = pairs[i].indexOf('=');
+            if (equals > 0)
+            {
+                parameters.put(URLDecoder.decode(pairs[i].substring(0, equals), "UTF-8"),
+                    URLDecoder.decode(pairs[i].substring(equals + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+    
+    private static int intParameter(HashMap<String, String> parameters, String name, int defaultValue)
+    {
+        String value = parameters.get(name);
+        if (value == null)
+        {
+            return defaultValue;
+        }
+        try
+        {
+            int number = Integer.parseInt(value.trim());
+            if (number < 0)
+            {
+                throw new IllegalArgumentException(name + " must not be negative\n");
+            }
+            return number;
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException(name + " must be a whole number\n");
+        }
+    }
+    
+    // Pages are capped so one request can't ask for the whole database
+    private static int limitParameter(HashMap<String, String> parameters)
+    {
+        return Math.min(intParameter(parameters, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+    }
+    
+    private static String readBody(HttpExchange exchange) throws IOException
+    {
+        InputStream in = exchange.getRequestBody();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read = in.read(buffer);
+        while (read > 0)
+        {
+            body.write(buffer, 0, read);
+            if (body.size() > MAX_BODY_SIZE)
+            {
+                throw new IllegalArgumentException("Request body is too large\n");
+            }
+            read = in.read(buffer);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    // Send one page of the movies matching a search, with the number of movies that match
+    private static void sendMovies(HttpExchange exchange, int count, ArrayList<Movie> movies) throws IOException
+    {
+        StringBuilder json = new StringBuilder(64 + movies.size() * 128);
+        json.append("{\"count\":").append(count).append(",\"movies\":");
+        Json.appendMovies(json, movies);
+        json.append('}');
+        sendJson(exchange, 200, json.toString());
+    }
+    
+    private static void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException
+    {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendJson(exchange, 405, errorJson("Method not allowed\n"));
+    }
+    
+    private static String errorJson(String message)
+    {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        Json.appendString(json, message.trim());
+        return json.append('}').toString();
+    }
+    
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException
+    {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+}
@@ -0,0 +1,304 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * MovieJournal is an append-only log of the changes made to a Database since its movie file was last
+ * written. Every add and delete is appended as it happens, so a crash loses nothing, and on startup
+ * the journal is replayed over the movies loaded from the file.
+ * 
+ * Each entry is written as:
+ *    type (1 byte), payload length (4 bytes), payload, CRC32 of the type and payload (4 bytes)
+ * The payload of add and delete entries is the movie as a line of the text file format, clear
+ * entries have no payload. A partly written entry at the end of the journal, left by a crash
+ * during a write, fails its length or CRC check and is cut off when the journal is opened.
+ * 
+ * The first entry is a header holding the length and CRC32C of the movie file the journal was
+ * started against. If the movie file no longer matches it, the file was rewritten with the
+ * journal's changes but the program stopped before the journal was emptied, so the journal is
+ * emptied rather than replayed.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class MovieJournal
+{
+    // Types of journal entry
+    public static final byte ADD = 'A';
+    public static final byte DELETE = 'D';
+    public static final byte CLEAR = 'C';
+    private static final byte HEADER = 'H';
+    
+    private FileChannel channel;
+    private String movieFile;
+    private ArrayList<LoadError> replayErrors;
+    private int entryCount;
+    private StringBuilder line;  // reused to format each movie
+    private CRC32 crc;
+
+    /**
+     * Constructor for objects of class MovieJournal, opens the journal file creating it if it doesn't exist
+     * 
+     * @param - filename - journal file, entries are appended to the end of it
+     * @param - movieFilename - movie file the journal holds the changes to
+     * 
+     * @throws IOException if the file can not be opened
+     */
+    public MovieJournal(String filename, String movieFilename) throws IOException
+    {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        movieFile = movieFilename;
+        replayErrors = new ArrayList<LoadError>();
+        line = new StringBuilder();
+        crc = new CRC32();
+    }
+    
+    /*
+     * Apply every entry in the journal to the database, in the order they were written. The database
+     * should already hold the movies from the file the journal was started against. Every add is
+     * replayed, so identical movies added more than once are all there again, and a delete removes
+     * one movie with the same title, director, actors and rating.
+     * 
+     * If the movie file has been rewritten since the journal was started the journal's changes are
+     * already in it, so nothing is replayed and the journal is emptied. Entries that can't be turned
+     * back into a movie are skipped and can be read back with getReplayErrors.
+     * 
+     * Returns the number of entries replayed
+     * 
+     * @throws IOException if there is an error reading the journal or the movie file
+     */
+    public int replay(Database database) throws IOException
+    {
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        MovieRecordParser parser = new MovieRecordParser();
+        replayErrors = new ArrayList<LoadError>();
+        long goodLength = 0;
+        int replayed = 0;
+        boolean checkedHeader = false;
+        
+        while (true)
+        {
+            byte type;
+            byte[] payload;
+            try
+            {
+                type = in.readByte();
+                int length = in.readInt();
+                if (length < 0 || length > channel.size())
+                {
+                    break;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+                if (in.readInt() != checksum(type, payload, length))
+                {
+                    break;
+                }
+                goodLength += 9 + length;
+            }
+            catch (EOFException e)
+            {
+                break;
+            }
+            
+            if (!checkedHeader)
+            {
+                checkedHeader = true;
+                if (type == HEADER)
+                {
+                    if (!ByteBuffer.wrap(payload).equals(ByteBuffer.wrap(movieFileStamp())))
+                    {
+                        reset();  // the movie file already holds every change in the journal
+                        return 0;
+                    }
+                    continue;
+                }
+            }
+            
+            if (type == CLEAR)
+            {
+                database.clearAll();
+            }
+            else
+            {
+                int end = (payload.length > 0 && payload[payload.length - 1] == '\n') ? payload.length - 1 : payload.length;
+                Movie movie = parser.parseLine(ByteBuffer.wrap(payload), 0, end, replayed + 1, replayErrors);
+                if (movie != null)
+                {
+                    if (type == ADD)
+                    {
+                        database.addMovie(movie);
+                    }
+                    else if (type == DELETE)
+                    {
+                        Movie existing = findMatchingMovie(database, movie);
+                        if (existing != null)
+                        {
+                            database.deleteMovie(existing);
+                        }
+                    }
+                }
+            }
+            replayed++;
+        }
+        
+        if (goodLength == 0)
+        {
+            reset();  // a new journal, or one cut off before its header was written
+            return 0;
+        }
+        // Cut off anything after the last complete entry so new entries follow on from it
+        channel.truncate(goodLength);
+        channel.position(goodLength);
+        entryCount = replayed;
+        return replayed;
+    }
+    
+    // Entries the last replay skipped because they didn't hold a valid movie, numbered from 1 in journal order
+    public ArrayList<LoadError> getReplayErrors()
+    {
+        return replayErrors;
+    }
+    
+    /*
+     * Append an entry to the journal
+     * 
+     * Takes as arguments:
+     *      type  - ADD or DELETE for a movie added to or deleted from the database, CLEAR when it is cleared
+     *      movie - movie added or deleted, null for CLEAR
+     *      
+     * @throws IOException if the entry can not be written
+     */
+    public void record(byte type, Movie movie) throws IOException
+    {
+        append(type, movie);
+    }
+    
+    // Number of entries in the journal, the work a replay has to do
+    public int getEntryCount()
+    {
+        return entryCount;
+    }
+    
+    /*
+     * Empty the journal, called once the movie file has been rewritten with all the changes in it.
+     * The new header is written against the movie file as it is now.
+     */
+    public void reset() throws IOException
+    {
+        channel.truncate(0);
+        channel.position(0);
+        append(HEADER, movieFileStamp());
+        channel.force(true);
+        entryCount = 0;
+    }
+    
+    // Flush the journal to disk and close it
+    public void close() throws IOException
+    {
+        channel.force(true);
+        channel.close();
+    }
+    
+    /*
+     * Write one entry with a single write call. Entries go straight to the operating system so they
+     * survive the program crashing, they are only forced to disk on reset and close.
+     */
+    private void append(byte type, Movie movie) throws IOException
+    {
+        byte[] payload = new byte[0];
+        if (movie != null)
+        {
+            line.setLength(0);
+            MovieFileWriter.appendRecord(line, movie);
+            payload = line.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        append(type, payload);
+        entryCount++;
+    }
+        
+    private void append(byte type, byte[] payload) throws IOException
+    {
+        ByteBuffer entry = ByteBuffer.allocate(9 + payload.length);
+        entry.put(type);
+        entry.putInt(payload.length);
+        entry.put(payload);
+        entry.putInt(checksum(type, payload, payload.length));
+        entry.flip();
+        while (entry.hasRemaining())
+        {
+            channel.write(entry);
+        }
+    }
+    
+    // Length and CRC32C of the movie file as a header payload, a length of -1 if the file doesn't exist
+    private byte[] movieFileStamp() throws IOException
+    {
+        ByteBuffer stamp = ByteBuffer.allocate(12);
+        FileChannel movies;
+        try
+        {
+            movies = FileChannel.open(Paths.get(movieFile), StandardOpenOption.READ);
+        }
+        catch (NoSuchFileException e)
+        {
+            return stamp.putLong(-1L).putInt(0).array();
+        }
+        
+        CRC32C fileCrc = new CRC32C();
+        long length = 0;
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            while (movies.read(buffer) >= 0)
+            {
+                buffer.flip();
+                length += buffer.remaining();
+                fileCrc.update(buffer);
+                buffer.clear();
+            }
+        }
+        finally
+        {
+            movies.close();
+        }
+        return stamp.putLong(length).putInt((int) fileCrc.getValue()).array();
+    }
+    
+    private int checksum(byte type, byte[] payload, int length)
+    {
+        crc.reset();
+        crc.update(type);
+        crc.update(payload, 0, length);
+        return (int) crc.getValue();
+    }
+    
+    // Find a movie in the database with the same title, director, actors and rating, null if there is none
+    private static Movie findMatchingMovie(Database database, Movie movie)
+    {
+        ArrayList<Movie> sameTitle = database.searchForMovie(movie.getTitle(), "title", 0);
+        for (int i = 0; i < sameTitle.size(); i++)
+        {
+            Movie candidate = sameTitle.get(i);
+            if (candidate.getTitle().equals(movie.getTitle()) && candidate.getDirector().equals(movie.getDirector()) &&
+                candidate.getActors().equals(movie.getActors()) && candidate.getRating() == movie.getRating())
+            {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * MovieOwner is implemented by the classes that store Movie objects. A Movie tells its owner
+ * before and after one of its fields is changed so the owner can keep its indexes up to date.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+interface MovieOwner
+{
+    // Called by Movie before one of its fields is changed, while it still has its old values
+    void movieUpdating(Movie movie);
+    
+    // Called by Movie after one of its fields is changed
+    void movieUpdated(Movie movie);
+}
@@ -0,0 +1,313 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * MovieQuery describes a search over several movie fields that can be combined with AND and OR,
+ * for example movies with a given actor, directed by a given director and rated 8 or more:
+ * 
+ *    MovieQuery.and(MovieQuery.actor("Tom Hanks"), MovieQuery.director("Spielberg"), MovieQuery.minRating(8))
+ * 
+ * Text matches are exact and case-insensitive. Queries are run by Database.searchForMovies using the
+ * PostingIndex: an AND starts from the part matching the fewest movies and narrows that down, so it
+ * costs about the size of the smallest posting list rather than a scan of every movie.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public abstract class MovieQuery
+{
+    // Movies with this title
+    public static MovieQuery title(String title)
+    {
+        return new FieldQuery(FieldQuery.TITLE, title);
+    }
+    
+    // Movies with this director
+    public static MovieQuery director(String director)
+    {
+        return new FieldQuery(FieldQuery.DIRECTOR, director);
+    }
+    
+    // Movies with this actor as one of their actors
+    public static MovieQuery actor(String actor)
+    {
+        return new FieldQuery(FieldQuery.ACTOR, actor);
+    }
+    
+    // Movies rated at least minRating
+    public static MovieQuery minRating(int minRating)
+    {
+        return new RatingQuery(minRating);
+    }
+    
+    /*
+     * Movies matching every one of the queries
+     * 
+     * @throws IllegalArgumentException if no queries are given
+     */
+    public static MovieQuery and(MovieQuery... queries)
+    {
+        return new AndQuery(checkQueries(queries));
+    }
+    
+    /*
+     * Movies matching any of the queries
+     * 
+     * @throws IllegalArgumentException if no queries are given
+     */
+    public static MovieQuery or(MovieQuery... queries)
+    {
+        return new OrQuery(checkQueries(queries));
+    }
+    
+    // Most movies the query can match, used to pick the cheapest part of an AND to start from
+    abstract int estimateSize(PostingIndex index);
+    
+    // Ids of every movie matching the query, in ascending order
+    abstract PostingList evaluate(PostingIndex index);
+    
+    // Whether a single movie matches the query
+    abstract boolean matches(Movie movie);
+    
+    private static ArrayList<MovieQuery> checkQueries(MovieQuery[] queries)
+    {
+        if (queries.length == 0)
+        {
+            throw new IllegalArgumentException("Must provide at least one query\n");
+        }
+        for (int i = 0; i < queries.length; i++)
+        {
+            if (queries[i] == null)
+            {
+                throw new NullPointerException("Must provide valid query objects\n");
+            }
+        }
+        return new ArrayList<MovieQuery>(Arrays.asList(queries));
+    }
+    
+    // Exact case-insensitive match on the title, director or one of the actors
+    private static class FieldQuery extends MovieQuery
+    {
+        static final int TITLE = 0;
+        static final int DIRECTOR = 1;
+        static final int ACTOR = 2;
+        
+        private int field;
+        private String valueLower;
+        
+        FieldQuery(int queryField, String value)
+        {
+            field = queryField;
+            valueLower = value.toLowerCase();
+        }
+        
+        int estimateSize(PostingIndex index)
+        {
+            return postings(index).size();
+        }
+        
+        PostingList evaluate(PostingIndex index)
+        {
+            return postings(index).copy();
+        }
+        
+        boolean matches(Movie movie)
+        {
+            if (field == TITLE)
+            {
+                return movie.getTitle().toLowerCase().equals(valueLower);
+            }
+            if (field == DIRECTOR)
+            {
+                return movie.getDirector().toLowerCase().equals(valueLower);
+            }
+            ArrayList<String> actors = movie.getActors();
+            for (int i = 0; i < actors.size(); i++)
+            {
+                if (actors.get(i).toLowerCase().equals(valueLower))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        PostingList postings(PostingIndex index)
+        {
+            if (field == TITLE)
+            {
+                return index.titlePostings(valueLower);
+            }
+            if (field == DIRECTOR)
+            {
+                return index.directorPostings(valueLower);
+            }
+            return index.actorPostings(valueLower);
+        }
+    }
+    
+    // Rating at or above a minimum, answered from the per-rating posting lists
+    private static class RatingQuery extends MovieQuery
+    {
+        private int minRating;
+        
+        RatingQuery(int queryMinRating)
+        {
+            minRating = Math.max(1, queryMinRating);
+        }
+        
+        int estimateSize(PostingIndex index)
+        {
+            int size = 0;
+            for (int rating = minRating; rating <= 10; rating++)
+            {
+                size += index.ratingPostings(rating).size();
+            }
+            return size;
+        }
+        
+        PostingList evaluate(PostingIndex index)
+        {
+            PostingList result = new PostingList();
+            for (int rating = minRating; rating <= 10; rating++)
+            {
+                result = result.union(index.ratingPostings(rating));
+            }
+            return result;
+        }
+        
+        boolean matches(Movie movie)
+        {
+            return movie.getRating() >= minRating;
+        }
+    }
+    
+    /*
+     * All of several queries. The part with the smallest estimate is evaluated first, then exact field
+     * parts are intersected with its posting list and any other parts are checked movie by movie.
+     */
+    private static class AndQuery extends MovieQuery
+    {
+        private ArrayList<MovieQuery> queries;
+        
+        AndQuery(ArrayList<MovieQuery> andQueries)
+        {
+            queries = andQueries;
+        }
+        
+        int estimateSize(PostingIndex index)
+        {
+            int smallest = Integer.MAX_VALUE;
+            for (int i = 0; i < queries.size(); i++)
+            {
+                smallest = Math.min(smallest, queries.get(i).estimateSize(index));
+            }
+            return smallest;
+        }
+        
+        PostingList evaluate(final PostingIndex index)
+        {
+            ArrayList<MovieQuery> ordered = new ArrayList<MovieQuery>(queries);
+            Collections.sort(ordered, new Comparator<MovieQuery>()
+            {
+                public int compare(MovieQuery a, MovieQuery b)
+                {
+                    return Integer.compare(a.estimateSize(index), b.estimateSize(index));
+                }
+            });
+            
+            PostingList result = ordered.get(0).evaluate(index);
+            ArrayList<MovieQuery> checkEach = new ArrayList<MovieQuery>();
+            for (int i = 1; i < ordered.size() && !result.isEmpty(); i++)
+            {
+                MovieQuery query = ordered.get(i);
+                if (query instanceof FieldQuery)
+                {
+                    result = result.intersect(((FieldQuery) query).postings(index));
+                }
+                else
+                {
+                    checkEach.add(query);
+                }
+            }
+            if (checkEach.isEmpty() || result.isEmpty())
+            {
+                return result;
+            }
+            
+            // The remaining parts would be larger to evaluate than the movies left, so test each movie instead
+            PostingList filtered = new PostingList();
+            for (int i = 0; i < result.size(); i++)
+            {
+                Movie movie = index.movieWithId(result.get(i));
+                boolean allMatch = movie != null;  // null for a deleted movie not yet purged from the index
+                for (int j = 0; j < checkEach.size() && allMatch; j++)
+                {
+                    allMatch = checkEach.get(j).matches(movie);
+                }
+                if (allMatch)
+                {
+                    filtered.add(result.get(i));
+                }
+            }
+            return filtered;
+        }
+        
+        boolean matches(Movie movie)
+        {
+            for (int i = 0; i < queries.size(); i++)
+            {
+                if (!queries.get(i).matches(movie))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    // Any of several queries, the union of their posting lists
+    private static class OrQuery extends MovieQuery
+    {
+        private ArrayList<MovieQuery> queries;
+        
+        OrQuery(ArrayList<MovieQuery> orQueries)
+        {
+            queries = orQueries;
+        }
+        
+        int estimateSize(PostingIndex index)
+        {
+            long total = 0;
+            for (int i = 0; i < queries.size(); i++)
+            {
+                total += queries.get(i).estimateSize(index);
+            }
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        }
+        
+        PostingList evaluate(PostingIndex index)
+        {
+            PostingList result = queries.get(0).evaluate(index);
+            for (int i = 1; i < queries.size(); i++)
+            {
+                result = result.union(queries.get(i).evaluate(index));
+            }
+            return result;
+        }
+        
+        boolean matches(Movie movie)
+        {
+            for (int i = 0; i < queries.size(); i++)
+            {
+                if (queries.get(i).matches(movie))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
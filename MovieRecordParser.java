@@ -0,0 +1,166 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * MovieRecordParser turns one line of a movie file into a Movie object. Lines have the format:
+ *    title,director,actor1,actor2,actor3,rating
+ * 
+ * Fields after the rating are ignored, as they were when lines were split on commas, so files
+ * with extra columns still load. The line is scanned byte by byte for the commas, so no regex is
+ * compiled and no String array is created per line. Field bytes are only decoded into Strings when
+ * the Movie is built.
+ * A parser keeps reusable scratch arrays so each loading thread should use its own parser.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class MovieRecordParser
+{
+    public static final int FIELD_COUNT = 6;
+    
+    private int[] fieldStarts;
+    private int[] fieldEnds;
+    private byte[] scratch;  // used to copy field bytes out of buffers that have no backing array
+    
+    /**
+     * Constructor for objects of class MovieRecordParser
+     */
+    public MovieRecordParser()
+    {
+        fieldStarts = new int[FIELD_COUNT];
+        fieldEnds = new int[FIELD_COUNT];
+        scratch = new byte[256];
+    }
+    
+    /*
+     * Parse the line held in buffer between start (inclusive) and end (exclusive), end should be the
+     * position of the newline character or the end of the data. A trailing carriage return is ignored.
+     * 
+     * Takes as arguments:
+     *      buffer     - bytes of the file, UTF-8 encoded
+     *      start, end - absolute positions of the line in the buffer
+     *      lineNumber - line number used when reporting an error
+     *      errors     - list a LoadError is added to if the line can not be parsed
+     * 
+     * Returns the Movie described by the line, or null if the line is blank or was rejected
+     */
+    public Movie parseLine(ByteBuffer buffer, int start, int end, int lineNumber, ArrayList<LoadError> errors)
+    {
+        if (end > start && buffer.get(end - 1) == '\r')
+        {
+            end--;
+        }
+        if (end == start)
+        {
+            return null;  // blank lines are skipped without an error
+        }
+        
+        // Find where each comma separated field starts and ends
+        int fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++)
+        {
+            if (buffer.get(i) == ',')
+            {
+                if (fieldCount < FIELD_COUNT)
+                {
+                    fieldStarts[fieldCount] = fieldStart;
+                    fieldEnds[fieldCount] = i;
+                }
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+        if (fieldCount < FIELD_COUNT)
+        {
+            fieldStarts[fieldCount] = fieldStart;
+            fieldEnds[fieldCount] = end;
+        }
+        fieldCount++;
+        
+        if (fieldCount < FIELD_COUNT)
+        {
+            errors.add(new LoadError(lineNumber, "Expected " + FIELD_COUNT + " comma separated fields but found " + fieldCount));
+            return null;
+        }
+        
+        int rating = parseRating(buffer, fieldStarts[5], fieldEnds[5]);
+        if (rating < 0)
+        {
+            errors.add(new LoadError(lineNumber, "Rating is not a number"));
+            return null;
+        }
+        
+        try
+        {
+            return new Movie(decodeField(buffer, 0), decodeField(buffer, 1), decodeField(buffer, 2),
+                             decodeField(buffer, 3), decodeField(buffer, 4), rating);
+        }
+        catch (IllegalStateException e)
+        {
+            errors.add(new LoadError(lineNumber, e.getMessage()));
+            return null;
+        }
+    }
+    
+    /*
+     * Parse the rating field as a whole number, spaces either side of the digits are allowed.
+     * 
+     * Returns the rating, or -1 if the field is not a number
+     */
+    private static int parseRating(ByteBuffer buffer, int start, int end)
+    {
+        while (start < end && isSpace(buffer.get(start)))
+        {
+            start++;
+        }
+        while (end > start && isSpace(buffer.get(end - 1)))
+        {
+            end--;
+        }
+        if (start == end || end - start > 9)  // more than nine digits could overflow an int
+        {
+            return -1;
+        }
+        
+        int value = 0;
+        for (int i = start; i < end; i++)
+        {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9')
+            {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+    
+    private static boolean isSpace(byte b)
+    {
+        return b == ' ' || b == '\t';
+    }
+    
+    // Decode one of the fields found by parseLine into a String
+    private String decodeField(ByteBuffer buffer, int field)
+    {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length == 0)
+        {
+            return "";
+        }
+        if (buffer.hasArray())
+        {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        
+        if (scratch.length < length)
+        {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,402 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * MovieSnapshot saves and loads a Database in a compact binary format that is much quicker to
+ * read back than the text format. The file is laid out as:
+ * 
+ *    magic "MVDB", format version (1 byte)
+ *    number of names, then each name as a length prefixed UTF-8 string
+ *    number of movies, then for each movie:
+ *       title (length prefixed UTF-8), director name id, actor count (1 byte), actor name ids, rating (1 byte)
+ * 
+ * Directors and actors are stored once in the name table and referred to by id from each movie.
+ * Counts, lengths and ids are written as variable length integers, 7 bits per byte.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class MovieSnapshot
+{
+    private static final byte[] MAGIC = { 'M', 'V', 'D', 'B' };
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    /*
+     * Write all movies to a snapshot file, replacing it if it already exists. As with text saves
+     * the snapshot is written to a temporary file which is renamed over the target when complete.
+     * 
+     * @throws IOException if there is error writing to file, the existing file is left unchanged
+     */
+    public static void save(String filename, List<Movie> movies) throws IOException
+    {
+        // Build the name table first as it is written before the movies
+        NameDictionary names = new NameDictionary();
+        Iterator<Movie> it = movies.iterator();
+        while (it.hasNext())
+        {
+            Movie movie = it.next();
+            names.idOf(movie.getDirector());
+            ArrayList<String> actors = movie.getActors();
+            for (int i = 0; i < actors.size(); i++)
+            {
+                names.idOf(actors.get(i));
+            }
+        }
+        String[] nameTable = new String[names.size()];
+        for (int id = 0; id < nameTable.length; id++)
+        {
+            nameTable[id] = names.nameOf(id);
+        }
+        
+        Writer out = new Writer(filename, nameTable, movies.size());
+        boolean written = false;
+        try
+        {
+            int[] actorIds = new int[3];
+            it = movies.iterator();
+            while (it.hasNext())
+            {
+                Movie movie = it.next();
+                ArrayList<String> actors = movie.getActors();
+                for (int i = 0; i < actors.size(); i++)
+                {
+                    actorIds[i] = names.find(actors.get(i));
+                }
+                out.writeMovie(movie.getTitle(), names.find(movie.getDirector()), actorIds, actors.size(), movie.getRating());
+            }
+            out.close();
+            written = true;
+        }
+        finally
+        {
+            if (!written)
+            {
+                out.abandon();
+            }
+        }
+    }
+    
+    /*
+     * Read every movie in a snapshot file and add it to the database in the order they were saved
+     * 
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException if there is an error reading the file or it is not a valid snapshot
+     */
+    public static void load(String filename, MovieCatalogue catalogue) throws IOException
+    {
+        FileInputStream file = new FileInputStream(filename);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(file, BUFFER_SIZE));
+        try
+        {
+            // Every name, movie and string byte takes at least a byte of the file, so no count can be larger
+            long fileSize = file.getChannel().size();
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++)
+            {
+                if (magic[i] != MAGIC[i])
+                {
+                    throw new IOException("Not a movie snapshot file");
+                }
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION)
+            {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            
+            byte[] scratch = new byte[256];
+            int nameCount = readCount(in, fileSize, "name count");
+            String[] names = new String[nameCount];
+            for (int id = 0; id < nameCount; id++)
+            {
+                names[id] = readString(in, scratch, fileSize);
+            }
+            
+            int movieCount = readCount(in, fileSize, "movie count");
+            String[] actors = new String[3];
+            for (int m = 0; m < movieCount; m++)
+            {
+                String title = readString(in, scratch, fileSize);
+                String director = nameAt(names, readVarInt(in));
+                int actorCount = in.readUnsignedByte();
+                if (actorCount > 3)
+                {
+                    throw new IOException("Corrupt snapshot, movie " + (m + 1) + " has " + actorCount + " actors");
+                }
+                for (int i = 0; i < 3; i++)
+                {
+                    actors[i] = (i < actorCount) ? nameAt(names, readVarInt(in)) : "";
+                }
+                int rating = in.readUnsignedByte();
+                
+                try
+                {
+                    catalogue.addMovie(new Movie(title, director, actors[0], actors[1], actors[2], rating));
+                }
+                catch (IllegalStateException e)
+                {
+                    throw new IOException("Corrupt snapshot, movie " + (m + 1) + ": " + e.getMessage());
+                }
+            }
+        }
+        catch (EOFException e)
+        {
+            throw new IOException("Snapshot file is truncated");
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+    
+    /*
+     * Convert a text movie file into a snapshot file. Lines of the text file that are not valid
+     * movies are left out.
+     * 
+     * Returns the lines of the text file that were rejected
+     */
+    public static ArrayList<LoadError> convertTextToSnapshot(String textFilename, String snapshotFilename) throws IOException
+    {
+        Database database = new Database();
+        ArrayList<LoadError> errors = new ArrayList<LoadError>();
+        MovieFileLoader.loadStreaming(textFilename, database, errors);
+        save(snapshotFilename, database.getAllMovies());
+        return errors;
+    }
+    
+    // Convert a snapshot file into a text movie file
+    public static void convertSnapshotToText(String snapshotFilename, String textFilename) throws IOException
+    {
+        Database database = new Database();
+        load(snapshotFilename, database);
+        MovieFileWriter.saveAtomically(textFilename, database.getAllMovies());
+    }
+    
+    /*
+     * Convert between the text and snapshot formats from the command line:
+     *    java MovieSnapshot to-snapshot myvideos.txt myvideos.mvdb
+     *    java MovieSnapshot to-text myvideos.mvdb myvideos.txt
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length == 3 && args[0].equals("to-snapshot"))
+        {
+            ArrayList<LoadError> errors = convertTextToSnapshot(args[1], args[2]);
+            for (int i = 0; i < errors.size(); i++)
+            {
+                System.out.print(errors.get(i) + "\n");
+            }
+        }
+        else if (args.length == 3 && args[0].equals("to-text"))
+        {
+            convertSnapshotToText(args[1], args[2]);
+        }
+        else
+        {
+            System.out.print("Usage: java MovieSnapshot (to-snapshot <text file> <snapshot file> | to-text <snapshot file> <text file>)\n");
+        }
+    }
+    
+    /**
+     * Writer streams movies into a snapshot file one at a time, so a snapshot can be written without
+     * holding the movies in memory. The name table and the number of movies have to be known up
+     * front as they are written before the movies. Like save the file is written to a temporary
+     * file which replaces the target when the writer is closed.
+     */
+    public static class Writer
+    {
+        private Path target;
+        private Path temp;
+        private FileOutputStream file;
+        private DataOutputStream out;
+        private int nameCount;
+        private int remaining;
+        
+        /*
+         * Start a snapshot file
+         * 
+         * Takes as arguments:
+         *  @param - filename - snapshot file to write
+         *  @param - names - the name table, directors and actors are written as their index in it
+         *  @param - movieCount - number of movies that will be written
+         * 
+         * @throws IOException if the temporary file can not be created or written, it is deleted
+         */
+        public Writer(String filename, String[] names, int movieCount) throws IOException
+        {
+            target = Paths.get(filename).toAbsolutePath();
+            temp = MovieFileWriter.temporaryFileFor(target);
+            file = new FileOutputStream(temp.toFile());
+            out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE));
+            nameCount = names.length;
+            remaining = movieCount;
+            
+            boolean started = false;
+            try
+            {
+                out.write(MAGIC);
+                out.writeByte(VERSION);
+                writeVarInt(out, names.length);
+                for (int id = 0; id < names.length; id++)
+                {
+                    writeString(out, names[id]);
+                }
+                writeVarInt(out, movieCount);
+                started = true;
+            }
+            finally
+            {
+                if (!started)
+                {
+                    abandon();  // the caller never gets the writer, so it can't clean up
+                }
+            }
+        }
+        
+        /*
+         * Write the next movie
+         * 
+         * Takes as arguments:
+         *  @param - title - title of the movie
+         *  @param - directorId - index of the director in the name table
+         *  @param - actorIds, actorCount - the first actorCount entries are the indexes of the actors in the name table
+         *  @param - rating - integer between 1 and 10 inclusive
+         * 
+         * @throws IllegalArgumentException if the movie is not valid or all the movies have already been written
+         */
+        public void writeMovie(String title, int directorId, int[] actorIds, int actorCount, int rating) throws IOException
+        {
+            if (remaining == 0)
+            {
+                throw new IllegalArgumentException("All movies in the snapshot have already been written\n");
+            }
+            if (title.trim().length() == 0 || rating < 1 || rating > 10 || actorCount < 0 || actorCount > 3)
+            {
+                throw new IllegalArgumentException("Title must not be blank, rating should be between 1 and 10 and there can be at most 3 actors\n");
+            }
+            writeString(out, title);
+            writeVarInt(out, checkName(directorId));
+            out.writeByte(actorCount);
+            for (int i = 0; i < actorCount; i++)
+            {
+                writeVarInt(out, checkName(actorIds[i]));
+            }
+            out.writeByte(rating);
+            remaining--;
+        }
+        
+        /*
+         * Finish the snapshot and rename it over the target
+         * 
+         * @throws IllegalStateException if fewer movies were written than the writer was opened with
+         */
+        public void close() throws IOException
+        {
+            if (remaining != 0)
+            {
+                throw new IllegalStateException(remaining + " movies still to be written to the snapshot\n");
+            }
+            out.flush();
+            file.getFD().sync();
+            file.close();
+            MovieFileWriter.replaceAtomically(temp, target);
+        }
+        
+        // Give up on the snapshot, the target file is left unchanged
+        public void abandon() throws IOException
+        {
+            file.close();
+            Files.deleteIfExists(temp);
+        }
+        
+        private int checkName(int id)
+        {
+            if (id < 0 || id >= nameCount)
+            {
+                throw new IllegalArgumentException("Unknown name id " + id + "\n");
+            }
+            return id;
+        }
+    }
+    
+    private static String nameAt(String[] names, int id) throws IOException
+    {
+        if (id < 0 || id >= names.length)
+        {
+            throw new IOException("Corrupt snapshot, unknown name id " + id);
+        }
+        return names[id];
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+    
+    // Read a length prefixed UTF-8 string, scratch is used to hold the bytes if it is big enough
+    private static String readString(DataInputStream in, byte[] scratch, long fileSize) throws IOException
+    {
+        int length = readCount(in, fileSize, "string length");
+        byte[] bytes = (length <= scratch.length) ? scratch : new byte[length];
+        in.readFully(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+    
+    // Read a variable length integer, only values from 0 to Integer.MAX_VALUE are ever written
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                if (value < 0)
+                {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IOException("Corrupt snapshot, bad length or id");
+    }
+    
+    // Read a count or length, which can't be more than the size of the file it is read from
+    private static int readCount(DataInputStream in, long fileSize, String what) throws IOException
+    {
+        int count = readVarInt(in);
+        if (count > fileSize)
+        {
+            throw new IOException("Corrupt snapshot, " + what + " " + count + " is larger than the file");
+        }
+        return count;
+    }
+}
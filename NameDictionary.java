@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * NameDictionary gives each distinct name a small integer id, starting at 0 in the order names are
+ * first added. Names that repeat across many movies, like directors and actors, can then be stored
+ * or compared as ids and every occurrence can share one String object.
+ * 
+ * intern keeps count of how often a name was already in the dictionary and roughly how much memory
+ * was saved by sharing the existing String instead of keeping the duplicate.
+ * 
+ * Each name also counts the intern calls not yet given back with release. A name whose count drops
+ * to 0 is removed and its id is reused for the next new name, so a dictionary kept up to date as
+ * movies come and go only holds the names still in use.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class NameDictionary
+{
+    private HashMap<String, Integer> ids;
+    private ArrayList<String> names;  // by id, null for an id that has been freed
+    private int[] references;  // by id, intern calls not yet released
+    private ArrayList<Integer> freeIds;  // ids of removed names, reused before new ones
+    private long lookups;
+    private long hits;
+    private long bytesSaved;
+
+    /**
+     * Constructor for objects of class NameDictionary
+     */
+    public NameDictionary()
+    {
+        ids = new HashMap<String, Integer>();
+        names = new ArrayList<String>();
+        references = new int[16];
+        freeIds = new ArrayList<Integer>();
+    }
+    
+    /*
+     * Get the id of a name, adding the name to the dictionary if it isn't already in it
+     * 
+     * @throws NullPointerException if name is null
+     */
+    public int idOf(String name)
+    {
+        Integer id = ids.get(name);
+        if (id == null)
+        {
+            if (name == null)
+            {
+                throw new NullPointerException("Must provide a name\n");
+            }
+            if (freeIds.isEmpty())
+            {
+                id = names.size();
+                names.add(name);
+                if (id >= references.length)
+                {
+                    references = Arrays.copyOf(references, references.length * 2);
+                }
+            }
+            else
+            {
+                id = freeIds.remove(freeIds.size() - 1);
+                names.set(id, name);
+            }
+            ids.put(name, id);
+        }
+        return id;
+    }
+    
+    /*
+     * Get the dictionary's own copy of a name, adding the name if it isn't already in the dictionary,
+     * so every equal name can share one String object
+     * 
+     * @throws NullPointerException if name is null
+     */
+    public String intern(String name)
+    {
+        lookups++;
+        Integer id = ids.get(name);
+        if (id == null)
+        {
+            id = idOf(name);  // may grow references, so it is read after
+            references[id]++;
+            return name;
+        }
+        
+        hits++;
+        references[id]++;
+        String canonical = names.get(id);
+        if (canonical != name)
+        {
+            bytesSaved += estimatedSize(name);  // the duplicate can now be garbage collected
+        }
+        return canonical;
+    }
+    
+    /*
+     * Give back one intern of a name, removing it from the dictionary once every intern has been given
+     * back. Names added with idOf alone are never removed.
+     */
+    public void release(String name)
+    {
+        Integer id = ids.get(name);
+        if (id != null && references[id] > 0)
+        {
+            references[id]--;
+            if (references[id] == 0)
+            {
+                ids.remove(name);
+                names.set(id, null);
+                freeIds.add(id);
+            }
+        }
+    }
+    
+    // Get the id of a name without adding it, -1 is returned if the name is not in the dictionary
+    public int find(String name)
+    {
+        Integer id = ids.get(name);
+        if (id == null)
+        {
+            return -1;
+        }
+        return id;
+    }
+    
+    /*
+     * Get the name with the given id, null if the name has been removed
+     * 
+     * @throws IndexOutOfBoundsException if no name has had that id
+     */
+    public String nameOf(int id)
+    {
+        return names.get(id);
+    }
+    
+    // Number of distinct names in the dictionary
+    public int size()
+    {
+        return ids.size();
+    }
+    
+    // Number of calls to intern, and how many found the name already in the dictionary
+    public long getLookupCount()
+    {
+        return lookups;
+    }
+    
+    public long getHitCount()
+    {
+        return hits;
+    }
+    
+    // Fraction of intern calls that found the name already in the dictionary, 0 if there have been none
+    public double getHitRatio()
+    {
+        if (lookups == 0)
+        {
+            return 0;
+        }
+        return (double) hits / lookups;
+    }
+    
+    // Estimated bytes of duplicate Strings replaced by the dictionary's copy
+    public long getBytesSaved()
+    {
+        return bytesSaved;
+    }
+    
+    /*
+     * Estimated heap size of a String: a 24 byte String object plus its byte array, which has a 16 byte
+     * header and one byte per character, or two if any character is outside Latin-1. Sizes are
+     * rounded up to 8 bytes.
+     */
+    private static long estimatedSize(String name)
+    {
+        int bytesPerChar = 1;
+        for (int i = 0; i < name.length(); i++)
+        {
+            if (name.charAt(i) > 0xFF)
+            {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + ((16 + (long) name.length() * bytesPerChar + 7) / 8) * 8;
+    }
+}
@@ -0,0 +1,583 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * OffHeapDatabase keeps its movies outside the Java heap, in direct ByteBuffer segments, so very large
+ * catalogues don't fill the heap and don't lengthen garbage collection pauses. Only the indexes are on
+ * the heap: a sorted array of ids for each distinct title hash, director hash and rating, rather than
+ * a Movie object per movie.
+ * 
+ * Each movie is a record with a fixed header followed by its text fields as UTF-8:
+ * 
+ *    flags (1 byte, 1 = deleted), rating (1 byte), actor count (1 byte), unused (1 byte)
+ *    lengths of the title, director and three actors (2 bytes each)
+ *    title, director, actor bytes
+ * 
+ * Records are appended to 64MB segments and never span two segments. A changed movie is written as a
+ * new record and the old one marked deleted; once deleted records take more space than live ones the
+ * live records are copied into fresh segments. Each movie keeps the id it was given when added, and an
+ * on-heap array maps ids to record addresses, so compaction doesn't affect the Movie views handed out.
+ * 
+ * Movie objects are only made when a caller asks for them, as views of a record. Changing a view with
+ * its set methods writes the change back. Each request makes a new view, so a view does not see changes
+ * made through another view of the same movie, and views made before a clearAll no longer change
+ * anything. Combined queries, text search and journaling are only available from Database.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class OffHeapDatabase implements MovieCatalogue, MovieOwner
+{
+    private static final int SEGMENT_SIZE = 1 << 26;
+    private static final int HEADER_SIZE = 14;
+    private static final int MAX_FIELD_BYTES = 0xFFFF;
+    private static final byte DELETED = 1;
+    private static final long NO_RECORD = -1;
+    
+    private ArrayList<ByteBuffer> segments;
+    private int segmentUsed;       // bytes used in the last segment
+    private long liveBytes;
+    private long deadBytes;
+    private long[] addresses;      // record address for each id, segment number in the high 32 bits
+    private int idCount;           // ids handed out, including deleted movies
+    private int liveCount;
+    private int generation;        // counts calls to clearAll, views are stamped with it when they are made
+    
+    // Ids for each lowercase title hash, lowercase director hash and rating
+    private IntHashIndex titleIndex;
+    private IntHashIndex directorIndex;
+    private PostingList[] ratingIndex;
+    
+    private byte[] scratch;        // reused to copy field bytes out of the segments
+    private ArrayList<LoadError> loadErrors;
+
+    /**
+     * Constructor for objects of class OffHeapDatabase
+     */
+    public OffHeapDatabase()
+    {
+        scratch = new byte[256];
+        loadErrors = new ArrayList<LoadError>();
+        clearAll();
+    }
+    
+    public void loadDatabaseFromFile(String filename)
+    {
+        loadDatabaseFromFile(filename, LoadMode.STREAMING);
+    }
+    
+    /*
+     * Load movies from a text file and add them to the database, see Database.loadDatabaseFromFile.
+     * Each Movie made by the parser is written to a record and then discarded.
+     */
+    public void loadDatabaseFromFile(String filename, LoadMode mode)
+    {
+        loadErrors = new ArrayList<LoadError>();
+        try 
+        {
+            if (mode == LoadMode.PARALLEL)
+            {
+                MovieFileLoader.loadParallel(filename, this, loadErrors);
+            }
+            else if (mode == LoadMode.MAPPED)
+            {
+                MovieFileLoader.loadMapped(filename, this, loadErrors);
+            }
+            else
+            {
+                MovieFileLoader.loadStreaming(filename, this, loadErrors);
+            }
+        } 
+        catch (FileNotFoundException e) 
+        {
+            System.out.print("File not found\n");
+        }
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+    }
+    
+    public List<LoadError> getLoadErrors()
+    {
+        return loadErrors;
+    }
+    
+    /*
+     * Write a movie to a new record. The Movie object itself is not kept, use the views returned by
+     * searches to change or delete it.
+     * 
+     * @throws NullPointerException if object in argument is not set
+     * @throws IllegalStateException if the movie has already been added to a database
+     * @throws IllegalArgumentException if a title or name is longer than 65535 bytes
+     */
+    public void addMovie(Movie newMovie)
+    {
+        if (newMovie == null)
+        {
+            throw new NullPointerException("Must provide a valid movie object\n");
+        }
+        if (newMovie.getOwner() != null)
+        {
+            throw new IllegalStateException("Movie has already been added to a database\n");
+        }
+        
+        if (idCount == addresses.length)
+        {
+            int oldLength = addresses.length;
+            addresses = Arrays.copyOf(addresses, oldLength * 2);
+            Arrays.fill(addresses, oldLength, addresses.length, NO_RECORD);
+        }
+        int id = idCount++;
+        addresses[id] = writeRecord(newMovie);
+        liveCount++;
+        indexRecord(id);
+    }
+    
+    // Delete a movie returned by this database, movies that are not in this database are ignored
+    public void deleteMovie(Movie movieToDelete)
+    {
+        if (movieToDelete == null || !isLiveView(movieToDelete))
+        {
+            return;
+        }
+        
+        int id = movieToDelete.getId();
+        unindexRecord(id);
+        markDeleted(addresses[id]);
+        addresses[id] = NO_RECORD;
+        liveCount--;
+        compactIfNeeded();
+    }
+    
+    // Deletes every movie and releases the off-heap segments
+    public void clearAll()
+    {
+        segments = new ArrayList<ByteBuffer>();
+        segments.add(ByteBuffer.allocateDirect(SEGMENT_SIZE));
+        segmentUsed = 0;
+        liveBytes = 0;
+        deadBytes = 0;
+        generation++;
+        addresses = new long[16];
+        Arrays.fill(addresses, NO_RECORD);
+        idCount = 0;
+        liveCount = 0;
+        titleIndex = new IntHashIndex();
+        directorIndex = new IntHashIndex();
+        ratingIndex = new PostingList[10];
+        for (int i = 0; i < ratingIndex.length; i++)
+        {
+            ratingIndex[i] = new PostingList();
+        }
+    }
+    
+    // Number of movies in the database
+    public int size()
+    {
+        return liveCount;
+    }
+    
+    // Bytes of off-heap memory held by the segments
+    public long getOffHeapBytes()
+    {
+        return (long) segments.size() * SEGMENT_SIZE;
+    }
+    
+    // A view of every movie, in the order they were added
+    public List<Movie> getAllMovies()
+    {
+        ArrayList<Movie> all = new ArrayList<Movie>(liveCount);
+        Iterator<Movie> it = new RecordIterator();
+        while (it.hasNext())
+        {
+            all.add(it.next());
+        }
+        return all;
+    }
+    
+    /*
+     * Search by title, director or favourite rating, see Database.searchForMovie. The search is
+     * case-insensitive and favourite searches return the highest rated movies first.
+     */
+    public ArrayList<Movie> searchForMovie(String searchString, String searchKey, int minRating)
+    {
+        ArrayList<Movie> foundMovies = new ArrayList<Movie>();
+        String searchStringLower = searchString.toLowerCase();
+        
+        if (searchKey.equals("title") || searchKey.equals("director"))
+        {
+            // Ids are indexed by the hash of the lowercase value, so check each candidate's field matches
+            boolean title = searchKey.equals("title");
+            PostingList ids = (title ? titleIndex : directorIndex).find(searchStringLower.hashCode());
+            for (int i = 0; ids != null && i < ids.size(); i++)
+            {
+                long address = addresses[ids.get(i)];
+                String value = title ? readField(address, 0) : readField(address, 1);
+                if (value.toLowerCase().equals(searchStringLower))
+                {
+                    foundMovies.add(movieWithId(ids.get(i)));
+                }
+            }
+        } else if (searchKey.equals("favourite")) {
+            for (int rating = 10; rating >= minRating && rating >= 1; rating--)
+            {
+                PostingList ids = ratingIndex[rating - 1];
+                for (int i = 0; i < ids.size(); i++)
+                {
+                    foundMovies.add(movieWithId(ids.get(i)));
+                }
+            }
+        } else {
+            System.out.print("\nError! Can not search over that key!\n");
+        }
+        
+        return foundMovies;
+    }
+    
+    // Save every movie to a text file, views are made one at a time as the file is written
+    public void saveMoviesToFile(String filename)
+    {
+        try 
+        {
+            MovieFileWriter.saveAtomically(filename, new Iterable<Movie>()
+            {
+                public Iterator<Movie> iterator()
+                {
+                    return new RecordIterator();
+                }
+            });
+        } 
+        catch (IOException e)
+        {
+            System.out.print("Unexpected I/O exception\n");
+        }
+    }
+    
+    // Called by a view before one of its fields is changed, takes its record out of the indexes
+    public void movieUpdating(Movie movie)
+    {
+        if (isLiveView(movie))  // views of deleted movies no longer change anything
+        {
+            unindexRecord(movie.getId());
+        }
+    }
+    
+    // Called by a view after one of its fields is changed, replaces its record with one holding the new values
+    public void movieUpdated(Movie movie)
+    {
+        int id = movie.getId();
+        if (isLiveView(movie))
+        {
+            markDeleted(addresses[id]);
+            addresses[id] = writeRecord(movie);
+            indexRecord(id);
+            compactIfNeeded();
+        }
+    }
+    
+    // Make a Movie view of the record with the given id
+    private Movie movieWithId(int id)
+    {
+        long address = addresses[id];
+        ByteBuffer segment = segments.get((int) (address >>> 32));
+        int offset = (int) address;
+        Movie movie = new Movie(readField(address, 0), readField(address, 1), readField(address, 2),
+                                readField(address, 3), readField(address, 4), segment.get(offset + 1));
+        movie.setOwner(this);
+        movie.setId(id);
+        movie.setGeneration(generation);
+        return movie;
+    }
+    
+    // Whether a movie is a view of a record that is still in this database, checked before its id is used
+    private boolean isLiveView(Movie movie)
+    {
+        int id = movie.getId();
+        return movie.getOwner() == this && movie.getGeneration() == generation && id >= 0 && id < idCount && addresses[id] != NO_RECORD;
+    }
+    
+    /*
+     * Decode one text field of a record: 0 for the title, 1 for the director and 2 to 4 for the actors.
+     * Missing actors have a length of 0 and decode as an empty string.
+     */
+    private String readField(long address, int field)
+    {
+        ByteBuffer segment = segments.get((int) (address >>> 32));
+        int offset = (int) address;
+        int position = offset + HEADER_SIZE;
+        for (int i = 0; i < field; i++)
+        {
+            position += segment.getChar(offset + 4 + i * 2);
+        }
+        int length = segment.getChar(offset + 4 + field * 2);
+        if (length == 0)
+        {
+            return "";
+        }
+        if (scratch.length < length)
+        {
+            scratch = new byte[MAX_FIELD_BYTES];
+        }
+        segment.get(position, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    // Append a record for a movie and return its address
+    private long writeRecord(Movie movie)
+    {
+        ArrayList<String> actors = movie.getActors();
+        byte[][] fields = new byte[5][];
+        fields[0] = encodeField(movie.getTitle());
+        fields[1] = encodeField(movie.getDirector());
+        int size = HEADER_SIZE + fields[0].length + fields[1].length;
+        for (int i = 0; i < 3; i++)
+        {
+            fields[i + 2] = encodeField(i < actors.size() ? actors.get(i) : "");
+            size += fields[i + 2].length;
+        }
+        
+        long address = reserve(size);
+        ByteBuffer segment = segments.get((int) (address >>> 32));
+        int offset = (int) address;
+        segment.put(offset, (byte) 0);
+        segment.put(offset + 1, (byte) movie.getRating());
+        segment.put(offset + 2, (byte) actors.size());
+        segment.put(offset + 3, (byte) 0);
+        int position = offset + HEADER_SIZE;
+        for (int i = 0; i < fields.length; i++)
+        {
+            segment.putChar(offset + 4 + i * 2, (char) fields[i].length);
+            segment.put(position, fields[i]);
+            position += fields[i].length;
+        }
+        liveBytes += size;
+        return address;
+    }
+    
+    private static byte[] encodeField(String value)
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_BYTES)
+        {
+            throw new IllegalArgumentException("Movie titles and names must be at most " + MAX_FIELD_BYTES + " bytes\n");
+        }
+        return bytes;
+    }
+    
+    // Find space for a record in the last segment, starting a new segment if it doesn't fit
+    private long reserve(int size)
+    {
+        if (segmentUsed + size > SEGMENT_SIZE)
+        {
+            segments.add(ByteBuffer.allocateDirect(SEGMENT_SIZE));
+            segmentUsed = 0;
+        }
+        long address = ((long) (segments.size() - 1) << 32) | segmentUsed;
+        segmentUsed += size;
+        return address;
+    }
+    
+    private int recordSize(long address)
+    {
+        ByteBuffer segment = segments.get((int) (address >>> 32));
+        int offset = (int) address;
+        int size = HEADER_SIZE;
+        for (int i = 0; i < 5; i++)
+        {
+            size += segment.getChar(offset + 4 + i * 2);
+        }
+        return size;
+    }
+    
+    private void markDeleted(long address)
+    {
+        segments.get((int) (address >>> 32)).put((int) address, DELETED);
+        int size = recordSize(address);
+        liveBytes -= size;
+        deadBytes += size;
+    }
+    
+    /*
+     * Copy every live record into new segments once deleted records use more space than live ones and
+     * at least a segment's worth, so the copying is paid for by the deletes that made it necessary
+     */
+    private void compactIfNeeded()
+    {
+        if (deadBytes < liveBytes || deadBytes < SEGMENT_SIZE)
+        {
+            return;
+        }
+        
+        ArrayList<ByteBuffer> oldSegments = segments;
+        segments = new ArrayList<ByteBuffer>();
+        segments.add(ByteBuffer.allocateDirect(SEGMENT_SIZE));
+        segmentUsed = 0;
+        for (int id = 0; id < idCount; id++)
+        {
+            long oldAddress = addresses[id];
+            if (oldAddress == NO_RECORD)
+            {
+                continue;
+            }
+            ByteBuffer oldSegment = oldSegments.get((int) (oldAddress >>> 32));
+            int oldOffset = (int) oldAddress;
+            int size = HEADER_SIZE;
+            for (int i = 0; i < 5; i++)
+            {
+                size += oldSegment.getChar(oldOffset + 4 + i * 2);
+            }
+            
+            long newAddress = reserve(size);
+            segments.get((int) (newAddress >>> 32)).put((int) newAddress, oldSegment, oldOffset, size);
+            addresses[id] = newAddress;
+        }
+        deadBytes = 0;
+    }
+    
+    private void indexRecord(int id)
+    {
+        long address = addresses[id];
+        titleIndex.add(readField(address, 0).toLowerCase().hashCode(), id);
+        directorIndex.add(readField(address, 1).toLowerCase().hashCode(), id);
+        ratingIndex[segments.get((int) (address >>> 32)).get((int) address + 1) - 1].add(id);
+    }
+    
+    private void unindexRecord(int id)
+    {
+        long address = addresses[id];
+        titleIndex.remove(readField(address, 0).toLowerCase().hashCode(), id);
+        directorIndex.remove(readField(address, 1).toLowerCase().hashCode(), id);
+        ratingIndex[segments.get((int) (address >>> 32)).get((int) address + 1) - 1].remove(id);
+    }
+    
+    // Walks the live movies in id order, making a view of each as it is reached
+    private class RecordIterator implements Iterator<Movie>
+    {
+        private int nextId = findLiveId(0);
+        
+        public boolean hasNext()
+        {
+            return nextId < idCount;
+        }
+        
+        public Movie next()
+        {
+            if (nextId >= idCount)
+            {
+                throw new NoSuchElementException();
+            }
+            Movie movie = movieWithId(nextId);
+            nextId = findLiveId(nextId + 1);
+            return movie;
+        }
+        
+        private int findLiveId(int id)
+        {
+            while (id < idCount && addresses[id] == NO_RECORD)
+            {
+                id++;
+            }
+            return id;
+        }
+    }
+    
+    /*
+     * Hash table from an int hash to the ids with that hash. Each distinct hash has one slot, found by
+     * open addressing over an int array, holding a PostingList of its ids, so a director with thousands
+     * of movies is one probe rather than a run of thousands of slots. Different values can share a
+     * hash, so callers check the ids it returns.
+     */
+    private static class IntHashIndex
+    {
+        private int[] hashes;
+        private PostingList[] lists;  // null for a slot never used, a hash whose ids were all removed keeps an empty list
+        private int used;  // slots holding a list
+        
+        IntHashIndex()
+        {
+            hashes = new int[16];
+            lists = new PostingList[16];
+        }
+        
+        void add(int hash, int id)
+        {
+            int slot = slotFor(hash);
+            if (lists[slot] == null)
+            {
+                if ((used + 1) * 2 > lists.length)
+                {
+                    resize();
+                    slot = slotFor(hash);
+                }
+                hashes[slot] = hash;
+                lists[slot] = new PostingList();
+                used++;
+            }
+            lists[slot].add(id);
+        }
+        
+        void remove(int hash, int id)
+        {
+            PostingList ids = find(hash);
+            if (ids != null)
+            {
+                ids.remove(id);
+            }
+        }
+        
+        // Ids with the hash in ascending order, null if there are none. The list is the index's own, so it must not be changed
+        PostingList find(int hash)
+        {
+            return lists[slotFor(hash)];
+        }
+        
+        // Slot holding the hash, or the empty slot it would go in
+        private int slotFor(int hash)
+        {
+            int mixed = hash * 0x9E3779B9;
+            int slot = (mixed ^ (mixed >>> 16)) & (lists.length - 1);
+            while (lists[slot] != null && hashes[slot] != hash)
+            {
+                slot = (slot + 1) & (lists.length - 1);
+            }
+            return slot;
+        }
+        
+        // Rebuild the table without the empty lists, doubling it if more than a quarter of it is still in use
+        private void resize()
+        {
+            int[] oldHashes = hashes;
+            PostingList[] oldLists = lists;
+            int live = 0;
+            for (int i = 0; i < oldLists.length; i++)
+            {
+                if (oldLists[i] != null && !oldLists[i].isEmpty())
+                {
+                    live++;
+                }
+            }
+            int capacity = (live * 4 > oldLists.length) ? oldLists.length * 2 : oldLists.length;
+            hashes = new int[capacity];
+            lists = new PostingList[capacity];
+            used = 0;
+            for (int i = 0; i < oldLists.length; i++)
+            {
+                if (oldLists[i] != null && !oldLists[i].isEmpty())
+                {
+                    int slot = slotFor(oldHashes[i]);
+                    hashes[slot] = oldHashes[i];
+                    lists[slot] = oldLists[i];
+                    used++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,338 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * PostingIndex keeps, for each lowercase title, director and actor name and for each rating, the
+ * sorted list of ids of the movies that have it. It also maps ids back to movies.
+ * 
+ * The index must be told about a movie before its fields change (remove) and after (add), as
+ * Database does through its movieUpdating and movieUpdated hooks. Deleted movies are dropped
+ * straight away from the id map but only from the posting lists when purgeDeleted is called, so
+ * lists can hold ids that no longer have a movie.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class PostingIndex
+{
+    private HashMap<String, PostingList> titles;
+    private HashMap<String, PostingList> directors;
+    private HashMap<String, PostingList> actors;
+    private PostingList[] ratings;  // element 0 holds movies rated 1 and element 9 movies rated 10
+    private int[] ratingCounts;     // movies with each rating, not counting deleted ids left in the lists
+    private HashMap<Integer, Movie> moviesById;
+    private BitSet deletedIds;  // deleted movies whose ids haven't been purged from the posting lists yet
+
+    /**
+     * Constructor for objects of class PostingIndex
+     */
+    public PostingIndex()
+    {
+        titles = new HashMap<String, PostingList>();
+        directors = new HashMap<String, PostingList>();
+        actors = new HashMap<String, PostingList>();
+        ratings = new PostingList[10];
+        for (int i = 0; i < ratings.length; i++)
+        {
+            ratings[i] = new PostingList();
+        }
+        ratingCounts = new int[10];
+        moviesById = new HashMap<Integer, Movie>();
+        deletedIds = new BitSet();
+    }
+    
+    // Add a movie to the index under its id and current field values
+    public void add(Movie movie)
+    {
+        int id = movie.getId();
+        moviesById.put(id, movie);
+        addPosting(titles, movie.getTitle().toLowerCase(), id);
+        addPosting(directors, movie.getDirector().toLowerCase(), id);
+        ArrayList<String> movieActors = movie.getActors();
+        for (int i = 0; i < movieActors.size(); i++)
+        {
+            addPosting(actors, movieActors.get(i).toLowerCase(), id);
+        }
+        ratings[movie.getRating() - 1].add(id);
+        ratingCounts[movie.getRating() - 1]++;
+    }
+    
+    // Remove a movie from the index, its fields must be the same as when it was added
+    public void remove(Movie movie)
+    {
+        int id = movie.getId();
+        moviesById.remove(id);
+        removePosting(titles, movie.getTitle().toLowerCase(), id);
+        removePosting(directors, movie.getDirector().toLowerCase(), id);
+        ArrayList<String> movieActors = movie.getActors();
+        for (int i = 0; i < movieActors.size(); i++)
+        {
+            removePosting(actors, movieActors.get(i).toLowerCase(), id);
+        }
+        ratings[movie.getRating() - 1].remove(id);
+        ratingCounts[movie.getRating() - 1]--;
+    }
+    
+    /*
+     * Remove a deleted movie from the index in constant time. Only the id is forgotten, so searches
+     * stop returning the movie, and its id is left in the posting lists until purgeDeleted is called.
+     * Ids are never reused so a left over id can't be mistaken for another movie.
+     */
+    public void delete(Movie movie)
+    {
+        moviesById.remove(movie.getId());
+        deletedIds.set(movie.getId());
+        ratingCounts[movie.getRating() - 1]--;
+    }
+    
+    // Number of deleted movies whose ids are still in the posting lists
+    public int getDeletedCount()
+    {
+        return deletedIds.cardinality();
+    }
+    
+    // Take the ids of deleted movies out of every posting list, in one pass over each list
+    public void purgeDeleted()
+    {
+        if (deletedIds.isEmpty())
+        {
+            return;
+        }
+        purgePostings(titles);
+        purgePostings(directors);
+        purgePostings(actors);
+        for (int i = 0; i < ratings.length; i++)
+        {
+            ratings[i].removeAll(deletedIds);
+        }
+        deletedIds.clear();
+    }
+    
+    public void clear()
+    {
+        titles.clear();
+        directors.clear();
+        actors.clear();
+        for (int i = 0; i < ratings.length; i++)
+        {
+            ratings[i].clear();
+            ratingCounts[i] = 0;
+        }
+        moviesById.clear();
+        deletedIds.clear();
+    }
+    
+    // Ids of movies with the lowercase title, empty if there are none. The list must not be changed
+    public PostingList titlePostings(String titleLower)
+    {
+        return postings(titles, titleLower);
+    }
+    
+    // Ids of movies with the lowercase director, empty if there are none. The list must not be changed
+    public PostingList directorPostings(String directorLower)
+    {
+        return postings(directors, directorLower);
+    }
+    
+    // Ids of movies with the lowercase actor, empty if there are none. The list must not be changed
+    public PostingList actorPostings(String actorLower)
+    {
+        return postings(actors, actorLower);
+    }
+    
+    // Ids of movies with exactly the rating, which must be between 1 and 10. The list must not be changed
+    public PostingList ratingPostings(int rating)
+    {
+        return ratings[rating - 1];
+    }
+    
+    // Number of movies with exactly the rating, which must be between 1 and 10. Deleted movies are not counted
+    public int ratingCount(int rating)
+    {
+        return ratingCounts[rating - 1];
+    }
+    
+    // Number of ids in the list that still have a movie
+    public int liveCount(PostingList ids)
+    {
+        if (deletedIds.isEmpty())
+        {
+            return ids.size();
+        }
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++)
+        {
+            if (!deletedIds.get(ids.get(i)))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    // Movie with the given id, null if there isn't one
+    public Movie movieWithId(int id)
+    {
+        return moviesById.get(id);
+    }
+    
+    // Movies for each id in the list, in the same order. Ids of deleted movies are skipped
+    public ArrayList<Movie> moviesFor(PostingList ids)
+    {
+        ArrayList<Movie> found = new ArrayList<Movie>(ids.size());
+        for (int i = 0; i < ids.size(); i++)
+        {
+            Movie movie = moviesById.get(ids.get(i));
+            if (movie != null)
+            {
+                found.add(movie);
+            }
+        }
+        return found;
+    }
+    
+    /*
+     * Iterate over the movies in posting lists without collecting them first, skipping deleted movies.
+     * The lists must not change while the iterator is in use.
+     * 
+     * Takes as arguments:
+     *  @param - lists - posting lists to walk
+     *  @param - mergeById - true to return the movies of all the lists in id order, false to return
+     *                       each list in turn
+     */
+    public Iterator<Movie> iterator(PostingList[] lists, boolean mergeById)
+    {
+        return new MovieCursor(lists, mergeById);
+    }
+    
+    private static PostingList postings(HashMap<String, PostingList> field, String key)
+    {
+        PostingList list = field.get(key);
+        if (list == null)
+        {
+            return new PostingList();
+        }
+        return list;
+    }
+    
+    private static void addPosting(HashMap<String, PostingList> field, String key, int id)
+    {
+        PostingList list = field.get(key);
+        if (list == null)
+        {
+            list = new PostingList();
+            field.put(key, list);
+        }
+        list.add(id);
+    }
+    
+    // Remove deleted ids from each list of a field, dropping lists that end up empty
+    private void purgePostings(HashMap<String, PostingList> field)
+    {
+        Iterator<PostingList> it = field.values().iterator();
+        while (it.hasNext())
+        {
+            PostingList list = it.next();
+            list.removeAll(deletedIds);
+            if (list.isEmpty())
+            {
+                it.remove();
+            }
+        }
+    }
+    
+    private static void removePosting(HashMap<String, PostingList> field, String key, int id)
+    {
+        PostingList list = field.get(key);
+        if (list != null)
+        {
+            list.remove(id);
+            if (list.isEmpty())  // drop empty lists so deleted names don't keep using memory
+            {
+                field.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * MovieCursor walks posting lists one movie at a time, either list by list or merging the lists
+     * by id, and looks each id up only when it is reached.
+     */
+    private class MovieCursor implements Iterator<Movie>
+    {
+        private PostingList[] lists;
+        private int[] positions;
+        private boolean mergeById;
+        private int current;  // list being walked when not merging
+        private Movie next;
+        
+        private MovieCursor(PostingList[] cursorLists, boolean merge)
+        {
+            lists = cursorLists;
+            positions = new int[lists.length];
+            mergeById = merge;
+            current = 0;
+            next = advance();
+        }
+        
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+        
+        public Movie next()
+        {
+            if (next == null)
+            {
+                throw new NoSuchElementException();
+            }
+            Movie movie = next;
+            next = advance();
+            return movie;
+        }
+        
+        // Find the next movie that hasn't been deleted, null once every list is used up
+        private Movie advance()
+        {
+            while (true)
+            {
+                int list = mergeById ? smallestHead() : currentList();
+                if (list < 0)
+                {
+                    return null;
+                }
+                Movie movie = moviesById.get(lists[list].get(positions[list]++));
+                if (movie != null)
+                {
+                    return movie;
+                }
+            }
+        }
+        
+        private int currentList()
+        {
+            while (current < lists.length && positions[current] >= lists[current].size())
+            {
+                current++;
+            }
+            return (current < lists.length) ? current : -1;
+        }
+        
+        private int smallestHead()
+        {
+            int smallest = -1;
+            for (int i = 0; i < lists.length; i++)
+            {
+                if (positions[i] < lists[i].size()
+                    && (smallest < 0 || lists[i].get(positions[i]) < lists[smallest].get(positions[smallest])))
+                {
+                    smallest = i;
+                }
+            }
+            return smallest;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * PostingList is a growable list of movie ids kept in ascending order, used by PostingIndex to
+ * record which movies have a particular title, director, actor or rating. Ids are handed out in
+ * increasing order so adding a new movie is an append. Sorted lists can be intersected by binary
+ * searching the larger list for each id of the smaller one, and merged for unions.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class PostingList
+{
+    private int[] ids;
+    private int size;
+
+    /**
+     * Constructor for objects of class PostingList
+     */
+    public PostingList()
+    {
+        ids = new int[2];
+        size = 0;
+    }
+    
+    // Add an id, keeping the list sorted. Ids already in the list are not added again
+    public void add(int id)
+    {
+        if (size > 0 && ids[size - 1] >= id)
+        {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0)
+            {
+                return;
+            }
+            insertAt(-index - 1, id);
+        }
+        else
+        {
+            insertAt(size, id);
+        }
+    }
+    
+    // Remove an id, returns false if it wasn't in the list
+    public boolean remove(int id)
+    {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0)
+        {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        return true;
+    }
+    
+    /*
+     * Remove every id that is set in a BitSet in a single pass, returns the number of ids removed.
+     * Removing many ids this way costs the same as removing one.
+     */
+    public int removeAll(BitSet removedIds)
+    {
+        int kept = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (!removedIds.get(ids[i]))
+            {
+                ids[kept++] = ids[i];
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+    
+    public boolean contains(int id)
+    {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+    
+    public int get(int index)
+    {
+        return ids[index];
+    }
+    
+    public int size()
+    {
+        return size;
+    }
+    
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+    
+    public void clear()
+    {
+        size = 0;
+    }
+    
+    // Ids in both this list and the other, costs the size of the smaller list times log of the larger
+    public PostingList intersect(PostingList other)
+    {
+        PostingList small = (size <= other.size) ? this : other;
+        PostingList large = (small == this) ? other : this;
+        PostingList result = new PostingList();
+        for (int i = 0; i < small.size; i++)
+        {
+            if (large.contains(small.ids[i]))
+            {
+                result.insertAt(result.size, small.ids[i]);
+            }
+        }
+        return result;
+    }
+    
+    // Ids in either this list or the other
+    public PostingList union(PostingList other)
+    {
+        PostingList result = new PostingList();
+        result.ids = new int[Math.max(2, size + other.size)];
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size)
+        {
+            int id;
+            if (j >= other.size || (i < size && ids[i] < other.ids[j]))
+            {
+                id = ids[i++];
+            }
+            else if (i >= size || other.ids[j] < ids[i])
+            {
+                id = other.ids[j++];
+            }
+            else
+            {
+                id = ids[i++];  // in both lists
+                j++;
+            }
+            result.ids[result.size++] = id;
+        }
+        return result;
+    }
+    
+    // Copy of this list
+    public PostingList copy()
+    {
+        PostingList result = new PostingList();
+        result.ids = Arrays.copyOf(ids, Math.max(2, size));
+        result.size = size;
+        return result;
+    }
+    
+    private void insertAt(int index, int id)
+    {
+        if (size == ids.length)
+        {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+}
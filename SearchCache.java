@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SearchCache holds the results of recent Database.searchForMovie calls so repeated searches
+ * don't go back to the index. Results are keyed by search key, lowercase search string and minimum
+ * rating, and the least recently used results are evicted once the cache holds more than its
+ * maximum number of results or of movies across all results.
+ * 
+ * The Database invalidates exactly the results a change can affect: adding, deleting or changing
+ * a movie drops the title and director searches for its title and director and the favourite
+ * searches with a minimum rating at or below its rating. Everything else stays cached.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class SearchCache
+{
+    private static final String TITLE = "title";
+    private static final String DIRECTOR = "director";
+    private static final String FAVOURITE = "favourite";
+    
+    // In access order, so the first entry is the least recently used
+    private LinkedHashMap<String, ArrayList<Movie>> results;
+    private int maxEntries;
+    private int maxMovies;
+    private long moviesHeld;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    
+    /**
+     * Constructor for objects of class SearchCache
+     * 
+     * @param - maximumEntries - most search results kept
+     * @param - maximumMovies - most movies kept across all the results, a larger result is not cached
+     */
+    public SearchCache(int maximumEntries, int maximumMovies)
+    {
+        if (maximumEntries < 1 || maximumMovies < 0)
+        {
+            throw new IllegalArgumentException("Cache must hold at least one entry and a non-negative number of movies\n");
+        }
+        results = new LinkedHashMap<String, ArrayList<Movie>>(16, 0.75f, true);
+        maxEntries = maximumEntries;
+        maxMovies = maximumMovies;
+    }
+    
+    /*
+     * Cache key for a search, null if the search can't be cached. The search string is lowercased
+     * as searches ignore case, and only the part of the search the key uses is kept: title and
+     * director searches ignore the rating and favourite searches ignore the string.
+     */
+    static String keyFor(String searchString, String searchKey, int minRating)
+    {
+        if (searchKey.equals(TITLE) || searchKey.equals(DIRECTOR))
+        {
+            return searchKey + '\n' + searchString.toLowerCase();
+        }
+        if (searchKey.equals(FAVOURITE))
+        {
+            // Ratings below 1 find the same movies as 1, and above 10 none at all
+            return FAVOURITE + '\n' + Math.max(1, Math.min(11, minRating));
+        }
+        return null;
+    }
+    
+    // Copy of the cached result for a key, null on a miss
+    synchronized ArrayList<Movie> get(String key)
+    {
+        ArrayList<Movie> found = results.get(key);
+        if (found == null)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<Movie>(found);
+    }
+    
+    // Cache a copy of a search result, evicting the least recently used results to make room
+    synchronized void put(String key, ArrayList<Movie> foundMovies)
+    {
+        if (foundMovies.size() > maxMovies)
+        {
+            return;
+        }
+        ArrayList<Movie> replaced = results.put(key, new ArrayList<Movie>(foundMovies));
+        if (replaced != null)
+        {
+            moviesHeld -= replaced.size();
+        }
+        moviesHeld += foundMovies.size();
+        
+        Iterator<Map.Entry<String, ArrayList<Movie>>> it = results.entrySet().iterator();
+        while (results.size() > maxEntries || moviesHeld > maxMovies)
+        {
+            Map.Entry<String, ArrayList<Movie>> eldest = it.next();
+            moviesHeld -= eldest.getValue().size();
+            it.remove();
+            evictions++;
+        }
+    }
+    
+    // Drop every cached result a movie with these values could appear in
+    synchronized void invalidate(Movie movie)
+    {
+        if (results.isEmpty())
+        {
+            return;
+        }
+        remove(TITLE + '\n' + movie.getTitle().toLowerCase());
+        remove(DIRECTOR + '\n' + movie.getDirector().toLowerCase());
+        for (int minRating = 1; minRating <= movie.getRating(); minRating++)
+        {
+            remove(FAVOURITE + '\n' + minRating);
+        }
+    }
+    
+    // Drop every cached result
+    synchronized void clear()
+    {
+        invalidations += results.size();
+        results.clear();
+        moviesHeld = 0;
+    }
+    
+    private void remove(String key)
+    {
+        ArrayList<Movie> removed = results.remove(key);
+        if (removed != null)
+        {
+            moviesHeld -= removed.size();
+            invalidations++;
+        }
+    }
+    
+    // Number of search results cached
+    public synchronized int size()
+    {
+        return results.size();
+    }
+    
+    // Number of movies held across all cached results
+    public synchronized long getMoviesHeld()
+    {
+        return moviesHeld;
+    }
+    
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+    
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+    
+    // Results dropped to make room for newer ones
+    public synchronized long getEvictions()
+    {
+        return evictions;
+    }
+    
+    // Results dropped because a change to the database could have changed them
+    public synchronized long getInvalidations()
+    {
+        return invalidations;
+    }
+    
+    // Fraction of lookups that found a cached result, 0 if there have been none
+    public synchronized double getHitRate()
+    {
+        if (hits + misses == 0)
+        {
+            return 0;
+        }
+        return (double) hits / (hits + misses);
+    }
+    
+    // Displays the hit rate and how full the cache is
+    public synchronized void display()
+    {
+        System.out.print("Cached searches: " + results.size() + " of " + maxEntries + ", holding " + moviesHeld + " movies\n");
+        System.out.print("Hits: " + hits + ", misses: " + misses + "\n");
+        System.out.print("Hit rate: " + String.format("%.1f", getHitRate() * 100) + "%\n");
+        System.out.print("Evictions: " + evictions + ", invalidations: " + invalidations + "\n");
+    }
+}
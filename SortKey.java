@@ -0,0 +1,50 @@
+import java.util.Comparator;
+
+/**
+ * SortKey is the order Database.streamMovies and Database.findMovies return movies in.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public enum SortKey
+{
+    // The order the movies were added to the database
+    INSERTION,
+    // Highest rated first, movies with the same rating in the order they were added
+    RATING,
+    // Alphabetical by title ignoring case, movies with the same title in the order they were added
+    TITLE;
+    
+    // Compares movies in this order
+    public Comparator<Movie> comparator()
+    {
+        if (this == RATING)
+        {
+            return new Comparator<Movie>()
+            {
+                public int compare(Movie a, Movie b)
+                {
+                    return (a.getRating() != b.getRating()) ? b.getRating() - a.getRating() : Integer.compare(a.getId(), b.getId());
+                }
+            };
+        }
+        else if (this == TITLE)
+        {
+            return new Comparator<Movie>()
+            {
+                public int compare(Movie a, Movie b)
+                {
+                    int byTitle = a.getTitle().compareToIgnoreCase(b.getTitle());
+                    return (byTitle != 0) ? byTitle : Integer.compare(a.getId(), b.getId());
+                }
+            };
+        }
+        return new Comparator<Movie>()
+        {
+            public int compare(Movie a, Movie b)
+            {
+                return Integer.compare(a.getId(), b.getId());
+            }
+        };
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * SortedMovieViews keeps the movies of a Database in three sorted orders as they are added, deleted
+ * and changed, so sorted listings and range scans don't sort the whole database:
+ * 
+ *    by title, ignoring case (the same order as SortKey.TITLE)
+ *    by rating, highest first, then by title
+ *    by director, ignoring case, then by title
+ * 
+ * Each view is a red-black tree (TreeMap), so keeping it up to date costs O(log n) per change and
+ * a range of k movies is found in O(log n + k). Movies with the same sort values are in the order
+ * they were added.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+class SortedMovieViews
+{
+    private TreeMap<Key, Movie> byTitle;
+    private TreeMap<Key, Movie> byRating;
+    private TreeMap<Key, Movie> byDirector;
+    
+    /**
+     * Constructor for objects of class SortedMovieViews
+     * 
+     * @param - movies - movies to start with, null entries are skipped
+     */
+    SortedMovieViews(ArrayList<Movie> movies)
+    {
+        byTitle = new TreeMap<Key, Movie>();
+        byRating = new TreeMap<Key, Movie>();
+        byDirector = new TreeMap<Key, Movie>();
+        for (int i = 0; i < movies.size(); i++)
+        {
+            if (movies.get(i) != null)
+            {
+                add(movies.get(i));
+            }
+        }
+    }
+    
+    // Add a movie to every view under its current values
+    void add(Movie movie)
+    {
+        byTitle.put(titleKey(movie), movie);
+        byRating.put(ratingKey(movie), movie);
+        byDirector.put(directorKey(movie), movie);
+    }
+    
+    // Remove a movie from every view, it must still have the values it was added with
+    void remove(Movie movie)
+    {
+        byTitle.remove(titleKey(movie));
+        byRating.remove(ratingKey(movie));
+        byDirector.remove(directorKey(movie));
+    }
+    
+    /*
+     * Movies whose titles are from one title to another, alphabetically ignoring case. The range
+     * includes titles starting with to, so from "M" to "P" gives every title starting with M, N, O or P.
+     * A null bound leaves that end of the range open.
+     */
+    Iterator<Movie> titleRange(String from, String to)
+    {
+        Key low = (from == null) ? null : new Key(0, from, "", Integer.MIN_VALUE);
+        Key high = (to == null) ? null : new Key(0, to + '\uffff', "", Integer.MIN_VALUE);
+        return range(byTitle, low, high);
+    }
+    
+    // Movies with at least the given rating in title order. Every title is looked at, so use it when most movies match
+    Iterator<Movie> titleOrder(int minRating)
+    {
+        final Iterator<Movie> titles = byTitle.values().iterator();
+        final int lowest = minRating;
+        return new Iterator<Movie>()
+        {
+            private Movie next = advance();
+            
+            private Movie advance()
+            {
+                while (titles.hasNext())
+                {
+                    Movie movie = titles.next();
+                    if (movie.getRating() >= lowest)
+                    {
+                        return movie;
+                    }
+                }
+                return null;
+            }
+            
+            public boolean hasNext()
+            {
+                return next != null;
+            }
+            
+            public Movie next()
+            {
+                if (next == null)
+                {
+                    throw new NoSuchElementException();
+                }
+                Movie movie = next;
+                next = advance();
+                return movie;
+            }
+        };
+    }
+    
+    // Movies rated from minRating to maxRating, highest rated first then by title
+    Iterator<Movie> ratingRange(int minRating, int maxRating)
+    {
+        return range(byRating, new Key(maxRating, "", "", Integer.MIN_VALUE), new Key(minRating - 1, "", "", Integer.MIN_VALUE));
+    }
+    
+    /*
+     * Movies whose directors are from one director to another, by director ignoring case and then
+     * by title. As with titleRange, directors starting with to are included and null bounds are open.
+     */
+    Iterator<Movie> directorRange(String from, String to)
+    {
+        Key low = (from == null) ? null : new Key(0, from, "", Integer.MIN_VALUE);
+        Key high = (to == null) ? null : new Key(0, to + '\uffff', "", Integer.MIN_VALUE);
+        return range(byDirector, low, high);
+    }
+    
+    // Movies by one director, ignoring case, in title order
+    Iterator<Movie> moviesBy(String director)
+    {
+        return range(byDirector, new Key(0, director, "", Integer.MIN_VALUE), new Key(0, director, null, Integer.MIN_VALUE));
+    }
+    
+    int size()
+    {
+        return byTitle.size();
+    }
+    
+    // Movies in a view from low (inclusive) to high (exclusive), a null key leaves that end open
+    private static Iterator<Movie> range(TreeMap<Key, Movie> view, Key low, Key high)
+    {
+        if (low != null && high != null)
+        {
+            if (low.compareTo(high) >= 0)
+            {
+                return new ArrayList<Movie>().iterator();
+            }
+            return view.subMap(low, true, high, false).values().iterator();
+        }
+        if (low != null)
+        {
+            return view.tailMap(low, true).values().iterator();
+        }
+        if (high != null)
+        {
+            return view.headMap(high, false).values().iterator();
+        }
+        return view.values().iterator();
+    }
+    
+    private static Key titleKey(Movie movie)
+    {
+        return new Key(0, movie.getTitle(), "", movie.getId());
+    }
+    
+    private static Key ratingKey(Movie movie)
+    {
+        return new Key(movie.getRating(), movie.getTitle(), "", movie.getId());
+    }
+    
+    private static Key directorKey(Movie movie)
+    {
+        return new Key(0, movie.getDirector(), movie.getTitle(), movie.getId());
+    }
+    
+    /**
+     * Key is where a movie sits in a view: rating (highest first), then two strings compared ignoring
+     * case, then id. A null string sorts after every other string, for the upper bound of a range.
+     */
+    private static class Key implements Comparable<Key>
+    {
+        private int rating;
+        private String first;
+        private String second;
+        private int id;
+        
+        private Key(int keyRating, String keyFirst, String keySecond, int keyId)
+        {
+            rating = keyRating;
+            first = keyFirst;
+            second = keySecond;
+            id = keyId;
+        }
+        
+        public int compareTo(Key other)
+        {
+            if (rating != other.rating)
+            {
+                return (rating > other.rating) ? -1 : 1;
+            }
+            int compared = compareStrings(first, other.first);
+            if (compared != 0)
+            {
+                return compared;
+            }
+            compared = compareStrings(second, other.second);
+            return (compared != 0) ? compared : Integer.compare(id, other.id);
+        }
+        
+        private static int compareStrings(String a, String b)
+        {
+            if (a == null || b == null)
+            {
+                return (a == b) ? 0 : ((a == null) ? 1 : -1);
+            }
+            return a.compareToIgnoreCase(b);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * TextSearchIndex finds movies whose title, director or actors contain a piece of text, for
+ * search-as-you-type. Matching is case-insensitive.
+ * 
+ * Every three character sequence (trigram) of the lowercase fields is mapped to the movies containing
+ * it. A query of three or more characters looks up its own trigrams, takes the smallest set of movies
+ * and checks only those. Shorter queries match the start of words, found with a sorted map of words.
+ * Every match is ranked, best first, and only the top results are kept.
+ * 
+ * A one or two character query can match most of the catalogue, so for each one and two character
+ * word prefix the best SHORT_QUERY_RESULTS movies are kept ranked as movies are added and removed.
+ * A typeahead query asking for no more than that reads its results off the list instead of ranking
+ * every movie with a matching word.
+ * 
+ * The index must be told about a movie before its fields change (remove) and after (add), as
+ * Database does through its movieUpdating and movieUpdated hooks.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class TextSearchIndex
+{
+    // Movies kept ranked for each one and two character query, a list is refilled once it falls to half this
+    static final int SHORT_QUERY_RESULTS = 100;
+    
+    private HashMap<Long, HashSet<Movie>> trigrams;
+    private TreeMap<String, HashSet<Movie>> words;
+    private HashMap<String, RankedMovies> shortQueries;
+
+    /**
+     * Constructor for objects of class TextSearchIndex
+     */
+    public TextSearchIndex()
+    {
+        trigrams = new HashMap<Long, HashSet<Movie>>();
+        words = new TreeMap<String, HashSet<Movie>>();
+        shortQueries = new HashMap<String, RankedMovies>();
+    }
+    
+    /**
+     * Constructor for objects of class TextSearchIndex
+     * 
+     * @param - movies - movies to start with, null entries are skipped
+     */
+    public TextSearchIndex(ArrayList<Movie> movies)
+    {
+        this();
+        for (int i = 0; i < movies.size(); i++)
+        {
+            if (movies.get(i) != null)
+            {
+                add(movies.get(i));
+            }
+        }
+    }
+    
+    // Add a movie to the index under its current title, director and actors
+    public void add(Movie movie)
+    {
+        ArrayList<String> fields = lowercaseFields(movie);
+        Iterator<Long> it = trigramsOf(fields).iterator();
+        while (it.hasNext())
+        {
+            Long trigram = it.next();
+            HashSet<Movie> matches = trigrams.get(trigram);
+            if (matches == null)
+            {
+                matches = new HashSet<Movie>();
+                trigrams.put(trigram, matches);
+            }
+            matches.add(movie);
+        }
+        
+        HashSet<String> movieWords = wordsOf(fields);
+        Iterator<String> itWords = movieWords.iterator();
+        while (itWords.hasNext())
+        {
+            String word = itWords.next();
+            HashSet<Movie> matches = words.get(word);
+            if (matches == null)
+            {
+                matches = new HashSet<Movie>();
+                words.put(word, matches);
+            }
+            matches.add(movie);
+        }
+        
+        Iterator<String> itPrefixes = shortPrefixesOf(movieWords).iterator();
+        while (itPrefixes.hasNext())
+        {
+            String prefix = itPrefixes.next();
+            RankedMovies ranked = shortQueries.get(prefix);
+            if (ranked == null)
+            {
+                ranked = new RankedMovies();
+                shortQueries.put(prefix, ranked);
+            }
+            ranked.add(new ScoredMovie(movie, score(movie, prefix)));
+        }
+    }
+    
+    // Remove a movie from the index, its fields must be the same as when it was added
+    public void remove(Movie movie)
+    {
+        ArrayList<String> fields = lowercaseFields(movie);
+        Iterator<Long> it = trigramsOf(fields).iterator();
+        while (it.hasNext())
+        {
+            Long trigram = it.next();
+            HashSet<Movie> matches = trigrams.get(trigram);
+            if (matches != null)
+            {
+                matches.remove(movie);
+                if (matches.isEmpty())
+                {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+        
+        HashSet<String> movieWords = wordsOf(fields);
+        Iterator<String> itWords = movieWords.iterator();
+        while (itWords.hasNext())
+        {
+            String word = itWords.next();
+            HashSet<Movie> matches = words.get(word);
+            if (matches != null)
+            {
+                matches.remove(movie);
+                if (matches.isEmpty())
+                {
+                    words.remove(word);
+                }
+            }
+        }
+        
+        // Done after the words are updated, as a list that runs low is refilled from them
+        Iterator<String> itPrefixes = shortPrefixesOf(movieWords).iterator();
+        while (itPrefixes.hasNext())
+        {
+            String prefix = itPrefixes.next();
+            RankedMovies ranked = shortQueries.get(prefix);
+            if (ranked != null && ranked.remove(movie))
+            {
+                if (ranked.movies.isEmpty() && ranked.complete)
+                {
+                    shortQueries.remove(prefix);
+                }
+                else if (!ranked.complete && ranked.movies.size() <= SHORT_QUERY_RESULTS / 2)
+                {
+                    shortQueries.put(prefix, rankAll(prefix, SHORT_QUERY_RESULTS));
+                }
+            }
+        }
+    }
+    
+    public void clear()
+    {
+        trigrams.clear();
+        words.clear();
+        shortQueries.clear();
+    }
+    
+    /*
+     * Search for movies with a title, director or actor containing the query text
+     * 
+     * Takes as arguments:
+     *      query      - text to look for, case-insensitive. Queries of one or two characters only match the start of words
+     *      maxResults - most movies to return
+     * 
+     * Returns the best matching movies, best first. Exact field matches rank above prefix matches, then
+     * word prefix matches, then matches anywhere. Title matches rank above director and actor matches,
+     * and equal matches are ordered by rating, highest first, then title. One and two character
+     * queries for at most SHORT_QUERY_RESULTS movies are read off the kept rankings, larger requests
+     * rank every movie with a word starting with the query. The index is not changed, so searches can
+     * run at the same time as each other.
+     */
+    public ArrayList<Movie> search(String query, int maxResults)
+    {
+        String queryLower = query.trim().toLowerCase();
+        if (queryLower.length() == 0 || maxResults <= 0)
+        {
+            return new ArrayList<Movie>();
+        }
+        
+        if (queryLower.length() < 3)
+        {
+            // Every movie with a word starting with the query is in its list, so no list means no matches
+            RankedMovies ranked = shortQueries.get(queryLower);
+            if (ranked == null)
+            {
+                return new ArrayList<Movie>();
+            }
+            if (!ranked.complete && ranked.movies.size() < maxResults)
+            {
+                ranked = rankAll(queryLower, maxResults);
+            }
+            ArrayList<Movie> results = new ArrayList<Movie>();
+            for (int i = 0; i < ranked.movies.size() && i < maxResults; i++)
+            {
+                results.add(ranked.movies.get(i).movie);
+            }
+            return results;
+        }
+        
+        // Every trigram of the query must be in a matching movie, so only the smallest set needs checking
+        HashSet<Movie> smallest = null;
+        Iterator<Long> it = trigramsOf(queryLower).iterator();
+        while (it.hasNext())
+        {
+            HashSet<Movie> matches = trigrams.get(it.next());
+            if (matches == null)
+            {
+                return new ArrayList<Movie>();
+            }
+            if (smallest == null || matches.size() < smallest.size())
+            {
+                smallest = matches;
+            }
+        }
+        
+        PriorityQueue<ScoredMovie> best = new PriorityQueue<ScoredMovie>();  // worst of the kept matches at the head
+        Iterator<Movie> itMovies = smallest.iterator();
+        while (itMovies.hasNext())
+        {
+            offer(best, itMovies.next(), queryLower, maxResults);
+        }
+        
+        ArrayList<Movie> results = new ArrayList<Movie>();
+        while (!best.isEmpty())
+        {
+            results.add(best.poll().movie);
+        }
+        Collections.reverse(results);
+        return results;
+    }
+    
+    /*
+     * Rank every movie with a word starting with a one or two character query, walking the words in
+     * sorted order from the query, and keep the best count of them
+     */
+    private RankedMovies rankAll(String queryLower, int count)
+    {
+        // One more than asked for is kept, to tell whether the ranking holds every match
+        int kept = (count == Integer.MAX_VALUE) ? count : count + 1;
+        PriorityQueue<ScoredMovie> best = new PriorityQueue<ScoredMovie>();
+        Iterator<Map.Entry<String, HashSet<Movie>>> it = words.tailMap(queryLower, true).entrySet().iterator();
+        HashSet<Movie> seen = new HashSet<Movie>();
+        while (it.hasNext())
+        {
+            Map.Entry<String, HashSet<Movie>> entry = it.next();
+            if (!entry.getKey().startsWith(queryLower))
+            {
+                break;
+            }
+            Iterator<Movie> itMovies = entry.getValue().iterator();
+            while (itMovies.hasNext())
+            {
+                Movie movie = itMovies.next();
+                if (seen.add(movie))
+                {
+                    offer(best, movie, queryLower, kept);
+                }
+            }
+        }
+        
+        RankedMovies ranked = new RankedMovies();
+        ranked.complete = best.size() <= count;
+        if (!ranked.complete)
+        {
+            best.poll();
+        }
+        while (!best.isEmpty())
+        {
+            ranked.movies.add(best.poll());
+        }
+        Collections.reverse(ranked.movies);
+        return ranked;
+    }
+    
+    // Score a candidate movie and keep it if it is among the best maxResults seen so far
+    private static void offer(PriorityQueue<ScoredMovie> best, Movie movie, String queryLower, int maxResults)
+    {
+        int score = score(movie, queryLower);
+        if (score == 0)
+        {
+            return;  // the trigrams matched but not next to each other
+        }
+        
+        ScoredMovie scored = new ScoredMovie(movie, score);
+        if (best.size() < maxResults)
+        {
+            best.add(scored);
+        }
+        else if (scored.compareTo(best.peek()) > 0)
+        {
+            best.poll();
+            best.add(scored);
+        }
+    }
+    
+    /*
+     * Score how well a movie matches the query, 0 if it doesn't. The kind of match counts most and
+     * the field it was found in breaks ties: title, then director, then actors.
+     */
+    private static int score(Movie movie, String queryLower)
+    {
+        int best = score(movie.getTitle().toLowerCase(), queryLower) * 4 + 3;
+        best = Math.max(best, score(movie.getDirector().toLowerCase(), queryLower) * 4 + 2);
+        ArrayList<String> actors = movie.getActors();
+        for (int i = 0; i < actors.size(); i++)
+        {
+            best = Math.max(best, score(actors.get(i).toLowerCase(), queryLower) * 4 + 1);
+        }
+        return (best < 4) ? 0 : best;  // below 4 means no field matched
+    }
+    
+    // 4 if the field is the query, 3 if it starts with it, 2 if a word starts with it, 1 if it's anywhere, otherwise 0
+    private static int score(String field, String queryLower)
+    {
+        if (field.equals(queryLower))
+        {
+            return 4;
+        }
+        if (field.startsWith(queryLower))
+        {
+            return 3;
+        }
+        int index = field.indexOf(queryLower);
+        int bestScore = 0;
+        while (index >= 0)
+        {
+            if (!Character.isLetterOrDigit(field.charAt(index - 1)))
+            {
+                return 2;
+            }
+            bestScore = 1;
+            index = field.indexOf(queryLower, index + 1);
+        }
+        return bestScore;
+    }
+    
+    private static ArrayList<String> lowercaseFields(Movie movie)
+    {
+        ArrayList<String> fields = new ArrayList<String>();
+        fields.add(movie.getTitle().toLowerCase());
+        fields.add(movie.getDirector().toLowerCase());
+        ArrayList<String> actors = movie.getActors();
+        for (int i = 0; i < actors.size(); i++)
+        {
+            fields.add(actors.get(i).toLowerCase());
+        }
+        return fields;
+    }
+    
+    // Distinct trigrams of all fields, each packed into a long as three 16 bit characters
+    private static HashSet<Long> trigramsOf(ArrayList<String> fields)
+    {
+        HashSet<Long> found = new HashSet<Long>();
+        for (int i = 0; i < fields.size(); i++)
+        {
+            found.addAll(trigramsOf(fields.get(i)));
+        }
+        return found;
+    }
+    
+    private static HashSet<Long> trigramsOf(String text)
+    {
+        HashSet<Long> found = new HashSet<Long>();
+        for (int i = 0; i + 3 <= text.length(); i++)
+        {
+            found.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return found;
+    }
+    
+    // Distinct one and two character prefixes of the words, the short queries the words match
+    private static HashSet<String> shortPrefixesOf(HashSet<String> fieldWords)
+    {
+        HashSet<String> found = new HashSet<String>();
+        Iterator<String> it = fieldWords.iterator();
+        while (it.hasNext())
+        {
+            String word = it.next();
+            found.add(word.substring(0, 1));
+            if (word.length() > 1)
+            {
+                found.add(word.substring(0, 2));
+            }
+        }
+        return found;
+    }
+    
+    // Distinct words of all fields, a word is a run of letters and digits
+    private static HashSet<String> wordsOf(ArrayList<String> fields)
+    {
+        HashSet<String> found = new HashSet<String>();
+        for (int i = 0; i < fields.size(); i++)
+        {
+            String field = fields.get(i);
+            int start = -1;
+            for (int j = 0; j <= field.length(); j++)
+            {
+                boolean wordChar = j < field.length() && Character.isLetterOrDigit(field.charAt(j));
+                if (wordChar && start < 0)
+                {
+                    start = j;
+                }
+                else if (!wordChar && start >= 0)
+                {
+                    found.add(field.substring(start, j));
+                    start = -1;
+                }
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * RankedMovies holds the best matches of a short query, best first. If complete is false there are
+     * more matches, each ranked no higher than the last one kept. Kept to at most SHORT_QUERY_RESULTS.
+     */
+    private static class RankedMovies
+    {
+        ArrayList<ScoredMovie> movies = new ArrayList<ScoredMovie>();
+        boolean complete = true;
+        
+        // Add a newly indexed match, if it belongs among the best
+        void add(ScoredMovie scored)
+        {
+            int position = movies.size();
+            while (position > 0 && scored.compareTo(movies.get(position - 1)) > 0)
+            {
+                position--;
+            }
+            // A match ranked below every kept one might rank below a match that isn't kept either
+            if (!complete && position == movies.size())
+            {
+                return;
+            }
+            movies.add(position, scored);
+            if (movies.size() > SHORT_QUERY_RESULTS)
+            {
+                movies.remove(movies.size() - 1);
+                complete = false;
+            }
+        }
+        
+        // Remove a movie, returns false if it wasn't kept
+        boolean remove(Movie movie)
+        {
+            for (int i = 0; i < movies.size(); i++)
+            {
+                if (movies.get(i).movie == movie)
+                {
+                    movies.remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    // A movie with its match score, ordered from worst match to best
+    private static class ScoredMovie implements Comparable<ScoredMovie>
+    {
+        Movie movie;
+        int score;
+        
+        ScoredMovie(Movie scoredMovie, int matchScore)
+        {
+            movie = scoredMovie;
+            score = matchScore;
+        }
+        
+        public int compareTo(ScoredMovie other)
+        {
+            if (score != other.score)
+            {
+                return Integer.compare(score, other.score);
+            }
+            if (movie.getRating() != other.movie.getRating())
+            {
+                return Integer.compare(movie.getRating(), other.movie.getRating());
+            }
+            return other.movie.getTitle().compareToIgnoreCase(movie.getTitle());  // earlier titles rank higher
+        }
+    }
+}
@@ -10,6 +10,8 @@ import java.util.Scanner;
 public class UserInput
 {
     final static String ESC = "\033[";
+    // One Scanner shared by every UserInput, a Scanner per call would buffer ahead and lose piped input
+    private static final Scanner CONSOLE = new Scanner(System.in);
 
     /**
      * Constructor for UserInput
@@ -21,9 +23,13 @@ public class UserInput
     
     // Clears the terminal screen for user, requires console to support ANSI escape sequences
     // Taken from: http://stackoverflow.com/questions/4888362/commands-in-java-to-clear-the-screen
+    // Nothing is printed when input or output is redirected, as there is no screen to clear
     public void clearScreen()
     {
-        System.out.print(ESC + "2J"); 
+        if (System.console() != null)
+        {
+            System.out.print(ESC + "2J"); 
+        }
     }
     
     /*
@@ -56,7 +62,7 @@ public class UserInput
     // Generic method that pauses execution until user presses enter
     public void pressEnterToContinue()
     {
-       Scanner console = new Scanner(System.in);
+       Scanner console = CONSOLE;
        System.out.print("Press enter to continue...");
        console.nextLine();
     }
@@ -74,7 +80,7 @@ public class UserInput
      */
     public int readIntegerFromUser(int maxNumber, String inputPrompt)
     {
-        Scanner console = new Scanner(System.in);  // Create a scanner object read input from user
+        Scanner console = CONSOLE;  // Shared scanner object to read input from user
         boolean error = true;  //error is true to begin as we have no number from user initiall
         int numberChosen = 0;
         int inputNumber = -1;
@@ -154,7 +160,7 @@ public class UserInput
      */
     public String readStringFromUser(String messagePrompt, boolean emptyStringAllowed)
     {
-       Scanner console = new Scanner(System.in); // Create a scanner object read input from user
+       Scanner console = CONSOLE; // Shared scanner object to read input from user
        System.out.print(messagePrompt);
        String inputName = console.nextLine();
        inputName = inputName.trim();   // Remove spaces from either end of the string so whitespace alone isn't accepted
@@ -0,0 +1,50 @@
+import java.util.ArrayList;
+
+import movielibrary.bench.CatalogueWorkload;
+
+/**
+ * DatabaseWorkload runs the benchmark operations against a Database.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class DatabaseWorkload implements CatalogueWorkload
+{
+    private Database movies;
+    
+    public DatabaseWorkload()
+    {
+        movies = new Database();
+    }
+    
+    public void prepare(String movieFile, String loadMode)
+    {
+        movies = (Database) load(movieFile, loadMode);
+    }
+    
+    public Object load(String movieFile, String loadMode)
+    {
+        Database loaded = new Database();
+        loaded.loadDatabaseFromFile(movieFile, LoadMode.valueOf(loadMode));
+        return loaded;
+    }
+    
+    public void save(String filename)
+    {
+        movies.saveMoviesToFile(filename);
+    }
+    
+    public Object search(String searchString, String searchKey, int minRating)
+    {
+        return movies.searchForMovie(searchString, searchKey, minRating);
+    }
+    
+    public Object deleteAndReAdd(String title)
+    {
+        ArrayList<Movie> found = movies.searchForMovie(title, "title", 0);
+        Movie movie = found.get(0);
+        movies.deleteMovie(movie);
+        movies.addMovie(movie);
+        return movie;
+    }
+}
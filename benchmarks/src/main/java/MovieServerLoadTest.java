@@ -0,0 +1,216 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * MovieServerLoadTest starts a MovieHttpServer on a generated catalogue and keeps a fixed number
+ * of requests in flight against it from one process, then reports throughput and latency. It is
+ * built into the benchmarks jar:
+ * 
+ *    java -cp target/benchmarks.jar MovieServerLoadTest [movies] [concurrent requests] [seconds]
+ * 
+ * Defaults are 100000 movies, 2000 concurrent requests and 10 seconds. The mix is mostly title and
+ * director searches for titles and directors in the catalogue, with some favourites pages and a
+ * few adds each followed by a delete of the same title. Latency is measured from sending a
+ * request to its response arriving, so it includes time queued behind other requests. Throughput
+ * is the 2xx responses received per second, from the first request sent to the last response, so
+ * requests that failed or were turned away don't count.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class MovieServerLoadTest
+{
+    private static final int SAMPLE_SIZE = 1000;
+    
+    private HttpClient client;
+    private String baseUri;
+    private int concurrency;
+    private Semaphore inFlight;
+    private LatencyHistogram latencies;
+    private AtomicLong failures;
+    private AtomicLong[] statusCounts;  // responses by status / 100
+    private String[] titles;
+    private String[] directors;
+    private long changes;  // adds and deletes sent
+    
+    /**
+     * Constructor for objects of class MovieServerLoadTest
+     * 
+     * @param - port - port of a running MovieHttpServer on this machine
+     * @param - inFlightRequests - most requests in flight at once
+     * @param - sample - movies whose titles and directors are searched for
+     */
+    public MovieServerLoadTest(int port, int inFlightRequests, List<Movie> sample)
+    {
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(30)).build();
+        baseUri = "http://127.0.0.1:" + port;
+        concurrency = inFlightRequests;
+        inFlight = new Semaphore(inFlightRequests);
+        latencies = new LatencyHistogram();
+        failures = new AtomicLong();
+        statusCounts = new AtomicLong[6];
+        for (int i = 0; i < statusCounts.length; i++)
+        {
+            statusCounts[i] = new AtomicLong();
+        }
+        titles = new String[sample.size()];
+        directors = new String[sample.size()];
+        for (int i = 0; i < sample.size(); i++)
+        {
+            titles[i] = sample.get(i).getTitle();
+            directors[i] = sample.get(i).getDirector();
+        }
+    }
+    
+    /*
+     * Send requests until the time is up, then wait for those still in flight
+     * 
+     * Returns the number of requests sent
+     */
+    public long run(long durationNanos, long seed) throws InterruptedException
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+        long deadline = System.nanoTime() + durationNanos;
+        long sent = 0;
+        while (System.nanoTime() < deadline)
+        {
+            inFlight.acquire();
+            send(nextRequest(random));
+            sent++;
+        }
+        // Every permit is back once the last response has arrived
+        inFlight.acquire(concurrency);
+        inFlight.release(concurrency);
+        return sent;
+    }
+    
+    public LatencyHistogram getLatencies()
+    {
+        return latencies;
+    }
+    
+    // Requests that got no response, because of a connection error or timeout
+    public long getFailures()
+    {
+        return failures.get();
+    }
+    
+    // Responses with the given status class, 2 for 2xx and so on
+    public long getStatusCount(int statusClass)
+    {
+        return statusCounts[statusClass].get();
+    }
+    
+    private HttpRequest nextRequest(SplittableRandom random)
+    {
+        int choice = random.nextInt(100);
+        int pick = random.nextInt(titles.length);
+        if (choice < 60)
+        {
+            return get("/movies/search?key=title&limit=20&q=" + encode(titles[pick]));
+        }
+        if (choice < 90)
+        {
+            return get("/movies/search?key=director&limit=20&q=" + encode(directors[pick]));
+        }
+        if (choice < 98)
+        {
+            return get("/movies/favourites?limit=20&min=" + (1 + random.nextInt(10)) + "&offset=" + random.nextInt(200));
+        }
+        
+        // Adds and deletes of the same title alternate so the catalogue stays the same size, a delete
+        // can overtake its add as requests are in flight together
+        String title = "Load test movie " + (changes / 2);
+        changes++;
+        if (changes % 2 == 1)
+        {
+            String body = "{\"title\":\"" + title + "\",\"director\":\"" + directors[pick] + "\",\"actors\":[\"Someone\"],\"rating\":"
+                + (1 + random.nextInt(10)) + "}";
+            return HttpRequest.newBuilder(URI.create(baseUri + "/movies")).timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+        return HttpRequest.newBuilder(URI.create(baseUri + "/movies?title=" + encode(title))).timeout(Duration.ofSeconds(60)).DELETE().build();
+    }
+    
+    private HttpRequest get(String path)
+    {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+    
+    private void send(HttpRequest request)
+    {
+        final long start = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete(new BiConsumer<HttpResponse<Void>, Throwable>()
+        {
+            public void accept(HttpResponse<Void> response, Throwable error)
+            {
+                if (error == null)
+                {
+                    latencies.record(System.nanoTime() - start);
+                    statusCounts[Math.min(5, response.statusCode() / 100)].incrementAndGet();
+                }
+                else
+                {
+                    failures.incrementAndGet();
+                }
+                inFlight.release();
+            }
+        });
+    }
+    
+    private static String encode(String value)
+    {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int movieCount = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+        int concurrency = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+        int seconds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        
+        File catalogueFile = File.createTempFile("movies", ".txt");
+        catalogueFile.deleteOnExit();
+        new CatalogueGenerator(42).writeText(catalogueFile.getPath(), movieCount);
+        ConcurrentDatabase database = new ConcurrentDatabase();
+        database.loadDatabaseFromFile(catalogueFile.getPath());
+        List<Movie> movies = database.getAllMovies();
+        List<Movie> sample = movies.subList(0, Math.min(SAMPLE_SIZE, movies.size()));
+        
+        MovieHttpServer server = new MovieHttpServer(database, 0);
+        server.start();
+        System.out.print("Serving " + movies.size() + " movies on port " + server.getPort()
+            + (server.isUsingVirtualThreads() ? " with virtual threads\n" : " with a thread pool\n"));
+        
+        MovieServerLoadTest loadTest = new MovieServerLoadTest(server.getPort(), concurrency, sample);
+        // A short warm up so the JIT has compiled the request path before it is measured
+        loadTest.run(Math.min(2, seconds) * 1000000000L, 1);
+        loadTest = new MovieServerLoadTest(server.getPort(), concurrency, sample);
+        long start = System.nanoTime();
+        long sent = loadTest.run(seconds * 1000000000L, 2);
+        double elapsed = (System.nanoTime() - start) / 1e9;  // run returns once the last response has arrived
+        server.stop(1);
+        
+        LatencyHistogram latencies = loadTest.getLatencies();
+        long succeeded = loadTest.getStatusCount(2);
+        System.out.print(String.format("%d requests sent in %.1f s with %d in flight: %.0f 2xx responses/s\n", sent, elapsed, concurrency,
+            succeeded / elapsed));
+        System.out.print(String.format("2xx %d, 4xx %d, 5xx %d, failed %d\n", succeeded, loadTest.getStatusCount(4),
+            loadTest.getStatusCount(5), loadTest.getFailures()));
+        System.out.print(String.format("latency ms: mean %.2f, p50 %.2f, p99 %.2f, p99.9 %.2f, max %.2f\n", latencies.getMean() / 1e6,
+            latencies.getValueAtPercentile(50) / 1e6, latencies.getValueAtPercentile(99) / 1e6,
+            latencies.getValueAtPercentile(99.9) / 1e6, latencies.getMax() / 1e6));
+    }
+}
@@ -0,0 +1,78 @@
+package movielibrary.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * BenchmarkCatalogue writes the movie files the benchmarks run against. Files are generated from a
+ * fixed seed so every run and every release sees the same data, and are kept in the temporary
+ * directory so large catalogues are only generated once.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public class BenchmarkCatalogue
+{
+    private static final long SEED = 42;
+    
+    /*
+     * Return a movie file with the given number of movies, generating it if it doesn't exist yet
+     * 
+     * @throws IOException if the file can not be written
+     */
+    public static String fileWithMovies(int movieCount) throws IOException
+    {
+        Path file = Paths.get(System.getProperty("java.io.tmpdir"), "movielibrary-bench-" + movieCount + ".txt");
+        if (!Files.exists(file))
+        {
+            generate(file, movieCount);
+        }
+        return file.toString();
+    }
+    
+    // Title of the movie on the given line of a generated file, line numbers start at 0
+    public static String titleOf(int line)
+    {
+        return "Movie " + line;
+    }
+    
+    // Director of the movie on the given line of a generated file
+    public static String directorOf(int line, int movieCount)
+    {
+        return "Director " + new Random(SEED + line).nextInt(Math.max(1, movieCount / 20));
+    }
+    
+    private static void generate(Path file, int movieCount) throws IOException
+    {
+        Random random = new Random(SEED);
+        int actorCount = Math.max(1, movieCount / 5);
+        String[] actors = new String[3];
+        StringBuilder text = new StringBuilder();
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        
+        // Write in batches so the catalogue never has to fit in memory at once
+        for (int line = 0; line < movieCount; line++)
+        {
+            int movieActors = random.nextInt(4);
+            for (int i = 0; i < actors.length; i++)
+            {
+                actors[i] = i < movieActors ? "Actor " + random.nextInt(actorCount) : "";
+            }
+            text.append(titleOf(line)).append(',').append(directorOf(line, movieCount)).append(',');
+            text.append(actors[0]).append(',').append(actors[1]).append(',').append(actors[2]).append(',');
+            text.append(1 + random.nextInt(10)).append('\n');
+            if (text.length() > (1 << 20) || line == movieCount - 1)
+            {
+                Files.write(temp, text.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                text.setLength(0);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,48 @@
+package movielibrary.bench;
+
+/**
+ * CatalogueWorkload is the set of operations the benchmarks time. JMH can only generate code for
+ * benchmarks in a named package and the library classes are in the default package, which a named
+ * package can't import, so the benchmarks load an implementation of this interface by name.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+public interface CatalogueWorkload
+{
+    /*
+     * Load the movie file the other operations work against
+     * 
+     * Takes as arguments:
+     *  @param - movieFile - name of the movie file to load
+     *  @param - loadMode - name of the LoadMode to load the file with
+     */
+    void prepare(String movieFile, String loadMode);
+    
+    // Load the movie file into a new catalogue and return the catalogue
+    Object load(String movieFile, String loadMode);
+    
+    // Save the prepared catalogue to the given file
+    void save(String filename);
+    
+    // Run searchForMovie against the prepared catalogue and return the matches
+    Object search(String searchString, String searchKey, int minRating);
+    
+    // Delete the first movie with the given title and add it back so the catalogue keeps its size
+    Object deleteAndReAdd(String title);
+    
+    /*
+     * Create the workload for the library classes on the classpath
+     * 
+     * @throws IllegalStateException if the workload class can not be loaded
+     */
+    static CatalogueWorkload create()
+    {
+        try
+        {
+            return (CatalogueWorkload) Class.forName("DatabaseWorkload").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create DatabaseWorkload\n", e);
+        }
+    }
+}
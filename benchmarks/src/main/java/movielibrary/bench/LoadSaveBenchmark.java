@@ -0,0 +1,71 @@
+package movielibrary.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LoadSaveBenchmark measures loading a movie file in each LoadMode and saving the database back
+ * to a text file, for catalogues from a thousand to ten million movies.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class LoadSaveBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int movieCount;
+    
+    @Param({"STREAMING", "PARALLEL", "MAPPED"})
+    public String loadMode;
+    
+    private CatalogueWorkload workload;
+    private String movieFile;
+    private String saveFile;
+    
+    @Setup
+    public void setUp() throws IOException
+    {
+        movieFile = BenchmarkCatalogue.fileWithMovies(movieCount);
+        saveFile = File.createTempFile("movielibrary-save", ".txt").getPath();
+        workload = CatalogueWorkload.create();
+        workload.prepare(movieFile, loadMode);
+    }
+    
+    @TearDown
+    public void tearDown()
+    {
+        new File(saveFile).delete();
+    }
+    
+    @Benchmark
+    public Object load()
+    {
+        return workload.load(movieFile, loadMode);
+    }
+    
+    @Benchmark
+    public void save()
+    {
+        workload.save(saveFile);
+    }
+}
@@ -0,0 +1,94 @@
+package movielibrary.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SearchBenchmark measures searchForMovie on each of the three search keys and deleteMovie, for
+ * catalogues from a thousand to ten million movies. Each call takes the next key from a fixed
+ * list spread over the catalogue so the benchmark doesn't just measure one hot entry.
+ * 
+ * @author (Bhavik Maneck) 
+ * @version (v1)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SearchBenchmark
+{
+    private static final int KEYS = 1024;
+    
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int movieCount;
+    
+    @Param({"8"})
+    public int minRating;
+    
+    private CatalogueWorkload workload;
+    private String[] titles;
+    private String[] directors;
+    private int next;
+    
+    @Setup
+    public void setUp() throws IOException
+    {
+        workload = CatalogueWorkload.create();
+        workload.prepare(BenchmarkCatalogue.fileWithMovies(movieCount), "STREAMING");
+        
+        titles = new String[KEYS];
+        directors = new String[KEYS];
+        for (int i = 0; i < KEYS; i++)
+        {
+            int line = (int) ((long) i * movieCount / KEYS);
+            titles[i] = BenchmarkCatalogue.titleOf(line);
+            directors[i] = BenchmarkCatalogue.directorOf(line, movieCount);
+        }
+    }
+    
+    @Benchmark
+    public Object searchByTitle()
+    {
+        next = (next + 1) % KEYS;
+        return workload.search(titles[next], "title", 0);
+    }
+    
+    @Benchmark
+    public Object searchByDirector()
+    {
+        next = (next + 1) % KEYS;
+        return workload.search(directors[next], "director", 0);
+    }
+    
+    @Benchmark
+    public Object searchFavourites()
+    {
+        return workload.search("", "favourite", minRating);
+    }
+    
+    /*
+     * Delete a movie and add it straight back, so the catalogue stays the same size for every
+     * invocation. The title search and add are cheap next to the delete, which has to find the
+     * movie in the list.
+     */
+    @Benchmark
+    public Object deleteMovie()
+    {
+        next = (next + 1) % KEYS;
+        return workload.deleteAndReAdd(titles[next]);
+    }
+}
@@ -0,0 +1,110 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the output of BatchCommands scripts, the errors they report and where save writes the
+ * movies.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class BatchCommandsTest
+{
+    @TempDir
+    File directory;
+
+    @Test
+    void commandsWriteTheirResultsAndASummary() throws IOException
+    {
+        Database database = new Database();
+        String output = run(database, null,
+                            "# a comment\n"
+                            + "add Alien,Ridley Scott,Sigourney Weaver,,,8\n"
+                            + "add Heat,Michael Mann,Al Pacino,Robert De Niro,,7\n"
+                            + "\n"
+                            + "add ALIEN,Someone,,,,5\n"
+                            + "search director ridley scott\n"
+                            + "delete heat\n"
+                            + "delete heat\n"
+                            + "search actor Al Pacino\n"
+                            + "rename Alien\n");
+
+        assertEquals(new LoadError(5, "A movie with that title already exists") + "\n"
+                     + "1 movies found\n"
+                     + "Alien,Ridley Scott,Sigourney Weaver,,,8\n"
+                     + new LoadError(8, "No movies found matching that title") + "\n"
+                     + new LoadError(9, "Expected search title <title> or search director <director>") + "\n"
+                     + new LoadError(10, "Unknown command rename") + "\n"
+                     + "Ran 8 commands: 2 movies added, 1 deleted, 4 errors\n", output);
+        assertEquals(1, database.size());
+    }
+
+    @Test
+    void favouriteCountsEveryMatchButListsOnlyTheLimit() throws IOException
+    {
+        Database database = new Database();
+        for (int i = 0; i < 50; i++)
+        {
+            database.addMovie(new Movie("Movie " + i, "Director", "Actor", "", "", 1 + i % 10));
+        }
+        database.deleteMovie(database.searchForMovie("Movie 9", "title", 0).get(0));
+        database.searchForMovie("Movie 19", "title", 0).get(0).setRating(1);
+
+        String output = run(database, null, "favourite 9 2\nfavourite 11\nfavourite 10 -1\n");
+        assertEquals("8 movies found\n"
+                     + "Movie 29,Director,Actor,,,10\n"
+                     + "Movie 39,Director,Actor,,,10\n"
+                     + new LoadError(2, "Rating should be between 1 and 10") + "\n"
+                     + new LoadError(3, "Most movies to list should not be negative") + "\n"
+                     + "Ran 3 commands: 0 movies added, 0 deleted, 2 errors\n", output);
+
+        output = run(database, null, "favourite 1\n");
+        assertTrue(output.startsWith("49 movies found\n"));
+        assertEquals(51, output.split("\n").length);
+    }
+
+    @Test
+    void saveWithoutAFileWritesTheMovieFile() throws IOException
+    {
+        String filename = new File(directory, "movies.txt").getPath();
+        Database database = new Database();
+        String output = run(database, filename, "add Alien,Ridley Scott,Sigourney Weaver,,,8\nsave\n");
+        assertEquals("Ran 2 commands: 1 movies added, 0 deleted, 0 errors\n", output);
+        Database saved = new Database();
+        saved.loadDatabaseFromFile(filename);
+        assertEquals(1, saved.size());
+
+        // With no movie file there is nowhere to save to
+        output = run(new Database(), null, "save\n");
+        assertEquals(new LoadError(1, "save needs a file name") + "\n"
+                     + "Ran 1 commands: 0 movies added, 0 deleted, 1 errors\n", output);
+
+        // A journaling database writes its journaled movie file
+        String journaled = new File(directory, "journaled.txt").getPath();
+        Database journaling = new Database();
+        journaling.openJournal(journaled + ".journal", journaled);
+        run(journaling, filename, "add Heat,Michael Mann,Al Pacino,,,7\nsave\n");
+        journaling.closeJournal();
+        Database checkpointed = new Database();
+        checkpointed.loadDatabaseFromFile(journaled);
+        assertEquals(1, checkpointed.size());
+        Database unchanged = new Database();
+        unchanged.loadDatabaseFromFile(filename);
+        assertEquals(0, unchanged.searchForMovie("Heat", "title", 0).size());
+    }
+
+    private static String run(Database database, String filename, String script) throws IOException
+    {
+        StringWriter output = new StringWriter();
+        new BatchCommands(database, filename, output).run(new BufferedReader(new StringReader(script)));
+        return output.toString();
+    }
+}
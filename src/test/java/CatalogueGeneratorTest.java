@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that CatalogueGenerator writes the same catalogue for the same seed and settings, a different
+ * one for a different seed, and files the loaders accept.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class CatalogueGeneratorTest
+{
+    @TempDir
+    File directory;
+
+    @Test
+    void sameSeedWritesTheSameTextFile() throws IOException
+    {
+        byte[] first = writeText(42, "first.txt");
+        byte[] second = writeText(42, "second.txt");
+        byte[] otherSeed = writeText(43, "other.txt");
+        assertArrayEquals(first, second);
+        assertFalse(Arrays.equals(first, otherSeed));
+    }
+
+    @Test
+    void sameSeedWritesTheSameSnapshot() throws IOException
+    {
+        byte[] first = writeSnapshot(7, "first.mvdb");
+        byte[] second = writeSnapshot(7, "second.mvdb");
+        byte[] otherSeed = writeSnapshot(8, "other.mvdb");
+        assertArrayEquals(first, second);
+        assertFalse(Arrays.equals(first, otherSeed));
+    }
+
+    @Test
+    void generatedFilesLoadWithTheMalformedLinesReported() throws IOException
+    {
+        String filename = new File(directory, "movies.txt").getPath();
+        CatalogueGenerator generator = new CatalogueGenerator(5);
+        generator.setMalformedFraction(0.1);
+        int malformed = generator.writeText(filename, 3000);
+        assertTrue(malformed > 0);
+
+        Database database = new Database();
+        database.loadDatabaseFromFile(filename);
+        assertEquals(malformed, database.getLoadErrors().size());
+        assertEquals(3000 - malformed, database.size());
+
+        String snapshot = new File(directory, "movies.mvdb").getPath();
+        new CatalogueGenerator(5).writeSnapshot(snapshot, 3000);
+        Database loaded = new Database();
+        MovieSnapshot.load(snapshot, loaded);
+        assertEquals(3000, loaded.size());
+    }
+
+    private byte[] writeText(long seed, String name) throws IOException
+    {
+        File file = new File(directory, name);
+        CatalogueGenerator generator = new CatalogueGenerator(seed);
+        generator.setMalformedFraction(0.05);
+        generator.writeText(file.getPath(), 2000);
+        return Files.readAllBytes(file.toPath());
+    }
+
+    private byte[] writeSnapshot(long seed, String name) throws IOException
+    {
+        File file = new File(directory, name);
+        new CatalogueGenerator(seed).writeSnapshot(file.getPath(), 2000);
+        return Files.readAllBytes(file.toPath());
+    }
+}
@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that ColumnarDatabase finds the same movies as Database as views are changed and deleted,
+ * and that views made before clearAll no longer change the database.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class ColumnarDatabaseTest
+{
+    @TempDir
+    File directory;
+
+    @Test
+    void searchesMatchDatabaseAsViewsChange()
+    {
+        Database database = new Database();
+        ColumnarDatabase columns = new ColumnarDatabase();
+        for (int i = 0; i < 500; i++)
+        {
+            String title = (i % 2 == 0) ? "Title " + (i % 50) : "Tïtle " + (i % 50);
+            database.addMovie(new Movie(title, "Director " + (i % 7), "Actor " + (i % 11), (i % 3 == 0) ? "" : "Extra", "", 1 + i % 10));
+            columns.addMovie(new Movie(title, "Director " + (i % 7), "Actor " + (i % 11), (i % 3 == 0) ? "" : "Extra", "", 1 + i % 10));
+        }
+        assertSameMovies(database, columns);
+
+        List<Movie> movies = new ArrayList<Movie>(database.getAllMovies());  // a copy, the list follows the deletes
+        List<Movie> views = columns.getAllMovies();
+        for (int i = 0; i < 500; i += 3)
+        {
+            movies.get(i).setRating(1 + (i * 7) % 10);
+            views.get(i).setRating(1 + (i * 7) % 10);
+            movies.get(i).setTitle("Renamed " + i);
+            views.get(i).setTitle("Renamed " + i);
+        }
+        for (int i = 1; i < 500; i += 4)
+        {
+            database.deleteMovie(movies.get(i));
+            columns.deleteMovie(views.get(i));
+        }
+        columns.deleteMovie(views.get(1));  // deleting twice changes nothing
+        views.get(1).setDirector("Director 0");
+        assertEquals(database.size(), columns.size());
+        assertSameMovies(database, columns);
+    }
+
+    @Test
+    void savedFileLoadsBackTheSameMovies()
+    {
+        ColumnarDatabase columns = new ColumnarDatabase();
+        columns.addMovie(new Movie("Amélie", "Jean-Pierre Jeunet", "Audrey Tautou", "", "", 8));
+        columns.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "Robert De Niro", "Val Kilmer", 7));
+        columns.deleteMovie(columns.searchForMovie("heat", "title", 0).get(0));
+        String filename = new File(directory, "movies.txt").getPath();
+        columns.saveMoviesToFile(filename);
+
+        ColumnarDatabase loaded = new ColumnarDatabase();
+        loaded.loadDatabaseFromFile(filename);
+        assertEquals(1, loaded.size());
+        Movie movie = loaded.getAllMovies().get(0);
+        assertEquals("Amélie", movie.getTitle());
+        assertEquals("Jean-Pierre Jeunet", movie.getDirector());
+        assertEquals(8, movie.getRating());
+    }
+
+    @Test
+    void staleViewsDoNothingAfterClearAll()
+    {
+        ColumnarDatabase columns = new ColumnarDatabase();
+        for (int i = 0; i < 40; i++)
+        {
+            columns.addMovie(new Movie("Old " + i, "Old Director", "Actor", "", "", 5));
+        }
+        Movie lastRow = columns.getAllMovies().get(39);  // past the end of the new columns
+        Movie firstRow = columns.getAllMovies().get(0);
+
+        columns.clearAll();
+        columns.addMovie(new Movie("New", "New Director", "Actor", "", "", 9));
+
+        columns.deleteMovie(lastRow);
+        columns.deleteMovie(firstRow);  // same row as the new movie
+        firstRow.setTitle("Changed");
+        lastRow.setRating(1);
+        assertEquals(1, columns.size());
+        Movie movie = columns.getAllMovies().get(0);
+        assertEquals("New", movie.getTitle());
+        assertEquals(9, movie.getRating());
+        assertEquals(1, columns.searchForMovie("new", "title", 0).size());
+        assertEquals(1, columns.searchForMovie("", "favourite", 9).size());
+        assertEquals(1, columns.searchForMovie("", "favourite", 1).size());
+    }
+
+    private static void assertSameMovies(Database database, ColumnarDatabase columns)
+    {
+        assertEquals(fieldsOf(database.getAllMovies()), fieldsOf(columns.getAllMovies()));
+        for (int i = 0; i < 50; i++)
+        {
+            assertEquals(fieldsOf(database.searchForMovie("TITLE " + i, "title", 0)), fieldsOf(columns.searchForMovie("TITLE " + i, "title", 0)));
+            assertEquals(fieldsOf(database.searchForMovie("tïtle " + i, "title", 0)), fieldsOf(columns.searchForMovie("tïtle " + i, "title", 0)));
+        }
+        for (int i = 0; i < 7; i++)
+        {
+            assertEquals(fieldsOf(database.searchForMovie("director " + i, "director", 0)), fieldsOf(columns.searchForMovie("director " + i, "director", 0)));
+        }
+        for (int rating = 0; rating <= 11; rating++)
+        {
+            assertEquals(fieldsOf(database.searchForMovie("", "favourite", rating)), fieldsOf(columns.searchForMovie("", "favourite", rating)));
+        }
+    }
+
+    private static ArrayList<String> fieldsOf(List<Movie> movies)
+    {
+        ArrayList<String> fields = new ArrayList<String>();
+        for (int i = 0; i < movies.size(); i++)
+        {
+            Movie movie = movies.get(i);
+            fields.add(movie.getTitle() + "|" + movie.getDirector() + "|" + movie.getActors() + "|" + movie.getRating());
+        }
+        return fields;
+    }
+}
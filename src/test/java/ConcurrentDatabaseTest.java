@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that ConcurrentDatabase readers see each change whole while a writer is adding and
+ * deleting, and that writers see each other's changes.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class ConcurrentDatabaseTest
+{
+    private static final int MOVIES = 1000;
+    private static final int READERS = 3;
+
+    @Test
+    void readersSeeEitherAllOrNoneOfEachChange() throws InterruptedException
+    {
+        final ConcurrentDatabase database = new ConcurrentDatabase();
+        for (int i = 0; i < MOVIES; i++)
+        {
+            database.addMovie(new Movie("Movie " + i, "Director", "Actor " + i, "", "", 1 + i % 10));
+        }
+
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final AtomicInteger searches = new AtomicInteger();
+        final CountDownLatch readersDone = new CountDownLatch(READERS);
+        for (int r = 0; r < READERS; r++)
+        {
+            new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    while (writing.get() && failure.get() == null)
+                    {
+                        // The writer adds one extra movie then deletes it, so a search sees MOVIES or MOVIES + 1
+                        ArrayList<Movie> found = database.searchForMovie("director", "director", 0);
+                        HashSet<String> titles = new HashSet<String>();
+                        for (int i = 0; i < found.size(); i++)
+                        {
+                            titles.add(found.get(i).getTitle());
+                        }
+                        if (found.size() < MOVIES || found.size() > MOVIES + 1 || titles.size() != found.size())
+                        {
+                            failure.set("Search found " + found.size() + " movies with " + titles.size() + " titles");
+                        }
+                        searches.incrementAndGet();
+                    }
+                    readersDone.countDown();
+                }
+            }).start();
+        }
+
+        for (int i = 0; i < 2000 && failure.get() == null; i++)
+        {
+            database.addMovie(new Movie("Extra " + i, "Director", "Someone", "", "", 5));
+            assertEquals(1, database.deleteMoviesWithTitle("Extra " + i));
+        }
+        writing.set(false);
+        readersDone.await();
+
+        assertNull(failure.get());
+        assertTrue(searches.get() > 0);
+        assertEquals(MOVIES, database.getAllMovies().size());
+        assertEquals(MOVIES, database.searchForMovie("Director", "director", 0).size());
+    }
+
+    @Test
+    void changesAreSeenOnceTheyReturn()
+    {
+        ConcurrentDatabase database = new ConcurrentDatabase();
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 8));
+        assertEquals(1, database.searchForMovie("heat", "title", 0).size());
+        assertEquals(1, database.searchMoviesByText("pacino", 10).size());
+
+        database.deleteMovie(database.searchForMovie("Heat", "title", 0).get(0));
+        assertEquals(0, database.searchForMovie("heat", "title", 0).size());
+        assertEquals(0, database.searchMoviesByText("pacino", 10).size());
+        assertEquals(0, database.getAllMovies().size());
+    }
+
+    @Test
+    void onlyOneOfTwoWritersAddsATitle() throws InterruptedException
+    {
+        final ConcurrentDatabase database = new ConcurrentDatabase();
+        for (int round = 0; round < 200; round++)
+        {
+            final String title = "Title " + round;
+            final AtomicInteger added = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            Thread[] writers = new Thread[2];
+            for (int w = 0; w < writers.length; w++)
+            {
+                writers[w] = new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            start.await();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            return;
+                        }
+                        if (database.addMovieWithNewTitle(new Movie(title, "Director", "Actor", "", "", 5)))
+                        {
+                            added.incrementAndGet();
+                        }
+                    }
+                });
+                writers[w].start();
+            }
+            start.countDown();
+            for (int w = 0; w < writers.length; w++)
+            {
+                writers[w].join();
+            }
+            assertEquals(1, added.get());
+        }
+        assertEquals(200, database.getAllMovies().size());
+    }
+}
@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the counts DatabaseMetrics records for Database operations, including the index entries
+ * searches look at when some of them belong to deleted movies.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class DatabaseMetricsTest
+{
+    @Test
+    void operationsAreCounted()
+    {
+        Database database = new Database();
+        DatabaseMetrics metrics = database.enableMetrics();
+        Movie alien = new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8);
+        database.addMovie(alien);
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 7));
+        database.deleteMovie(alien);
+        database.searchForMovie("heat", "title", 0);
+        database.searchForMovie("heat", "title", 0);
+        database.searchForMovie("nobody", "director", 0);
+
+        assertEquals(2L, (long) metrics.getOperationCounts().get(DatabaseMetrics.ADD));
+        assertEquals(1L, (long) metrics.getOperationCounts().get(DatabaseMetrics.DELETE));
+        assertEquals(2L, (long) metrics.getOperationCounts().get(DatabaseMetrics.SEARCH_TITLE));
+        assertEquals(1L, (long) metrics.getOperationCounts().get(DatabaseMetrics.SEARCH_DIRECTOR));
+        assertEquals(0L, (long) metrics.getOperationCounts().get(DatabaseMetrics.SEARCH_FAVOURITE));
+        assertEquals(2, metrics.getIndexHits());
+        assertEquals(1, metrics.getIndexMisses());
+
+        metrics.reset();
+        assertEquals(0L, (long) metrics.getOperationCounts().get(DatabaseMetrics.SEARCH_TITLE));
+        assertEquals(0L, (long) metrics.getRowsScanned().get(DatabaseMetrics.SEARCH_TITLE));
+        assertEquals(0, metrics.getIndexHits());
+    }
+
+    @Test
+    void rowsScannedCountsDeletedEntriesStillInTheIndex()
+    {
+        Database database = new Database();
+        for (int i = 0; i < 100; i++)
+        {
+            database.addMovie(new Movie("Movie " + (i % 10), "Director " + (i % 4), "Actor", "", "", 1 + i % 10));
+        }
+        DatabaseMetrics metrics = database.enableMetrics();
+
+        // Too few deletes to purge the index, so their ids are still visited. Only the first was by director 3
+        database.deleteMovie(database.searchForMovie("movie 3", "title", 0).get(0));
+        database.deleteMovie(database.searchForMovie("movie 3", "title", 0).get(0));
+        metrics.reset();
+
+        assertEquals(8, database.searchForMovie("movie 3", "title", 0).size());
+        assertEquals(10L, (long) metrics.getRowsScanned().get(DatabaseMetrics.SEARCH_TITLE));
+
+        assertEquals(24, database.searchForMovie("director 3", "director", 0).size());
+        assertEquals(25L, (long) metrics.getRowsScanned().get(DatabaseMetrics.SEARCH_DIRECTOR));
+
+        // Ratings 9 and 10, the two deleted movies were rated 4
+        assertEquals(20, database.searchForMovie("", "favourite", 9).size());
+        assertEquals(20L, (long) metrics.getRowsScanned().get(DatabaseMetrics.SEARCH_FAVOURITE));
+        assertEquals(98, database.searchForMovie("", "favourite", 1).size());
+        assertEquals(120L, (long) metrics.getRowsScanned().get(DatabaseMetrics.SEARCH_FAVOURITE));
+
+        // A cached search looks at no index entries
+        database.enableSearchCache(10, 1000);
+        database.searchForMovie("movie 3", "title", 0);
+        database.searchForMovie("movie 3", "title", 0);
+        assertEquals(20L, (long) metrics.getRowsScanned().get(DatabaseMetrics.SEARCH_TITLE));
+    }
+}
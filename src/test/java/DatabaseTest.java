@@ -0,0 +1,293 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Tests for Database searches through its indexes as movies are added, changed and deleted, one at a
+ * time or in batches.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class DatabaseTest
+{
+    @Test
+    void titleAndDirectorSearchesIgnoreCase()
+    {
+        Database database = new Database();
+        database.addMovie(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        database.addMovie(new Movie("ALIEN", "Someone Else", "Nobody", "", "", 3));
+        database.addMovie(new Movie("Gladiator", "Ridley Scott", "Russell Crowe", "", "", 7));
+
+        assertEquals(2, database.searchForMovie("alien", "title", 0).size());
+        assertEquals(0, database.searchForMovie("alie", "title", 0).size());
+        ArrayList<Movie> byScott = database.searchForMovie("RIDLEY SCOTT", "director", 0);
+        assertEquals(2, byScott.size());
+        assertEquals("Alien", byScott.get(0).getTitle());
+        assertEquals("Gladiator", byScott.get(1).getTitle());
+        assertEquals(0, database.searchForMovie("Alien", "actor", 0).size());
+    }
+
+    @Test
+    void changedMoviesAreFoundUnderTheirNewValues()
+    {
+        Database database = new Database();
+        Movie movie = new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8);
+        database.addMovie(movie);
+
+        movie.setTitle("Aliens");
+        movie.setDirector("James Cameron");
+        assertEquals(0, database.searchForMovie("Alien", "title", 0).size());
+        assertEquals(0, database.searchForMovie("Ridley Scott", "director", 0).size());
+        assertEquals(movie, database.searchForMovie("aliens", "title", 0).get(0));
+        assertEquals(movie, database.searchForMovie("james cameron", "director", 0).get(0));
+    }
+
+    @Test
+    void deletedMoviesAreNotFoundBeforeOrAfterCompaction()
+    {
+        Database database = new Database();
+        for (int i = 0; i < 3000; i++)
+        {
+            database.addMovie(new Movie("Movie " + i, "Director " + (i % 3), "Actor", "", "", 1 + i % 10));
+        }
+
+        database.deleteMovie(database.searchForMovie("Movie 1", "title", 0).get(0));
+        assertEquals(0, database.searchForMovie("Movie 1", "title", 0).size());
+        assertEquals(999, database.searchForMovie("Director 1", "director", 0).size());
+
+        // Enough deletes to compact the list and purge the posting lists
+        for (int i = 0; i < 3000; i += 2)
+        {
+            database.deleteMoviesWithTitle("Movie " + i);
+        }
+        assertEquals(1499, database.size());
+        assertEquals(0, database.searchForMovie("Movie 2", "title", 0).size());
+        assertEquals(1, database.searchForMovie("Movie 3", "title", 0).size());
+        assertEquals(500, database.searchForMovie("Director 0", "director", 0).size());
+        assertEquals(499, database.searchForMovie("Director 1", "director", 0).size());
+    }
+
+    @Test
+    void favouriteSearchesReturnTheHighestRatedFirst()
+    {
+        Database database = new Database();
+        database.addMovie(new Movie("Six", "Director", "Actor", "", "", 6));
+        database.addMovie(new Movie("Ten", "Director", "Actor", "", "", 10));
+        database.addMovie(new Movie("Two", "Director", "Actor", "", "", 2));
+        database.addMovie(new Movie("Other Ten", "Director", "Actor", "", "", 10));
+
+        ArrayList<Movie> found = database.searchForMovie("", "favourite", 6);
+        assertEquals(3, found.size());
+        assertEquals("Ten", found.get(0).getTitle());
+        assertEquals("Other Ten", found.get(1).getTitle());
+        assertEquals("Six", found.get(2).getTitle());
+        assertEquals(4, database.searchForMovie("", "favourite", -5).size());
+        assertEquals(0, database.searchForMovie("", "favourite", 11).size());
+    }
+
+    @Test
+    void favouriteSearchesFollowRatingChangesAndDeletes()
+    {
+        Database database = new Database();
+        Movie movie = new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 5);
+        database.addMovie(movie);
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 9));
+
+        movie.setRating(10);
+        ArrayList<Movie> found = database.searchForMovie("", "favourite", 9);
+        assertEquals(2, found.size());
+        assertEquals(movie, found.get(0));
+
+        movie.setRating(1);
+        assertEquals(1, database.searchForMovie("", "favourite", 2).size());
+        assertEquals(2, database.searchForMovie("", "favourite", 1).size());
+
+        database.deleteMovie(movie);
+        assertEquals(1, database.searchForMovie("", "favourite", 1).size());
+    }
+
+    @Test
+    void addAllAddsNothingIfAnyMovieIsRejected()
+    {
+        final Database database = new Database();
+        Movie existing = new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8);
+        database.addMovie(existing);
+        final Movie heat = new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 7);
+
+        assertThrows(IllegalStateException.class, new Executable()
+        {
+            public void execute()
+            {
+                database.addAll(Arrays.asList(heat, new Movie("Ran", "Akira Kurosawa", "", "", "", 9), heat));
+            }
+        });
+        assertThrows(NullPointerException.class, new Executable()
+        {
+            public void execute()
+            {
+                database.addAll(Arrays.asList(heat, null));
+            }
+        });
+        assertEquals(1, database.size());
+        assertNull(heat.getOwner());
+        assertEquals(0, database.searchForMovie("heat", "title", 0).size());
+
+        database.addAll(Arrays.asList(heat, new Movie("Collateral", "Michael Mann", "Jamie Foxx", "", "", 10)));
+        assertEquals(3, database.size());
+        assertEquals(2, database.searchForMovie("michael mann", "director", 0).size());
+        assertEquals(existing.getId() + 1, heat.getId());
+    }
+
+    @Test
+    void deleteAllAndDeleteWhereRemoveEachMovieOnce()
+    {
+        Database database = new Database();
+        for (int i = 0; i < 3000; i++)
+        {
+            database.addMovie(new Movie("Movie " + i, "Director " + (i % 3), "Actor", "", "", 1 + i % 10));
+        }
+
+        // Movies listed twice or not in this database are not counted
+        ArrayList<Movie> batch = database.searchForMovie("Director 0", "director", 0);
+        batch.add(batch.get(0));
+        batch.add(new Movie("Elsewhere", "Director 0", "Actor", "", "", 5));
+        assertEquals(1000, database.deleteAll(batch));
+        assertEquals(2000, database.size());
+        assertEquals(0, database.searchForMovie("director 0", "director", 0).size());
+
+        int deleted = database.deleteWhere(new Predicate<Movie>()
+        {
+            public boolean test(Movie movie)
+            {
+                return movie.getRating() >= 6;
+            }
+        });
+        assertEquals(1000, deleted);
+        assertEquals(1000, database.size());
+        assertEquals(0, database.searchForMovie("", "favourite", 6).size());
+        assertEquals(500, database.searchForMovie("director 1", "director", 0).size());
+        assertEquals(1, database.searchForMovie("movie 1", "title", 0).size());
+        assertEquals(0, database.deleteMoviesWithTitle("movie 0"));
+        assertEquals(1, database.deleteMoviesWithTitle("MOVIE 1"));
+    }
+
+    @Test
+    void idsStayTheSameThroughCompactionAndAreNeverReused()
+    {
+        Database database = new Database();
+        ArrayList<Movie> added = new ArrayList<Movie>();
+        for (int i = 0; i < 3000; i++)
+        {
+            Movie movie = new Movie("Movie " + i, "Director", "Actor", "", "", 5);
+            database.addMovie(movie);
+            added.add(movie);
+        }
+        int[] ids = new int[added.size()];
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = added.get(i).getId();
+            assertTrue(i == 0 || ids[i] > ids[i - 1]);
+        }
+
+        // Enough deletes by id to compact the list
+        for (int i = 0; i < 3000; i += 2)
+        {
+            assertTrue(database.deleteMovieWithId(ids[i]));
+        }
+        assertFalse(database.deleteMovieWithId(ids[0]));
+        assertFalse(database.deleteMovieWithId(-1));
+        assertEquals(1500, database.size());
+        for (int i = 0; i < 3000; i++)
+        {
+            if (i % 2 == 0)
+            {
+                assertNull(database.movieWithId(ids[i]));
+            }
+            else
+            {
+                assertSame(added.get(i), database.movieWithId(ids[i]));
+                assertEquals(ids[i], added.get(i).getId());
+            }
+        }
+
+        // Changing a movie keeps its id
+        added.get(1).setTitle("Renamed");
+        assertSame(added.get(1), database.movieWithId(ids[1]));
+
+        database.clearAll();
+        assertNull(database.movieWithId(ids[1]));
+        Movie movie = new Movie("After Clear", "Director", "Actor", "", "", 5);
+        database.addMovie(movie);
+        assertTrue(movie.getId() > ids[ids.length - 1]);
+        List<Movie> all = database.getAllMovies();
+        assertSame(movie, database.movieWithId(all.get(0).getId()));
+    }
+
+    @Test
+    void pagesMatchSortingEveryMatch()
+    {
+        String[] words = { "alpha", "Beta", "gamma", "m", "M", "Zeta" };
+        Random random = new Random(20);
+        Database database = new Database();
+        for (int i = 0; i < 400; i++)
+        {
+            database.addMovie(new Movie(words[random.nextInt(words.length)] + " " + random.nextInt(5), words[random.nextInt(3)],
+                                        "Actor", "", "", 1 + random.nextInt(10)));
+        }
+        List<Movie> all = database.getAllMovies();
+        for (int i = 0; i < 100; i++)
+        {
+            Movie movie = all.get(random.nextInt(all.size()));
+            if (i % 2 == 0)
+            {
+                database.deleteMovie(movie);
+            }
+            else
+            {
+                movie.setRating(1 + random.nextInt(10));
+            }
+        }
+
+        String[][] searches = { { "M 3", "title" }, { "gamma", "director" }, { "", "favourite" } };
+        int[][] pages = { { 0, 10 }, { 5, 7 }, { 30, 100 }, { 0, 0 }, { 1000, 5 }, { 0, Integer.MAX_VALUE } };
+        for (int s = 0; s < searches.length; s++)
+        {
+            for (int k = 0; k < SortKey.values().length; k++)
+            {
+                SortKey order = SortKey.values()[k];
+                ArrayList<Movie> sorted = database.searchForMovie(searches[s][0], searches[s][1], 4);
+                Collections.sort(sorted, order.comparator());
+                assertEquals(sorted, database.streamMovies(searches[s][0], searches[s][1], 4, order).collect(Collectors.toList()));
+                for (int p = 0; p < pages.length; p++)
+                {
+                    int from = Math.min(pages[p][0], sorted.size());
+                    int to = (int) Math.min(sorted.size(), (long) pages[p][0] + pages[p][1]);
+                    assertEquals(sorted.subList(from, Math.max(from, to)),
+                                 database.findMovies(searches[s][0], searches[s][1], 4, order, pages[p][0], pages[p][1]),
+                                 searches[s][1] + " " + order + " page " + p);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, new Executable()
+        {
+            public void execute()
+            {
+                new Database().findMovies("", "favourite", 1, SortKey.RATING, -1, 10);
+            }
+        });
+    }
+}
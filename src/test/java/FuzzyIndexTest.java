@@ -0,0 +1,228 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Tests FuzzyIndex.valuesWithin against working out the Levenshtein distance to every value, before
+ * and after movies are added and removed.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class FuzzyIndexTest
+{
+    private static final String LETTERS = "abcde ";
+
+    @Test
+    void searchesMatchBruteForce()
+    {
+        Random random = new Random(7);
+        ArrayList<Movie> movies = new ArrayList<Movie>();
+        for (int i = 0; i < 400; i++)
+        {
+            movies.add(new Movie(randomString(random), randomString(random), randomString(random), randomString(random), "", 5));
+        }
+        movies.add(null);
+        FuzzyIndex index = new FuzzyIndex(movies);
+        checkSearches(index, movies, random);
+
+        for (int i = 0; i < 100; i++)
+        {
+            Movie added = new Movie(randomString(random), randomString(random), randomString(random), "", "", 5);
+            index.add(added);
+            movies.add(added);
+        }
+        for (int i = 0; i < 200; i++)
+        {
+            int position = random.nextInt(movies.size());
+            if (movies.get(position) != null)
+            {
+                index.remove(movies.get(position));
+                movies.set(position, null);
+            }
+        }
+        checkSearches(index, movies, random);
+    }
+
+    @Test
+    void removedValuesAreDroppedOnceTheyOutnumberTheRest()
+    {
+        Random random = new Random(25);
+        ArrayList<Movie> kept = new ArrayList<Movie>();
+        for (int i = 0; i < 300; i++)
+        {
+            kept.add(new Movie(randomString(random), randomString(random), randomString(random), "", "", 5));
+        }
+        FuzzyIndex index = new FuzzyIndex(kept);
+        int keptNodes = index.getNodeCount();
+
+        // Titles and directors that are each added once and removed, as a catalogue changes over time
+        for (int round = 0; round < 20; round++)
+        {
+            ArrayList<Movie> churned = new ArrayList<Movie>();
+            for (int i = 0; i < 2000; i++)
+            {
+                Movie movie = new Movie("churn " + round + " " + i, "director " + round + " " + i, "", "", "", 5);
+                index.add(movie);
+                churned.add(movie);
+            }
+            for (int i = 0; i < churned.size(); i++)
+            {
+                index.remove(churned.get(i));
+            }
+        }
+        // Left alone the churned values would keep about 80000 nodes, each trie keeps at most 1024 dead values
+        assertTrue(index.getNodeCount() < keptNodes + 2 * 1024 * 16, "nodes " + index.getNodeCount());
+        checkSearches(index, kept, random);
+
+        // A removed value can come back
+        Movie returning = new Movie("Churn 3 7", "Director 3 7", "", "", "", 5);
+        index.add(returning);
+        ArrayList<String> expected = new ArrayList<String>();
+        expected.add("churn 3 7");
+        assertEquals(expected, index.valuesWithin("churn 3 7", "title", 0));
+        index.remove(returning);
+        assertEquals(0, index.valuesWithin("churn 3 7", "title", 0).size());
+    }
+
+    @Test
+    void searchesIgnoreCase()
+    {
+        ArrayList<Movie> movies = new ArrayList<Movie>();
+        movies.add(new Movie("Saving Private Ryan", "Steven Spielberg", "Tom Hanks", "", "", 8));
+        movies.add(new Movie("The Matrix", "Lana Wachowski", "Keanu Reeves", "", "", 9));
+        final FuzzyIndex index = new FuzzyIndex(movies);
+
+        ArrayList<String> expected = new ArrayList<String>();
+        expected.add("saving private ryan");
+        assertEquals(expected, index.valuesWithin("Saving Privagte Ryan", "title", 1));
+        expected.set(0, "keanu reeves");
+        assertEquals(expected, index.valuesWithin("KEANAU REEVES", "actor", 2));
+        assertEquals(0, index.valuesWithin("Keanau Reeves", "actor", 0).size());
+        assertThrows(IllegalArgumentException.class, new Executable()
+        {
+            public void execute()
+            {
+                index.valuesWithin("x", "rating", 1);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, new Executable()
+        {
+            public void execute()
+            {
+                index.valuesWithin("x", "title", -1);
+            }
+        });
+    }
+
+    // Compare every field at distances 0 to 2 for searches near and far from the values held
+    private static void checkSearches(FuzzyIndex index, ArrayList<Movie> movies, Random random)
+    {
+        String[] keys = { "title", "director", "actor" };
+        for (int k = 0; k < keys.length; k++)
+        {
+            TreeSet<String> values = new TreeSet<String>();
+            for (int i = 0; i < movies.size(); i++)
+            {
+                Movie movie = movies.get(i);
+                if (movie == null)
+                {
+                    continue;
+                }
+                if (keys[k].equals("title"))
+                {
+                    values.add(movie.getTitle().toLowerCase());
+                }
+                else if (keys[k].equals("director"))
+                {
+                    values.add(movie.getDirector().toLowerCase());
+                }
+                else
+                {
+                    for (int a = 0; a < movie.getActors().size(); a++)
+                    {
+                        values.add(movie.getActors().get(a).toLowerCase());
+                    }
+                }
+            }
+            for (int s = 0; s < 50; s++)
+            {
+                String search = randomString(random).toUpperCase();
+                for (int distance = 0; distance <= 2; distance++)
+                {
+                    assertEquals(bruteForce(values, search, distance), index.valuesWithin(search, keys[k], distance),
+                                 keys[k] + " within " + distance + " of " + search);
+                }
+            }
+        }
+    }
+
+    // Values within maxDistance of the search, closest first and then alphabetically
+    private static ArrayList<String> bruteForce(TreeSet<String> values, String search, int maxDistance)
+    {
+        ArrayList<ArrayList<String>> byDistance = new ArrayList<ArrayList<String>>();
+        for (int distance = 0; distance <= maxDistance; distance++)
+        {
+            byDistance.add(new ArrayList<String>());
+        }
+        Iterator<String> it = values.iterator();
+        while (it.hasNext())
+        {
+            String value = it.next();
+            int distance = levenshtein(value, search.toLowerCase());
+            if (distance <= maxDistance)
+            {
+                byDistance.get(distance).add(value);
+            }
+        }
+        ArrayList<String> found = new ArrayList<String>();
+        for (int distance = 0; distance <= maxDistance; distance++)
+        {
+            Collections.sort(byDistance.get(distance));
+            found.addAll(byDistance.get(distance));
+        }
+        return found;
+    }
+
+    private static int levenshtein(String a, String b)
+    {
+        int[][] distances = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++)
+        {
+            distances[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++)
+        {
+            distances[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++)
+        {
+            for (int j = 1; j <= b.length(); j++)
+            {
+                int replace = distances[i - 1][j - 1] + ((a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1);
+                distances[i][j] = Math.min(replace, Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+            }
+        }
+        return distances[a.length()][b.length()];
+    }
+
+    // A short string from a small alphabet, so many values are a few edits apart
+    private static String randomString(Random random)
+    {
+        int length = 1 + random.nextInt(6);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++)
+        {
+            builder.append(LETTERS.charAt(random.nextInt(LETTERS.length() - (i == 0 ? 1 : 0))));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,170 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for MovieFileLoader: the lines each load mode accepts and rejects, with the line numbers
+ * of the rejected lines.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class MovieFileLoaderTest
+{
+    @TempDir
+    File directory;
+
+    @Test
+    void streamingLoadReportsEachRejectedLine() throws IOException
+    {
+        String filename = writeFile("small.txt",
+                                    "Alien,Ridley Scott,Sigourney Weaver,Tom Skerritt,,8\n"
+                                    + "\n"
+                                    + "Heat,Michael Mann,Al Pacino,Robert De Niro,Val Kilmer,8\r\n"
+                                    + "Only,four,fields,here\n"
+                                    + "Brazil,Terry Gilliam,Jonathan Pryce,,,eight\n"
+                                    + ",No Title,Someone,,,5\n"
+                                    + "Ran,Akira Kurosawa,Tatsuya Nakadai,,, 9 \n"
+                                    + "Jaws,Steven Spielberg,Roy Scheider,,,11\n"
+                                    + "Up,Pete Docter,Ed Asner,,,8");
+
+        ArrayList<LoadError> errors = new ArrayList<LoadError>();
+        Database database = new Database();
+        MovieFileLoader.loadStreaming(filename, database, errors);
+
+        List<Movie> movies = database.getAllMovies();
+        assertEquals(4, movies.size());
+        assertEquals("Alien", movies.get(0).getTitle());
+        assertEquals("Val Kilmer", movies.get(1).getActors().get(2));
+        assertEquals(9, movies.get(2).getRating());
+        assertEquals("Up", movies.get(3).getTitle());
+
+        assertEquals(4, errors.size());
+        assertEquals(4, errors.get(0).getLineNumber());
+        assertEquals(5, errors.get(1).getLineNumber());
+        assertEquals(6, errors.get(2).getLineNumber());
+        assertEquals(8, errors.get(3).getLineNumber());
+    }
+
+    @Test
+    void fieldsAfterTheRatingAreIgnored() throws IOException
+    {
+        String filename = writeFile("extra.txt",
+                                    "Alien,Ridley Scott,Sigourney Weaver,,,8,1979,Science fiction\n"
+                                    + "Heat,Michael Mann,Al Pacino,,,7,\n");
+
+        ArrayList<LoadError> errors = new ArrayList<LoadError>();
+        Database database = new Database();
+        MovieFileLoader.loadStreaming(filename, database, errors);
+
+        assertEquals(0, errors.size());
+        assertEquals(2, database.size());
+        assertEquals(8, database.searchForMovie("Alien", "title", 0).get(0).getRating());
+        assertEquals(7, database.searchForMovie("Heat", "title", 0).get(0).getRating());
+    }
+
+    @Test
+    void parallelLoadMatchesStreamingLoad() throws IOException
+    {
+        String filename = writeLargeFile();
+        assertSameLoad(filename, LoadMode.PARALLEL);
+    }
+
+    @Test
+    void mappedLoadMatchesStreamingLoad() throws IOException
+    {
+        String filename = writeLargeFile();
+        assertSameLoad(filename, LoadMode.MAPPED);
+    }
+
+    @Test
+    void mappedLoadReadsALastLineWithoutANewline() throws IOException
+    {
+        String filename = writeFile("last.txt", "Alien,Ridley Scott,Sigourney Weaver,,,8\r\nBroken\r\nHeat,Michael Mann,Al Pacino,,,7");
+        assertSameLoad(filename, LoadMode.MAPPED);
+    }
+
+    // Load a file with the mode and streaming, and check the movies and rejected lines are the same
+    private static void assertSameLoad(String filename, LoadMode mode)
+    {
+        Database streamed = new Database();
+        streamed.loadDatabaseFromFile(filename, LoadMode.STREAMING);
+        Database loaded = new Database();
+        loaded.loadDatabaseFromFile(filename, mode);
+
+        List<Movie> expected = streamed.getAllMovies();
+        List<Movie> movies = loaded.getAllMovies();
+        assertEquals(expected.size(), movies.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(fieldsOf(expected.get(i)), fieldsOf(movies.get(i)));
+        }
+
+        ArrayList<LoadError> expectedErrors = streamed.getLoadErrors();
+        ArrayList<LoadError> errors = loaded.getLoadErrors();
+        assertTrue(expectedErrors.size() > 0);
+        assertEquals(expectedErrors.size(), errors.size());
+        for (int i = 0; i < expectedErrors.size(); i++)
+        {
+            assertEquals(expectedErrors.get(i).getLineNumber(), errors.get(i).getLineNumber());
+            assertEquals(expectedErrors.get(i).getMessage(), errors.get(i).getMessage());
+        }
+    }
+
+    private static String fieldsOf(Movie movie)
+    {
+        return movie.getTitle() + "," + movie.getDirector() + "," + movie.getActors() + "," + movie.getRating();
+    }
+
+    // A file of several megabytes, so a parallel load splits it into chunks, with bad lines throughout
+    private String writeLargeFile() throws IOException
+    {
+        StringBuilder contents = new StringBuilder();
+        for (int i = 0; i < 80000; i++)
+        {
+            if (i % 997 == 0)
+            {
+                contents.append("Broken line ").append(i).append('\n');
+            }
+            else if (i % 1499 == 0)
+            {
+                contents.append("Movie ").append(i).append(",Director,Actor,,,not a rating\n");
+            }
+            else if (i % 2003 == 0)
+            {
+                contents.append('\n');
+            }
+            else
+            {
+                contents.append("Movie ").append(i).append(",Director ").append(i % 50).append(",Actor ").append(i % 300)
+                        .append(",Second Actor,Third Actor,").append(1 + i % 10).append('\n');
+            }
+        }
+        return writeFile("large.txt", contents.toString());
+    }
+
+    private String writeFile(String name, String contents) throws IOException
+    {
+        File file = new File(directory, name);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        try
+        {
+            writer.write(contents);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return file.getPath();
+    }
+}
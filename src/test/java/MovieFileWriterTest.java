@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that MovieFileWriter writes files MovieFileLoader reads back, and that a save which fails
+ * part way leaves the existing file as it was.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class MovieFileWriterTest
+{
+    @TempDir
+    File directory;
+
+    @Test
+    void savedFileLoadsBackTheSameMovies() throws IOException
+    {
+        Database database = new Database();
+        database.addMovie(new Movie("Amélie", "Jean-Pierre Jeunet", "Audrey Tautou", "Mathieu Kassovitz", "", 8));
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "Robert De Niro", "Val Kilmer", 7));
+        database.addMovie(new Movie("Ran", "Akira Kurosawa", "", "", "Tatsuya Nakadai", 9));
+        String filename = new File(directory, "movies.txt").getPath();
+        database.saveMoviesToFile(filename);
+
+        Database loaded = new Database();
+        loaded.loadDatabaseFromFile(filename);
+        assertEquals(0, loaded.getLoadErrors().size());
+        assertEquals(3, loaded.size());
+        for (int i = 0; i < 3; i++)
+        {
+            Movie saved = database.getAllMovies().get(i);
+            Movie read = loaded.getAllMovies().get(i);
+            assertEquals(saved.getTitle(), read.getTitle());
+            assertEquals(saved.getDirector(), read.getDirector());
+            assertEquals(saved.getActors(), read.getActors());
+            assertEquals(saved.getRating(), read.getRating());
+        }
+        assertEquals("Heat,Michael Mann,Al Pacino,Robert De Niro,Val Kilmer,7",
+                     Files.readAllLines(new File(filename).toPath(), StandardCharsets.UTF_8).get(1));
+    }
+
+    @Test
+    void failedSaveLeavesTheOldFile() throws IOException
+    {
+        final String filename = new File(directory, "movies.txt").getPath();
+        ArrayList<Movie> movies = new ArrayList<Movie>();
+        movies.add(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        MovieFileWriter.saveAtomically(filename, movies);
+        final byte[] before = Files.readAllBytes(new File(filename).toPath());
+
+        // Movies that fail to write after the first one
+        final Iterable<Movie> failing = new Iterable<Movie>()
+        {
+            public Iterator<Movie> iterator()
+            {
+                return new Iterator<Movie>()
+                {
+                    private int returned = 0;
+
+                    public boolean hasNext()
+                    {
+                        return true;
+                    }
+
+                    public Movie next()
+                    {
+                        if (returned++ > 0)
+                        {
+                            throw new IllegalStateException("Disk full");
+                        }
+                        return new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 7);
+                    }
+                };
+            }
+        };
+        assertThrows(IllegalStateException.class, new Executable()
+        {
+            public void execute() throws IOException
+            {
+                MovieFileWriter.saveAtomically(filename, failing);
+            }
+        });
+
+        assertEquals(new String(before, StandardCharsets.UTF_8),
+                     new String(Files.readAllBytes(new File(filename).toPath()), StandardCharsets.UTF_8));
+        assertFalse(new File(filename + ".tmp").exists());
+    }
+}
@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the MovieHttpServer endpoints over HTTP: search and favourites pages with the total number of
+ * matches, adds, deletes and the errors for bad requests.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class MovieHttpServerTest
+{
+    private ConcurrentDatabase database;
+    private MovieHttpServer server;
+    private HttpClient client;
+    private String baseUri;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        database = new ConcurrentDatabase();
+        for (int i = 0; i < 30; i++)
+        {
+            database.addMovie(new Movie("Movie " + i, (i % 3 == 0) ? "Ridley Scott" : "Michael Mann", "Actor", "", "", 1 + i % 10));
+        }
+        server = new MovieHttpServer(database, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+        baseUri = "http://127.0.0.1:" + server.getPort();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    void searchesReturnAPageAndTheNumberOfMatches() throws Exception
+    {
+        HttpResponse<String> response = get("/movies/search?key=director&q=RIDLEY+SCOTT&offset=2&limit=3");
+        assertEquals(200, response.statusCode());
+        List<Movie> page = database.findMovies("ridley scott", "director", 0, SortKey.INSERTION, 2, 3);
+        assertEquals("Movie 6", page.get(0).getTitle());
+        assertEquals(expectedBody(10, page), response.body());
+
+        page = database.findMovies("", "favourite", 9, SortKey.RATING, 0, 2);
+        assertEquals(10, page.get(0).getRating());
+        assertEquals(expectedBody(6, page), get("/movies/favourites?min=9&limit=2").body());
+
+        assertEquals(expectedBody(0, page.subList(0, 0)), get("/movies/search?q=Nothing").body());
+    }
+
+    @Test
+    void moviesCanBeAddedAndDeleted() throws Exception
+    {
+        String alien = "{\"title\":\"Alien\",\"director\":\"Ridley Scott\",\"actors\":[\"Sigourney Weaver\"],\"rating\":9}";
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUri + "/movies"))
+                                              .POST(HttpRequest.BodyPublishers.ofString(alien)).build());
+        assertEquals(201, response.statusCode());
+        assertEquals("Alien", Json.parseObject(response.body()).get("title"));
+        assertEquals(409, send(HttpRequest.newBuilder(URI.create(baseUri + "/movies"))
+                                   .POST(HttpRequest.BodyPublishers.ofString(alien)).build()).statusCode());
+        assertEquals(11, database.countMovies("Ridley Scott", "director", 0));
+        assertTrue(get("/movies/search?key=director&q=ridley+scott&limit=1").body().startsWith("{\"count\":11,"));
+
+        response = send(HttpRequest.newBuilder(URI.create(baseUri + "/movies?title=alien")).DELETE().build());
+        assertEquals(200, response.statusCode());
+        assertEquals(1L, Json.parseObject(response.body()).get("deleted"));
+        assertEquals(404, send(HttpRequest.newBuilder(URI.create(baseUri + "/movies?title=alien")).DELETE().build()).statusCode());
+        assertEquals(30, database.getAllMovies().size());
+    }
+
+    @Test
+    void badRequestsAreRejected() throws Exception
+    {
+        assertEquals(400, get("/movies/search?key=actor&q=Actor").statusCode());
+        assertEquals(400, get("/movies/search?key=title").statusCode());
+        assertEquals(400, get("/movies/favourites?min=11").statusCode());
+        assertEquals(400, get("/movies/favourites?limit=-1").statusCode());
+        assertEquals(400, send(HttpRequest.newBuilder(URI.create(baseUri + "/movies"))
+                                   .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Ran\",\"director\":\"Akira Kurosawa\",\"rating\":12}")).build()).statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(URI.create(baseUri + "/movies/search?q=Movie"))
+                                   .POST(HttpRequest.BodyPublishers.ofString("")).build()).statusCode());
+        assertEquals(404, get("/movies/other").statusCode());
+        assertEquals(30, database.getAllMovies().size());
+    }
+
+    private static String expectedBody(int count, List<Movie> page)
+    {
+        StringBuilder json = new StringBuilder("{\"count\":" + count + ",\"movies\":");
+        Json.appendMovies(json, page);
+        return json.append('}').toString();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception
+    {
+        return send(HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception
+    {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
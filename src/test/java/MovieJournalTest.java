@@ -0,0 +1,160 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for MovieJournal replay through Database.openJournal: a torn last entry, identical movies,
+ * entries that can't be parsed and a movie file rewritten before the journal was emptied.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class MovieJournalTest
+{
+    @TempDir
+    File directory;
+
+    private String movieFile;
+    private String journalFile;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        movieFile = new File(directory, "movies.txt").getPath();
+        journalFile = new File(directory, "movies.txt.journal").getPath();
+        new File(movieFile).createNewFile();
+    }
+
+    @Test
+    void replayCutsOffATornLastEntry() throws IOException
+    {
+        Database database = openDatabase();
+        database.addMovie(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "Robert De Niro", "", 8));
+        database.deleteMovie(database.searchForMovie("Alien", "title", 0).get(0));
+        database.closeJournal();
+        long completeLength = new File(journalFile).length();
+
+        // The start of an add whose payload and checksum were never written
+        appendBytes(new byte[] { MovieJournal.ADD, 0, 0, 0, 60, 'B', 'r' });
+
+        Database replayed = openDatabase();
+        assertEquals(1, replayed.size());
+        assertEquals("Heat", replayed.getAllMovies().get(0).getTitle());
+        assertEquals(0, replayed.getJournalErrors().size());
+        replayed.closeJournal();
+        assertEquals(completeLength, new File(journalFile).length());
+    }
+
+    @Test
+    void replayKeepsEveryCopyOfIdenticalMovies()
+    {
+        Database database = openDatabase();
+        database.addMovie(new Movie("Solaris", "Andrei Tarkovsky", "Natalya Bondarchuk", "", "", 9));
+        database.addMovie(new Movie("Solaris", "Andrei Tarkovsky", "Natalya Bondarchuk", "", "", 9));
+        database.addMovie(new Movie("Solaris", "Andrei Tarkovsky", "Natalya Bondarchuk", "", "", 9));
+        database.deleteMovie(database.searchForMovie("Solaris", "title", 0).get(0));
+        database.closeJournal();
+
+        Database replayed = openDatabase();
+        assertEquals(2, replayed.searchForMovie("Solaris", "title", 0).size());
+        replayed.closeJournal();
+    }
+
+    @Test
+    void replayReportsEntriesThatCannotBeParsed() throws IOException
+    {
+        Database database = openDatabase();
+        database.addMovie(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        database.closeJournal();
+        appendEntry(MovieJournal.ADD, "Only a title\n");
+        appendEntry(MovieJournal.ADD, "Heat,Michael Mann,Al Pacino,,,8\n");
+
+        Database replayed = openDatabase();
+        assertEquals(2, replayed.size());
+        assertEquals(1, replayed.getJournalErrors().size());
+        assertEquals(2, replayed.getJournalErrors().get(0).getLineNumber());
+        replayed.closeJournal();
+    }
+
+    @Test
+    void journalIsNotReplayedOverAMovieFileThatAlreadyHasItsChanges() throws IOException
+    {
+        Database database = openDatabase();
+        database.addMovie(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 8));
+
+        // The movie file is rewritten but the program stops before the journal is emptied
+        MovieFileWriter.saveAtomically(movieFile, database.getAllMovies());
+        database.closeJournal();
+
+        Database restarted = openDatabase();
+        assertEquals(2, restarted.size());
+        restarted.closeJournal();
+
+        Database again = openDatabase();
+        assertEquals(2, again.size());
+        again.closeJournal();
+    }
+
+    @Test
+    void checkpointWritesTheMovieFileAndEmptiesTheJournal()
+    {
+        Database database = openDatabase();
+        database.addMovie(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        database.checkpoint();
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 8));
+        database.closeJournal();
+
+        Database fromFile = new Database();
+        fromFile.loadDatabaseFromFile(movieFile);
+        assertEquals(1, fromFile.size());
+
+        Database replayed = openDatabase();
+        assertEquals(2, replayed.size());
+        replayed.closeJournal();
+    }
+
+    // A database loaded from the movie file with the journal replayed over it
+    private Database openDatabase()
+    {
+        Database database = new Database();
+        database.loadDatabaseFromFile(movieFile);
+        database.openJournal(journalFile, movieFile);
+        return database;
+    }
+
+    // Append a complete entry, with its checksum, as MovieJournal writes them
+    private void appendEntry(byte type, String payload) throws IOException
+    {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(bytes);
+        ByteBuffer entry = ByteBuffer.allocate(9 + bytes.length);
+        entry.put(type).putInt(bytes.length).put(bytes).putInt((int) crc.getValue());
+        appendBytes(entry.array());
+    }
+
+    private void appendBytes(byte[] bytes) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+        try
+        {
+            file.seek(file.length());
+            file.write(bytes);
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+}
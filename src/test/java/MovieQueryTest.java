@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Tests MovieQuery AND and OR queries through Database.searchForMovies against checking every
+ * movie, including after movies are changed and deleted.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class MovieQueryTest
+{
+    private static final String[] NAMES = { "Ann", "Bob", "Cy", "Dee", "Eve" };
+
+    @Test
+    void andAndOrQueriesMatchCheckingEveryMovie()
+    {
+        Random random = new Random(11);
+        Database database = new Database();
+        for (int i = 0; i < 600; i++)
+        {
+            database.addMovie(new Movie("Title " + (i % 40), randomName(random), randomName(random), randomName(random), "", 1 + random.nextInt(10)));
+        }
+        checkQueries(database);
+
+        List<Movie> all = database.getAllMovies();
+        for (int i = 0; i < 200; i++)
+        {
+            Movie movie = all.get(random.nextInt(all.size()));  // the list follows the deletes
+            if (i % 3 == 0)
+            {
+                database.deleteMovie(movie);
+            }
+            else if (i % 3 == 1)
+            {
+                movie.setActors(randomName(random), randomName(random), "");
+            }
+            else
+            {
+                movie.setRating(1 + random.nextInt(10));
+            }
+        }
+        checkQueries(database);
+    }
+
+    @Test
+    void emptyAndOrAreRejected()
+    {
+        assertThrows(IllegalArgumentException.class, new Executable()
+        {
+            public void execute()
+            {
+                MovieQuery.and();
+            }
+        });
+        assertThrows(IllegalArgumentException.class, new Executable()
+        {
+            public void execute()
+            {
+                MovieQuery.or();
+            }
+        });
+    }
+
+    private static void checkQueries(Database database)
+    {
+        for (int a = 0; a < NAMES.length; a++)
+        {
+            for (int b = 0; b < NAMES.length; b++)
+            {
+                String first = NAMES[a];
+                String second = NAMES[b].toUpperCase();
+                assertEquals(expected(database, first, second, 7, true),
+                             database.searchForMovies(MovieQuery.and(MovieQuery.director(first), MovieQuery.actor(second), MovieQuery.minRating(7))));
+                assertEquals(expected(database, first, second, 7, false),
+                             database.searchForMovies(MovieQuery.or(MovieQuery.director(first), MovieQuery.actor(second), MovieQuery.minRating(7))));
+            }
+        }
+
+        // OR inside AND
+        ArrayList<Movie> nested = new ArrayList<Movie>();
+        List<Movie> all = database.getAllMovies();
+        for (int i = 0; i < all.size(); i++)
+        {
+            Movie movie = all.get(i);
+            boolean byAnnOrBob = movie.getDirector().equals("Ann") || movie.getDirector().equals("Bob");
+            if (movie.getTitle().equals("Title 3") && byAnnOrBob)
+            {
+                nested.add(movie);
+            }
+        }
+        assertEquals(nested, database.searchForMovies(MovieQuery.and(MovieQuery.title("title 3"),
+                                                                     MovieQuery.or(MovieQuery.director("ann"), MovieQuery.director("bob")))));
+    }
+
+    // Movies by the director, with the actor and at least the rating (all or any of them), in the order they were added
+    private static ArrayList<Movie> expected(Database database, String director, String actor, int minRating, boolean all)
+    {
+        ArrayList<Movie> found = new ArrayList<Movie>();
+        List<Movie> movies = database.getAllMovies();
+        for (int i = 0; i < movies.size(); i++)
+        {
+            Movie movie = movies.get(i);
+            boolean byDirector = movie.getDirector().equalsIgnoreCase(director);
+            boolean withActor = false;
+            for (int a = 0; a < movie.getActors().size(); a++)
+            {
+                withActor = withActor || movie.getActors().get(a).equalsIgnoreCase(actor);
+            }
+            boolean ratedHighly = movie.getRating() >= minRating;
+            if (all ? (byDirector && withActor && ratedHighly) : (byDirector || withActor || ratedHighly))
+            {
+                found.add(movie);
+            }
+        }
+        return found;
+    }
+
+    private static String randomName(Random random)
+    {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+}
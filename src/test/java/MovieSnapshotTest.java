@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that snapshots load back the movies they were saved from, and that corrupt snapshots are
+ * rejected with an IOException rather than any other exception.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class MovieSnapshotTest
+{
+    private static final int VERSION = 1;
+
+    @TempDir
+    File directory;
+
+    @Test
+    void snapshotLoadsBackTheSameMovies() throws IOException
+    {
+        Database database = new Database();
+        database.addMovie(new Movie("Amélie", "Jean-Pierre Jeunet", "Audrey Tautou", "Mathieu Kassovitz", "", 8));
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "Robert De Niro", "Val Kilmer", 7));
+        database.addMovie(new Movie("Collateral", "Michael Mann", "Jamie Foxx", "", "", 10));
+        String filename = new File(directory, "movies.mvdb").getPath();
+        MovieSnapshot.save(filename, database.getAllMovies());
+
+        Database loaded = new Database();
+        MovieSnapshot.load(filename, loaded);
+        List<Movie> saved = database.getAllMovies();
+        List<Movie> read = loaded.getAllMovies();
+        assertEquals(saved.size(), read.size());
+        for (int i = 0; i < saved.size(); i++)
+        {
+            assertEquals(saved.get(i).getTitle(), read.get(i).getTitle());
+            assertEquals(saved.get(i).getDirector(), read.get(i).getDirector());
+            assertEquals(saved.get(i).getActors(), read.get(i).getActors());
+            assertEquals(saved.get(i).getRating(), read.get(i).getRating());
+        }
+    }
+
+    @Test
+    void corruptSnapshotsAreRejectedWithAnIOException() throws IOException
+    {
+        // Wrong magic
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'X', VERSION, 0, 0 });
+        // Cut off in the name table
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, 2, 3, 'A', 'b' });
+        // A name count that decodes to -1
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0 });
+        // A name count far larger than the file
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0 });
+        // A title length that decodes to a negative number
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, 0, 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08 });
+        // A director id past the end of the name table
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, 1, 1, 'D', 1, 1, 'T', 5, 0, 8 });
+        // A director id that decodes to a negative number
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, 1, 1, 'D', 1, 1, 'T', (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0, 8 });
+        // Four actors
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, 1, 1, 'D', 1, 1, 'T', 0, 4, 0, 0, 0, 0, 8 });
+        // A rating out of range
+        assertCorrupt(new byte[] { 'M', 'V', 'D', 'B', VERSION, 1, 1, 'D', 1, 1, 'T', 0, 0, 11 });
+    }
+
+    @Test
+    void writerThatFailsToStartLeavesNoTemporaryFile()
+    {
+        final String filename = new File(directory, "movies.mvdb").getPath();
+        assertThrows(NullPointerException.class, new Executable()
+        {
+            public void execute() throws IOException
+            {
+                new MovieSnapshot.Writer(filename, new String[] { "Ridley Scott", null }, 1);
+            }
+        });
+        assertFalse(new File(filename + ".tmp").exists());
+        assertFalse(new File(filename).exists());
+    }
+
+    // Write the bytes to a file and check loading it throws an IOException and adds no movies
+    private void assertCorrupt(byte[] bytes) throws IOException
+    {
+        final String filename = new File(directory, "corrupt.mvdb").getPath();
+        FileOutputStream out = new FileOutputStream(filename);
+        try
+        {
+            out.write(bytes);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        final Database database = new Database();
+        assertThrows(IOException.class, new Executable()
+        {
+            public void execute() throws IOException
+            {
+                MovieSnapshot.load(filename, database);
+            }
+        });
+        assertEquals(0, database.size());
+    }
+}
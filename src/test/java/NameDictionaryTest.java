@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that NameDictionary counts interns and releases, frees and reuses ids of names no longer in
+ * use, and only holds the names of movies still in a Database.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class NameDictionaryTest
+{
+    @Test
+    void namesAreRemovedOnceEveryInternIsReleased()
+    {
+        NameDictionary dictionary = new NameDictionary();
+        String first = dictionary.intern("Ridley Scott");
+        String second = dictionary.intern(new String("Ridley Scott"));
+        assertSame(first, second);
+        assertEquals(2, dictionary.getLookupCount());
+        assertEquals(1, dictionary.getHitCount());
+        assertEquals(1, dictionary.size());
+
+        dictionary.release("Ridley Scott");
+        assertEquals(0, dictionary.find("Ridley Scott"));
+        dictionary.release("Ridley Scott");
+        assertEquals(-1, dictionary.find("Ridley Scott"));
+        assertNull(dictionary.nameOf(0));
+        assertEquals(0, dictionary.size());
+
+        // Releasing again, or releasing a name never added, changes nothing
+        dictionary.release("Ridley Scott");
+        dictionary.release("Michael Mann");
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void freedIdsAreReusedForNewNames()
+    {
+        NameDictionary dictionary = new NameDictionary();
+        for (int i = 0; i < 40; i++)
+        {
+            dictionary.intern("Name " + i);
+        }
+        dictionary.release("Name 5");
+        dictionary.release("Name 30");
+        assertEquals(38, dictionary.size());
+
+        int id = dictionary.idOf("New Name");
+        assertEquals(30, id);
+        assertEquals("New Name", dictionary.nameOf(id));
+        assertEquals(5, dictionary.idOf("Another Name"));
+        assertEquals(40, dictionary.idOf("Third Name"));
+
+        // Names added with idOf alone are never removed
+        dictionary.release("Third Name");
+        assertEquals(40, dictionary.find("Third Name"));
+    }
+
+    @Test
+    void databaseDictionaryOnlyHoldsNamesInUse()
+    {
+        Database database = new Database();
+        ArrayList<Movie> movies = new ArrayList<Movie>();
+        for (int i = 0; i < 1000; i++)
+        {
+            Movie movie = new Movie("Movie " + i, "Director " + i, "Actor " + i, "Shared Actor", "", 5);
+            database.addMovie(movie);
+            movies.add(movie);
+        }
+        NameDictionary dictionary = database.getNameDictionary();
+        assertEquals(2001, dictionary.size());
+
+        // Changing names many times doesn't grow the dictionary
+        for (int round = 0; round < 20; round++)
+        {
+            for (int i = 0; i < movies.size(); i++)
+            {
+                movies.get(i).setDirector("Director " + i + " take " + round);
+            }
+        }
+        assertEquals(2001, dictionary.size());
+        assertEquals(-1, dictionary.find("Director 7 take 18"));
+        assertEquals(-1, dictionary.find("Director 7"));
+
+        for (int i = 0; i < movies.size(); i++)
+        {
+            database.deleteMovie(movies.get(i));
+        }
+        assertEquals(0, dictionary.size());
+    }
+}
@@ -0,0 +1,141 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for OffHeapDatabase deletes, compaction of deleted records, changes made through views,
+ * many movies sharing a director and views kept from before clearAll.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class OffHeapDatabaseTest
+{
+    private static final long SEGMENT_SIZE = 1 << 26;
+
+    @Test
+    void compactionKeepsIdsSearchesAndTheListing()
+    {
+        OffHeapDatabase database = new OffHeapDatabase();
+        // Records of about 120KB, so deleting most of 1000 leaves more than a segment of deleted records
+        char[] padding = new char[40000];
+        Arrays.fill(padding, 'x');
+        String actor = new String(padding);
+        for (int i = 0; i < 1000; i++)
+        {
+            database.addMovie(new Movie("Movie " + i, "Director " + (i % 7), actor, actor, actor, 1 + i % 10));
+        }
+        assertTrue(database.getOffHeapBytes() > SEGMENT_SIZE);
+
+        List<Movie> all = database.getAllMovies();
+        for (int i = 0; i < all.size(); i++)
+        {
+            if (i % 5 != 0)
+            {
+                database.deleteMovie(all.get(i));
+            }
+        }
+        assertEquals(SEGMENT_SIZE, database.getOffHeapBytes());
+        assertEquals(200, database.size());
+
+        List<Movie> left = database.getAllMovies();
+        assertEquals(200, left.size());
+        for (int i = 0; i < left.size(); i++)
+        {
+            Movie movie = left.get(i);
+            assertEquals("Movie " + (i * 5), movie.getTitle());
+            assertEquals(i * 5, movie.getId());
+            assertEquals(actor, movie.getActors().get(2));
+        }
+        assertEquals(1, database.searchForMovie("movie 995", "title", 0).size());
+        assertEquals(0, database.searchForMovie("movie 996", "title", 0).size());
+        assertEquals(29, database.searchForMovie("director 0", "director", 0).size());
+        assertEquals(100, database.searchForMovie("", "favourite", 6).size());
+        assertEquals(0, database.searchForMovie("", "favourite", 7).size());
+
+        // Deleting a view taken before compaction still deletes the right movie
+        database.deleteMovie(all.get(995));
+        assertEquals(0, database.searchForMovie("movie 995", "title", 0).size());
+        assertEquals(199, database.size());
+    }
+
+    @Test
+    void changingAViewRewritesItsRecord()
+    {
+        OffHeapDatabase database = new OffHeapDatabase();
+        database.addMovie(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 8));
+
+        Movie alien = database.searchForMovie("alien", "title", 0).get(0);
+        alien.setTitle("Aliens");
+        alien.setDirector("James Cameron");
+        alien.setRating(9);
+
+        assertEquals(0, database.searchForMovie("alien", "title", 0).size());
+        assertEquals(0, database.searchForMovie("ridley scott", "director", 0).size());
+        Movie aliens = database.searchForMovie("aliens", "title", 0).get(0);
+        assertEquals("James Cameron", aliens.getDirector());
+        assertEquals(9, aliens.getRating());
+        assertEquals(alien.getId(), aliens.getId());
+        assertEquals(1, database.searchForMovie("", "favourite", 9).size());
+        assertEquals(2, database.size());
+
+        database.deleteMovie(aliens);
+        alien.setTitle("Alien 3");  // a view of a deleted movie no longer changes anything
+        assertEquals(1, database.size());
+        assertEquals(0, database.searchForMovie("alien 3", "title", 0).size());
+    }
+
+    @Test
+    void manyMoviesCanShareADirector()
+    {
+        OffHeapDatabase database = new OffHeapDatabase();
+        for (int i = 0; i < 20000; i++)
+        {
+            database.addMovie(new Movie("Movie " + i, "Prolific Director", "Actor", "", "", 5));
+        }
+        assertEquals(20000, database.searchForMovie("prolific director", "director", 0).size());
+
+        List<Movie> all = database.getAllMovies();
+        for (int i = 0; i < all.size(); i += 2)
+        {
+            database.deleteMovie(all.get(i));
+        }
+        assertEquals(10000, database.searchForMovie("Prolific Director", "director", 0).size());
+        assertEquals(10000, database.size());
+    }
+
+    @Test
+    void staleViewsDoNothingAfterClearAll()
+    {
+        OffHeapDatabase database = new OffHeapDatabase();
+        for (int i = 0; i < 40; i++)
+        {
+            database.addMovie(new Movie("Old " + i, "Old Director", "Actor", "", "", 5));
+        }
+        Movie lastId = database.getAllMovies().get(39);  // past the end of the new address array
+        Movie firstId = database.getAllMovies().get(0);
+        Movie unusedId = database.getAllMovies().get(3);  // inside the new address array, but not handed out
+
+        database.clearAll();
+        database.addMovie(new Movie("New", "New Director", "Actor", "", "", 9));
+
+        database.deleteMovie(lastId);
+        database.deleteMovie(firstId);  // same id as the new movie
+        database.deleteMovie(unusedId);
+        firstId.setTitle("Changed");
+        lastId.setRating(1);
+        unusedId.setDirector("Changed");
+        assertEquals(1, database.size());
+        Movie movie = database.getAllMovies().get(0);
+        assertEquals("New", movie.getTitle());
+        assertEquals("New Director", movie.getDirector());
+        assertEquals(9, movie.getRating());
+        assertEquals(1, database.searchForMovie("new", "title", 0).size());
+        assertEquals(0, database.searchForMovie("changed", "title", 0).size());
+        assertEquals(1, database.searchForMovie("", "favourite", 1).size());
+    }
+}
@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a Database with its search cache on drops the cached searches a change can affect,
+ * and only those, so cached results never differ from a fresh search.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class SearchCacheTest
+{
+    private Database database;
+    private SearchCache cache;
+
+    @BeforeEach
+    void setUp()
+    {
+        database = new Database();
+        database.addMovie(new Movie("Alien", "Ridley Scott", "Sigourney Weaver", "", "", 8));
+        database.addMovie(new Movie("Heat", "Michael Mann", "Al Pacino", "", "", 7));
+        database.addMovie(new Movie("Gladiator", "Ridley Scott", "Russell Crowe", "", "", 6));
+        cache = database.enableSearchCache(100, 1000);
+    }
+
+    @Test
+    void repeatedSearchesAreHits()
+    {
+        assertEquals(2, database.searchForMovie("ridley scott", "director", 0).size());
+        assertEquals(2, database.searchForMovie("Ridley Scott", "director", 0).size());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void addingAMovieDropsTheSearchesItAppearsIn()
+    {
+        assertEquals(2, database.searchForMovie("Ridley Scott", "director", 0).size());
+        assertEquals(1, database.searchForMovie("Heat", "title", 0).size());
+        assertEquals(2, database.searchForMovie("", "favourite", 7).size());
+
+        database.addMovie(new Movie("Prometheus", "Ridley Scott", "Noomi Rapace", "", "", 7));
+        assertEquals(3, database.searchForMovie("Ridley Scott", "director", 0).size());
+        assertEquals(3, database.searchForMovie("", "favourite", 7).size());
+        assertEquals(1, database.searchForMovie("Heat", "title", 0).size());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    void deletingAMovieDropsTheSearchesItAppearsIn()
+    {
+        assertEquals(1, database.searchForMovie("Alien", "title", 0).size());
+        assertEquals(1, database.searchForMovie("Michael Mann", "director", 0).size());
+        assertEquals(3, database.searchForMovie("", "favourite", 1).size());
+
+        database.deleteMovie(database.searchForMovie("Alien", "title", 0).get(0));
+        assertEquals(0, database.searchForMovie("Alien", "title", 0).size());
+        assertEquals(2, database.searchForMovie("", "favourite", 1).size());
+        assertEquals(1, database.searchForMovie("Michael Mann", "director", 0).size());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    void changingARatingDropsTheFavouriteSearchesForBothRatings()
+    {
+        assertEquals(1, database.searchForMovie("", "favourite", 8).size());
+        assertEquals(2, database.searchForMovie("", "favourite", 7).size());
+        assertEquals(0, database.searchForMovie("", "favourite", 9).size());
+        assertEquals(1, database.searchForMovie("Heat", "title", 0).size());
+
+        // Heat goes from 7 to 9, so searches from 8 and 9 gain it and the search from 7 changes order
+        Movie heat = database.searchForMovie("Heat", "title", 0).get(0);
+        heat.setRating(9);
+        assertEquals(2, database.searchForMovie("", "favourite", 8).size());
+        assertEquals("Heat", database.searchForMovie("", "favourite", 7).get(0).getTitle());
+        assertEquals(1, database.searchForMovie("", "favourite", 9).size());
+        assertEquals(9, database.searchForMovie("Heat", "title", 0).get(0).getRating());
+
+        heat.setRating(3);
+        assertEquals(1, database.searchForMovie("", "favourite", 7).size());
+        assertEquals(3, database.searchForMovie("", "favourite", 3).size());
+    }
+
+    @Test
+    void changingATitleDropsTheOldAndNewTitleSearches()
+    {
+        assertEquals(1, database.searchForMovie("Heat", "title", 0).size());
+        assertEquals(0, database.searchForMovie("Heat 2", "title", 0).size());
+
+        database.searchForMovie("Heat", "title", 0).get(0).setTitle("Heat 2");
+        assertEquals(0, database.searchForMovie("Heat", "title", 0).size());
+        assertEquals(1, database.searchForMovie("Heat 2", "title", 0).size());
+    }
+}
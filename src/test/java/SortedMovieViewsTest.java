@@ -0,0 +1,175 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the sorted listings and range scans of a Database against sorting every movie, over a
+ * random catalogue with deletes and changes made after the views are built.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class SortedMovieViewsTest
+{
+    private static final String[] WORDS = { "alpha", "Beta", "gamma", "Delta", "m", "M", "Mango", "nu", "O", "pi", "Pz", "zeta" };
+
+    private Database database;
+    private Random random;
+
+    @BeforeEach
+    void setUp()
+    {
+        database = new Database();
+        random = new Random(42);
+        for (int i = 0; i < 500; i++)
+        {
+            database.addMovie(randomMovie());
+        }
+        // Build the views, then change the catalogue under them
+        database.moviesByTitle(null, null);
+        for (int i = 0; i < 300; i++)
+        {
+            List<Movie> all = database.getAllMovies();
+            Movie movie = all.get(random.nextInt(all.size()));
+            switch (random.nextInt(5))
+            {
+                case 0:
+                    database.deleteMovie(movie);
+                    break;
+                case 1:
+                    movie.setTitle(randomWord() + " " + randomWord());
+                    break;
+                case 2:
+                    movie.setDirector(randomWord());
+                    break;
+                case 3:
+                    movie.setRating(1 + random.nextInt(10));
+                    break;
+                default:
+                    database.addMovie(randomMovie());
+                    break;
+            }
+        }
+    }
+
+    @Test
+    void titleRangesMatchASortOfEveryMovie()
+    {
+        assertEquals(expected(null, null, titleOrder(), true), database.moviesByTitle(null, null));
+        assertEquals(expected("m", "p", titleOrder(), true), database.moviesByTitle("m", "p"));
+        assertEquals(expected("M", "M", titleOrder(), true), database.moviesByTitle("M", "M"));
+        assertEquals(expected("Beta", null, titleOrder(), true), database.moviesByTitle("Beta", null));
+        assertEquals(expected(null, "delta", titleOrder(), true), database.moviesByTitle(null, "delta"));
+        assertEquals(0, database.moviesByTitle("z", "a").size());
+    }
+
+    @Test
+    void directorRangesMatchASortOfEveryMovie()
+    {
+        assertEquals(expected(null, null, directorOrder(), false), database.moviesByDirector(null, null));
+        assertEquals(expected("gamma", "o", directorOrder(), false), database.moviesByDirector("gamma", "o"));
+        assertEquals(expected("pi", "pi", directorOrder(), false), database.moviesByDirector("pi", "pi"));
+    }
+
+    @Test
+    void ratingRangesMatchASortOfEveryMovie()
+    {
+        ArrayList<Movie> byRating = new ArrayList<Movie>(database.getAllMovies());
+        Collections.sort(byRating, ratingOrder());
+        assertEquals(byRating, database.moviesRatedBetween(1, 10));
+        assertEquals(byRating.subList(0, 25), database.topRatedMovies(25));
+
+        ArrayList<Movie> middle = new ArrayList<Movie>();
+        for (int i = 0; i < byRating.size(); i++)
+        {
+            if (byRating.get(i).getRating() >= 4 && byRating.get(i).getRating() <= 6)
+            {
+                middle.add(byRating.get(i));
+            }
+        }
+        assertEquals(middle, database.moviesRatedBetween(4, 6));
+        assertEquals(0, database.moviesRatedBetween(7, 3).size());
+    }
+
+    /*
+     * Every movie sorted with the given order, keeping those whose title (or director) is from
+     * from to to ignoring case, where values starting with to are in range and null bounds are open
+     */
+    private ArrayList<Movie> expected(String from, String to, Comparator<Movie> order, boolean byTitle)
+    {
+        ArrayList<Movie> movies = new ArrayList<Movie>();
+        List<Movie> all = database.getAllMovies();
+        for (int i = 0; i < all.size(); i++)
+        {
+            String value = (byTitle ? all.get(i).getTitle() : all.get(i).getDirector()).toLowerCase();
+            boolean afterFrom = from == null || value.compareTo(from.toLowerCase()) >= 0;
+            boolean beforeTo = to == null || value.compareTo(to.toLowerCase()) <= 0 || value.startsWith(to.toLowerCase());
+            if (afterFrom && beforeTo)
+            {
+                movies.add(all.get(i));
+            }
+        }
+        Collections.sort(movies, order);
+        return movies;
+    }
+
+    private static Comparator<Movie> titleOrder()
+    {
+        return new Comparator<Movie>()
+        {
+            public int compare(Movie a, Movie b)
+            {
+                int compared = a.getTitle().compareToIgnoreCase(b.getTitle());
+                return (compared != 0) ? compared : Integer.compare(a.getId(), b.getId());
+            }
+        };
+    }
+
+    private static Comparator<Movie> directorOrder()
+    {
+        return new Comparator<Movie>()
+        {
+            public int compare(Movie a, Movie b)
+            {
+                int compared = a.getDirector().compareToIgnoreCase(b.getDirector());
+                if (compared == 0)
+                {
+                    compared = a.getTitle().compareToIgnoreCase(b.getTitle());
+                }
+                return (compared != 0) ? compared : Integer.compare(a.getId(), b.getId());
+            }
+        };
+    }
+
+    private static Comparator<Movie> ratingOrder()
+    {
+        return new Comparator<Movie>()
+        {
+            public int compare(Movie a, Movie b)
+            {
+                if (a.getRating() != b.getRating())
+                {
+                    return Integer.compare(b.getRating(), a.getRating());
+                }
+                int compared = a.getTitle().compareToIgnoreCase(b.getTitle());
+                return (compared != 0) ? compared : Integer.compare(a.getId(), b.getId());
+            }
+        };
+    }
+
+    private Movie randomMovie()
+    {
+        return new Movie(randomWord() + " " + randomWord(), randomWord(), randomWord(), "", "", 1 + random.nextInt(10));
+    }
+
+    private String randomWord()
+    {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
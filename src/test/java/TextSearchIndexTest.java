@@ -0,0 +1,124 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TextSearchIndex ranking, and that the rankings kept for one and two character queries give
+ * the same results as ranking every match while movies are added, changed and removed.
+ *
+ * @author (Bhavik Maneck)
+ * @version (v1)
+ */
+class TextSearchIndexTest
+{
+    private static final String[] WORDS = { "alpha", "alps", "amber", "beta", "bravo", "al", "a", "b2", "zulu" };
+
+    @Test
+    void matchesAreRankedByKindThenFieldThenRating()
+    {
+        Database database = new Database();
+        database.addMovie(new Movie("The Alien Job", "Director", "Actor", "", "", 9));
+        database.addMovie(new Movie("Alien", "Director", "Actor", "", "", 2));
+        database.addMovie(new Movie("Aliens", "Director", "Actor", "", "", 5));
+        database.addMovie(new Movie("Heat", "Alien Director", "Actor", "", "", 10));
+        database.addMovie(new Movie("Salient", "Director", "Actor", "", "", 10));
+
+        ArrayList<Movie> found = database.searchMoviesByText("ALIEN", 10);
+        assertEquals(5, found.size());
+        assertEquals("Alien", found.get(0).getTitle());
+        assertEquals("Aliens", found.get(1).getTitle());
+        assertEquals("Heat", found.get(2).getTitle());
+        assertEquals("The Alien Job", found.get(3).getTitle());
+        assertEquals("Salient", found.get(4).getTitle());
+
+        // Short queries only match the start of words
+        found = database.searchMoviesByText("al", 10);
+        assertEquals(4, found.size());
+        assertEquals("Aliens", found.get(0).getTitle());
+        assertEquals(0, database.searchMoviesByText("li", 10).size());
+    }
+
+    @Test
+    void shortQueryRankingsMatchRankingEveryMatch()
+    {
+        Random random = new Random(3);
+        TextSearchIndex index = new TextSearchIndex();
+        ArrayList<Movie> movies = new ArrayList<Movie>();
+        for (int i = 0; i < 2000; i++)
+        {
+            Movie movie = randomMovie(random, i);
+            index.add(movie);
+            movies.add(movie);
+        }
+        checkShortQueries(index);
+
+        for (int round = 0; round < 3000; round++)
+        {
+            int position = random.nextInt(movies.size());
+            Movie movie = movies.get(position);
+            int change = random.nextInt(4);
+            if (change == 0)
+            {
+                index.remove(movie);
+                movies.remove(position);
+            }
+            else if (change == 1)
+            {
+                index.remove(movie);
+                movie.setRating(1 + random.nextInt(10));
+                index.add(movie);
+            }
+            else if (change == 2)
+            {
+                Movie added = randomMovie(random, 2000 + round);
+                index.add(added);
+                movies.add(added);
+            }
+            else
+            {
+                // Take out the best match of a short query, so its ranking runs low and is refilled
+                ArrayList<Movie> best = index.search(random.nextBoolean() ? "a" : "al", 1);
+                if (best.size() > 0)
+                {
+                    index.remove(best.get(0));
+                    movies.remove(best.get(0));
+                }
+            }
+            if (round % 250 == 0)
+            {
+                checkShortQueries(index);
+            }
+        }
+        checkShortQueries(index);
+    }
+
+    // Asking for more results than are kept ranks every match, so compare the first few of those with the kept rankings
+    private static void checkShortQueries(TextSearchIndex index)
+    {
+        String[] queries = { "a", "al", "am", "b", "b2", "Z", "x" };
+        for (int q = 0; q < queries.length; q++)
+        {
+            ArrayList<Movie> everyMatch = index.search(queries[q], Integer.MAX_VALUE);
+            int[] counts = { 1, 10, TextSearchIndex.SHORT_QUERY_RESULTS };
+            for (int c = 0; c < counts.length; c++)
+            {
+                ArrayList<Movie> expected = new ArrayList<Movie>(everyMatch.subList(0, Math.min(counts[c], everyMatch.size())));
+                assertEquals(expected, index.search(queries[q], counts[c]), queries[q] + " for " + counts[c]);
+            }
+        }
+    }
+
+    // Titles are all different, so no two matches rank the same
+    private static Movie randomMovie(Random random, int number)
+    {
+        return new Movie(randomWord(random) + " " + number, randomWord(random) + " " + randomWord(random),
+                         randomWord(random), randomWord(random), "", 1 + random.nextInt(10));
+    }
+
+    private static String randomWord(Random random)
+    {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}